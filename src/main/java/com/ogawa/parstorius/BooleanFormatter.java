@@ -19,8 +19,6 @@ package com.ogawa.parstorius;
 import java.text.ParsePosition;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("unused")
@@ -37,10 +35,15 @@ public class BooleanFormatter extends Formatter<Boolean, BooleanFormatter> {
     public static final List<String> ONE_TRUE_LIST = List.of(Boolean.TRUE.toString());
     public static final List<String> ZERO_FALSE_LIST = List.of(Boolean.TRUE.toString());
 
-    BiPredicate<String, String> caseFunction;
+    private static final int FALSE_VALUE = 0;
+    private static final int TRUE_VALUE = 1;
+
     private List<String> trueRepresentatives;
     private List<String> falseRepresentatives;
 
+    // matcher of the true and false representatives, derived by init()
+    private LiteralMatcher representativeMatcher;
+
 
     /* ************************************************************************** */
     /* ****************************** constructors ****************************** */
@@ -81,11 +84,21 @@ public class BooleanFormatter extends Formatter<Boolean, BooleanFormatter> {
 
     @Override protected BooleanFormatter init() {
 
-        if (parseCaseInsensitive) {
-            caseFunction = String::equalsIgnoreCase;
-        } else {
-            caseFunction = String::equals;
+        renewParseConfigurationStamp();
+
+        // a representative in both lists is true, as it was found in the true list first
+        LiteralMatcher matcher = new LiteralMatcher(parseCaseInsensitive);
+        for (String trueRepresentative : trueRepresentatives) {
+            if (!trueRepresentative.isEmpty()) {
+                matcher.add(trueRepresentative, TRUE_VALUE);
+            }
+        }
+        for (String falseRepresentative : falseRepresentatives) {
+            if (!falseRepresentative.isEmpty()) {
+                matcher.add(falseRepresentative, FALSE_VALUE);
+            }
         }
+        representativeMatcher = matcher;
 
         return this;
     }
@@ -103,30 +116,30 @@ public class BooleanFormatter extends Formatter<Boolean, BooleanFormatter> {
 
   public BooleanFormatter setTrueList(List<String> trueRepresentatives) {
       this.trueRepresentatives = List.copyOf(trueRepresentatives);
-      return this;
+      return init();
   }
 
     public BooleanFormatter setFalseList(List<String> falseRepresentatives) {
         this.falseRepresentatives = List.copyOf(falseRepresentatives);
-        return this;
+        return init();
     }
 
     /* ******************************* parse logic ****************************** */
 
     @Override
     protected Boolean parseText(String text, ParsePosition contextParsePosition) {
-        Optional<String> found;
-        found = find(trueRepresentatives, text);
-        if (found.isPresent()) {
-            return true;
-        } else {
-            found = find(falseRepresentatives, text);
-            if (found.isPresent()) {
-                return false;
-            }
+
+        // the longest representative at the position
+        long match = representativeMatcher.match(text, contextParsePosition.getIndex());
+        if (match < 0) {
+            // signal an error
+            contextParsePosition.setErrorIndex(contextParsePosition.getIndex());
+            return null;
         }
-        // signal an error
-        return null;
+
+        contextParsePosition.setIndex(LiteralMatcher.endOf(match));
+        return LiteralMatcher.valueOf(match) == TRUE_VALUE;
+
     }
 
     /* ************************************************************************** */
@@ -140,7 +153,7 @@ public class BooleanFormatter extends Formatter<Boolean, BooleanFormatter> {
         if (bool == null) {
             return null;
         }
-        return bool ? trueRepresentatives.get(0) : falseRepresentatives.get(1);
+        return bool ? trueRepresentatives.get(0) : falseRepresentatives.get(0);
     }
 
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.time.chrono.ChronoLocalDate;
+import java.time.chrono.HijrahChronology;
+import java.time.chrono.HijrahDate;
+import java.time.chrono.JapaneseChronology;
+import java.time.chrono.JapaneseDate;
+import java.time.chrono.MinguoChronology;
+import java.time.chrono.MinguoDate;
+import java.time.chrono.ThaiBuddhistChronology;
+import java.time.chrono.ThaiBuddhistDate;
+import java.util.function.LongFunction;
+
+/**
+ * Global bounded cache mapping epoch days to the dates of a non-ISO chronology. Converting to Hijrah, Japanese,
+ * Minguo and Thai Buddhist dates is expensive, e.g. the Hijrah chronology searches its variant tables, while the
+ * dates of a column usually span a few years only. The cache is direct-mapped by the epoch day, so consecutive days
+ * never evict each other. Entries are immutable and replaced without locking, which is safe, since a racing reader
+ * either sees a complete entry or misses.
+ */
+final class ChronoDateCache {
+
+    static final int CAPACITY = 4096;
+
+    private static final ChronoDateCache HIJRAH = new ChronoDateCache(HijrahChronology.INSTANCE::dateEpochDay);
+    private static final ChronoDateCache JAPANESE = new ChronoDateCache(JapaneseChronology.INSTANCE::dateEpochDay);
+    private static final ChronoDateCache MINGUO = new ChronoDateCache(MinguoChronology.INSTANCE::dateEpochDay);
+    private static final ChronoDateCache THAI_BUDDHIST =
+        new ChronoDateCache(ThaiBuddhistChronology.INSTANCE::dateEpochDay);
+
+    // immutable pair of an epoch day and its date
+    private static final class Entry {
+
+        final private long epochDay;
+        final private ChronoLocalDate date;
+
+        private Entry(final long epochDay, final ChronoLocalDate date) {
+            this.epochDay = epochDay;
+            this.date = date;
+        }
+
+    }
+
+    final private LongFunction<ChronoLocalDate> dateOfEpochDay;
+    final private Entry[] entries;
+
+    private ChronoDateCache(final LongFunction<ChronoLocalDate> dateOfEpochDay) {
+        this.dateOfEpochDay = dateOfEpochDay;
+        this.entries = new Entry[CAPACITY];
+    }
+
+    /**
+     * Returns the cache of the passed date class
+     * @param temporalClass class of the dates
+     * @return the cache or null, if the class is no date of a supported non-ISO chronology
+     */
+    static ChronoDateCache of(final Class<?> temporalClass) {
+        if (temporalClass == HijrahDate.class) {
+            return HIJRAH;
+        } else if (temporalClass == JapaneseDate.class) {
+            return JAPANESE;
+        } else if (temporalClass == MinguoDate.class) {
+            return MINGUO;
+        } else if (temporalClass == ThaiBuddhistDate.class) {
+            return THAI_BUDDHIST;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the date of the passed epoch day, converting and caching it on a miss
+     * @param epochDay epoch day
+     * @return the date
+     * @throws java.time.DateTimeException if the epoch day is out of the range of the chronology
+     */
+    ChronoLocalDate get(final long epochDay) {
+
+        int slot = (int) epochDay & (CAPACITY - 1);
+        Entry entry = entries[slot];
+        if (entry != null && entry.epochDay == epochDay) {
+            return entry.date;
+        }
+
+        ChronoLocalDate date = dateOfEpochDay.apply(epochDay);
+        entries[slot] = new Entry(epochDay, date);
+        return date;
+
+    }
+
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.chrono.ChronoLocalDate;
+import java.time.chrono.ChronoLocalDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.time.temporal.ChronoField;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sink collecting parsed rows column by column into growable primitive arrays instead of boxed rows. Each column
+ * parses its texts with its formatter and records per row the {@link PARSE_RESULT_CAUSE} in a byte vector and if a
+ * value is present in a validity bitmap. A value is present, if the formatter returned a non-null result, so
+ * non-null parse defaults are stored like parsed values. A result not convertible to the type of the column, e.g. an
+ * epoch day out of int range, is recorded as {@link PARSE_RESULT_CAUSE#ERROR} without value.
+ * The sink is stateful and not thread-safe, like the formatters of its columns.
+ */
+@SuppressWarnings("unused")
+public class ColumnarSink {
+
+    static final int INITIAL_CAPACITY = 1024;
+
+    final private List<Column> columns;
+    private int rowCount;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    public ColumnarSink() {
+        this.columns = new ArrayList<>();
+        this.rowCount = 0;
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* columns ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Abstract super class of all columns holding the parse result causes and the validity of the rows
+     */
+    public static abstract class Column {
+
+        final Formatter<?, ?> formatter;
+        int size;
+        byte[] parseResultCauses;
+        long[] validityBits;
+
+        Column(final Formatter<?, ?> formatter) {
+            this.formatter = Objects.requireNonNull(formatter, "formatter");
+            this.size = 0;
+            this.parseResultCauses = new byte[INITIAL_CAPACITY];
+            this.validityBits = new long[INITIAL_CAPACITY >>> 6];
+        }
+
+        /**
+         * Grows the value storage of the column to the passed capacity
+         * @param capacity new capacity
+         */
+        abstract void growValues(int capacity);
+
+        /**
+         * Converts the non-null parse result and stores it at the passed row, which is left unchanged on failure
+         * @param row row index
+         * @param value parse result
+         * @return true, if the value was stored, false, if it is not convertible
+         */
+        abstract boolean storeValue(int row, Object value);
+
+        private void ensureCapacity() {
+            if (size == parseResultCauses.length) {
+                int capacity = size << 1;
+                parseResultCauses = Arrays.copyOf(parseResultCauses, capacity);
+                validityBits = Arrays.copyOf(validityBits, capacity >>> 6);
+                growValues(capacity);
+            }
+        }
+
+        void append(final String text) {
+
+            ensureCapacity();
+
+            Object value = formatter.parse(text);
+            PARSE_RESULT_CAUSE parseResultCause = formatter.getLastParseResultCause();
+            // the value is stored before the row is marked, so a failed conversion leaves no partial row
+            if (value != null && !storeValue(size, value)) {
+                value = null;
+                parseResultCause = PARSE_RESULT_CAUSE.ERROR;
+            }
+
+            parseResultCauses[size] = (byte) parseResultCause.ordinal();
+            if (value != null) {
+                validityBits[size >>> 6] |= 1L << size;
+            }
+            size++;
+
+        }
+
+        /**
+         * Returns the formatter parsing the texts of the column
+         * @return the formatter
+         */
+        public Formatter<?, ?> getFormatter() { return formatter; }
+
+        /**
+         * Returns the number of rows in the column
+         * @return number of rows
+         */
+        public int size() { return size; }
+
+        /**
+         * Returns if the row has no value, because parsing resulted in null
+         * @param row row index
+         * @return true, if the row has no value
+         */
+        public boolean isNull(final int row) {
+            Objects.checkIndex(row, size);
+            return (validityBits[row >>> 6] & (1L << row)) == 0;
+        }
+
+        /**
+         * Returns the cause of the parse result of the row
+         * @param row row index
+         * @return parse result cause
+         */
+        public PARSE_RESULT_CAUSE getParseResultCause(final int row) {
+            Objects.checkIndex(row, size);
+            return PARSE_RESULT_CAUSE.values()[parseResultCauses[row]];
+        }
+
+        /**
+         * Returns the number of bytes allocated by the column's arrays
+         * @return allocated bytes
+         */
+        public long getAllocatedBytes() {
+            return parseResultCauses.length + 8L * validityBits.length;
+        }
+
+    }
+
+    /**
+     * Column of integral numbers stored as long
+     */
+    public static class LongColumn extends Column {
+
+        long[] values;
+
+        LongColumn(final NumberFormatter<?> formatter) {
+            super(formatter);
+            this.values = new long[INITIAL_CAPACITY];
+        }
+
+        @Override void growValues(final int capacity) { values = Arrays.copyOf(values, capacity); }
+
+        @Override boolean storeValue(final int row, final Object value) {
+            try {
+                values[row] = toLong((Number) value);
+                return true;
+            } catch (ArithmeticException exception) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the value of the row or 0, if the row has no value
+         * @param row row index
+         * @return value of the row
+         */
+        public long getLong(final int row) {
+            Objects.checkIndex(row, size);
+            return values[row];
+        }
+
+        @Override public long getAllocatedBytes() { return super.getAllocatedBytes() + 8L * values.length; }
+
+    }
+
+    /**
+     * Column of floating point numbers stored as double
+     */
+    public static class DoubleColumn extends Column {
+
+        double[] values;
+
+        DoubleColumn(final NumberFormatter<?> formatter) {
+            super(formatter);
+            this.values = new double[INITIAL_CAPACITY];
+        }
+
+        @Override void growValues(final int capacity) { values = Arrays.copyOf(values, capacity); }
+
+        @Override boolean storeValue(final int row, final Object value) {
+            values[row] = ((Number) value).doubleValue();
+            return true;
+        }
+
+        /**
+         * Returns the value of the row or 0.0, if the row has no value
+         * @param row row index
+         * @return value of the row
+         */
+        public double getDouble(final int row) {
+            Objects.checkIndex(row, size);
+            return values[row];
+        }
+
+        @Override public long getAllocatedBytes() { return super.getAllocatedBytes() + 8L * values.length; }
+
+    }
+
+    /**
+     * Column of booleans stored as bitset
+     */
+    public static class BooleanColumn extends Column {
+
+        long[] valueBits;
+
+        BooleanColumn(final BooleanFormatter formatter) {
+            super(formatter);
+            this.valueBits = new long[INITIAL_CAPACITY >>> 6];
+        }
+
+        @Override void growValues(final int capacity) { valueBits = Arrays.copyOf(valueBits, capacity >>> 6); }
+
+        @Override boolean storeValue(final int row, final Object value) {
+            if ((Boolean) value) {
+                valueBits[row >>> 6] |= 1L << row;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the value of the row or false, if the row has no value
+         * @param row row index
+         * @return value of the row
+         */
+        public boolean getBoolean(final int row) {
+            Objects.checkIndex(row, size);
+            return (valueBits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override public long getAllocatedBytes() { return super.getAllocatedBytes() + 8L * valueBits.length; }
+
+    }
+
+    /**
+     * Column of dates stored as epoch day
+     */
+    public static class EpochDayColumn extends Column {
+
+        int[] values;
+
+        EpochDayColumn(final TemporalAccessorFormatter<?> formatter) {
+            super(formatter);
+            this.values = new int[INITIAL_CAPACITY];
+        }
+
+        @Override void growValues(final int capacity) { values = Arrays.copyOf(values, capacity); }
+
+        @Override boolean storeValue(final int row, final Object value) {
+            try {
+                values[row] = toEpochDay((TemporalAccessor) value);
+                return true;
+            } catch (DateTimeException | ArithmeticException exception) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the epoch day of the row or 0, if the row has no value
+         * @param row row index
+         * @return epoch day of the row
+         */
+        public int getEpochDay(final int row) {
+            Objects.checkIndex(row, size);
+            return values[row];
+        }
+
+        @Override public long getAllocatedBytes() { return super.getAllocatedBytes() + 4L * values.length; }
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** common logic ****************************** */
+
+    // integral value of the number, throws ArithmeticException for a BigInteger out of long range
+    static long toLong(final Number number) {
+        return number instanceof BigInteger ? ((BigInteger) number).longValueExact() : number.longValue();
+    }
+
+    // epoch day of the temporal, throws DateTimeException if unsupported or ArithmeticException out of int range
+    static int toEpochDay(final TemporalAccessor temporal) {
+        return Math.toIntExact(temporal.getLong(ChronoField.EPOCH_DAY));
+    }
+
+    // throws IllegalArgumentException for numbers with fraction
+    static <F extends NumberFormatter<?>> F checkIntegral(final F formatter) {
+        Class<?> numberClass = Objects.requireNonNull(formatter, "formatter").getNumberClass();
+        if (numberClass != Byte.class && numberClass != Short.class && numberClass != Integer.class
+            && numberClass != Long.class && numberClass != BigInteger.class) {
+            throw new IllegalArgumentException(numberClass.getName() + " not supported");
+        }
+        return formatter;
+    }
+
+    // throws IllegalArgumentException for temporals without date, only unspecific interfaces are checked on parsing
+    static <F extends TemporalAccessorFormatter<?>> F checkEpochDay(final F formatter) {
+        Class<?> temporalClass = Objects.requireNonNull(formatter, "formatter").getTemporalAccessorClass();
+        if (temporalClass != TemporalAccessor.class && temporalClass != Temporal.class
+            && !ChronoLocalDate.class.isAssignableFrom(temporalClass)
+            && !ChronoLocalDateTime.class.isAssignableFrom(temporalClass)
+            && !ChronoZonedDateTime.class.isAssignableFrom(temporalClass)
+            && !OffsetDateTime.class.isAssignableFrom(temporalClass)) {
+            throw new IllegalArgumentException(temporalClass.getName() + " not supported");
+        }
+        return formatter;
+    }
+
+    private <C extends Column> C addColumn(final C column) {
+        if (rowCount > 0) {
+            throw new IllegalStateException("columns must be added before the first row");
+        }
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * Adds a column of integral numbers. The formatter has to parse to Byte, Short, Integer, Long or BigInteger.
+     * @param formatter formatter parsing the texts of the column
+     * @return the added column
+     */
+    public LongColumn addLongColumn(final NumberFormatter<?> formatter) {
+        return addColumn(new LongColumn(checkIntegral(formatter)));
+    }
+
+    /**
+     * Adds a column of floating point numbers
+     * @param formatter formatter parsing the texts of the column
+     * @return the added column
+     */
+    public DoubleColumn addDoubleColumn(final NumberFormatter<?> formatter) {
+        return addColumn(new DoubleColumn(formatter));
+    }
+
+    /**
+     * Adds a column of booleans
+     * @param formatter formatter parsing the texts of the column
+     * @return the added column
+     */
+    public BooleanColumn addBooleanColumn(final BooleanFormatter formatter) {
+        return addColumn(new BooleanColumn(formatter));
+    }
+
+    /**
+     * Adds a column of dates. The formatter has to parse to a temporal supporting {@link ChronoField#EPOCH_DAY}.
+     * @param formatter formatter parsing the texts of the column
+     * @return the added column
+     */
+    public EpochDayColumn addEpochDayColumn(final TemporalAccessorFormatter<?> formatter) {
+        return addColumn(new EpochDayColumn(checkEpochDay(formatter)));
+    }
+
+    /**
+     * Returns the column at the passed index
+     * @param index column index
+     * @return the column
+     */
+    public Column getColumn(final int index) { return columns.get(index); }
+
+    /**
+     * Returns the number of columns
+     * @return number of columns
+     */
+    public int getColumnCount() { return columns.size(); }
+
+    /**
+     * Returns the number of rows appended
+     * @return number of rows
+     */
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Returns the number of bytes allocated by the arrays of all columns
+     * @return allocated bytes
+     */
+    public long getAllocatedBytes() {
+        long allocatedBytes = 0;
+        for (Column column : columns) {
+            allocatedBytes += column.getAllocatedBytes();
+        }
+        return allocatedBytes;
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Parses the passed texts and appends them as a row. Texts beyond the number of columns are ignored, missing
+     * texts are parsed as null.
+     * @param texts texts in order of the columns
+     * @return the sink instance
+     */
+    public ColumnarSink appendRow(final String... texts) {
+
+        for (int index = 0; index < columns.size(); index++) {
+            columns.get(index).append(texts != null && index < texts.length ? texts[index] : null);
+        }
+        rowCount++;
+
+        return this;
+
+    }
+
+}
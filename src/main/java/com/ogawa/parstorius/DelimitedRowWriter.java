@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes delimited rows (e.g. CSV) by formatting every column of a row directly into one growing row buffer using
+ * the formatter bound to the column. Nulls are formatted by the column's formatter, so its formatNullDefault and
+ * formatNullText are honoured, and the text representing null is never quoted. The row buffer is flushed encoded
+ * to the channel through pooled direct byte buffers, when it exceeds the flush threshold or on {@link #flush()}.
+ * The writer is stateful and not thread-safe, like the formatters of its columns.
+ */
+@SuppressWarnings("unused")
+public class DelimitedRowWriter implements Closeable {
+
+    public static final String DEFAULT_LINE_SEPARATOR = "\n";
+    public static final int DEFAULT_FLUSH_THRESHOLD = 32 * 1024;
+
+    final private Formatter<?, ?>[] formatters;
+    final private char delimiter;
+    final private char quoteChar;
+    final private QUOTE_MODE quoteMode;
+    private char escapeChar;
+    private String lineSeparator;
+    private int flushThreshold;
+
+    final private WritableByteChannel channel;
+    final private Charset charset;
+    final private CharsetEncoder charsetEncoder;
+    final private StringBuilder rowBuffer;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new writer
+     * @param formatters formatters of the columns in order of the values of a row
+     * @param delimiter char separating the columns
+     * @param quoteChar char to quote values with
+     * @param quoteMode mode, when values are quoted
+     * @param channel channel to write to
+     * @param charset charset to encode with. Null is UTF-8.
+     */
+    public DelimitedRowWriter(final List<? extends Formatter<?, ?>> formatters,
+        final char delimiter, final char quoteChar, final QUOTE_MODE quoteMode,
+        final WritableByteChannel channel, final Charset charset) {
+
+        Objects.requireNonNull(formatters, "formatters");
+        Objects.requireNonNull(quoteMode, "quoteMode");
+        Objects.requireNonNull(channel, "channel");
+
+        this.formatters = formatters.toArray(new Formatter<?, ?>[0]);
+        this.delimiter = delimiter;
+        this.quoteChar = quoteChar;
+        this.quoteMode = quoteMode;
+        this.escapeChar = quoteChar;
+        this.lineSeparator = DEFAULT_LINE_SEPARATOR;
+        this.flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+
+        this.channel = channel;
+        this.charset = Objects.requireNonNullElse(charset, StandardCharsets.UTF_8);
+        this.charsetEncoder = this.charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.rowBuffer = new StringBuilder(DEFAULT_FLUSH_THRESHOLD + 1024);
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common setter ****************************** */
+
+    /**
+     * Sets the char escaping quote chars inside quoted values, respectively delimiters, line breaks and itself
+     * in {@link QUOTE_MODE#NEVER}. The default is the quote char, which escapes quotes by doubling them.
+     * @param escapeChar the escape char
+     * @return the writer instance
+     */
+    public DelimitedRowWriter setEscapeChar(final char escapeChar) {
+        this.escapeChar = escapeChar;
+        return this;
+    }
+
+    /**
+     * Sets the line separator terminating each row. Null is {@link #DEFAULT_LINE_SEPARATOR}.
+     * @param lineSeparator the line separator
+     * @return the writer instance
+     */
+    public DelimitedRowWriter setLineSeparator(final String lineSeparator) {
+        this.lineSeparator = Objects.requireNonNullElse(lineSeparator, DEFAULT_LINE_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Sets the number of buffered chars, which causes a flush after a row was written
+     * @param flushThreshold the flush threshold
+     * @return the writer instance
+     */
+    public DelimitedRowWriter setFlushThreshold(final int flushThreshold) {
+        this.flushThreshold = Math.max(1, flushThreshold);
+        return this;
+    }
+
+    /* ***************************** common getter ****************************** */
+
+    public List<Formatter<?, ?>> getFormatters() { return List.of(formatters); }
+
+    public char getDelimiter() { return delimiter; }
+
+    public char getQuoteChar() { return quoteChar; }
+
+    public char getEscapeChar() { return escapeChar; }
+
+    public QUOTE_MODE getQuoteMode() { return quoteMode; }
+
+    public String getLineSeparator() { return lineSeparator; }
+
+    public int getFlushThreshold() { return flushThreshold; }
+
+    public Charset getCharset() { return charset; }
+
+    /* ************************************************************************** */
+    /* ********************************* writing ******************************** */
+    /* ************************************************************************** */
+
+    private boolean isLineBreak(final char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    // returns if the char has to be escaped inside a quoted value
+    private boolean mustEscapeQuoted(final char c) {
+        return c == quoteChar || (c == escapeChar && escapeChar != quoteChar);
+    }
+
+    // returns if the char has to be escaped inside an unquoted value
+    private boolean mustEscapeUnquoted(final char c) {
+        return c == delimiter || c == escapeChar || isLineBreak(c);
+    }
+
+    /**
+     * Quotes and escapes the formatted value at the end of the row buffer in place
+     * @param start start of the formatted value in the row buffer
+     * @param isNullText true, if the value is the text representing null
+     */
+    private void quoteValue(final int start, final boolean isNullText) {
+
+        int end = rowBuffer.length();
+        boolean quote;
+        int escapeCount = 0;
+
+        if (quoteMode == QUOTE_MODE.NEVER) {
+
+            quote = false;
+            for (int index = start; index < end; index++) {
+                if (mustEscapeUnquoted(rowBuffer.charAt(index))) escapeCount++;
+            }
+
+        } else {
+
+            quote = quoteMode == QUOTE_MODE.ALWAYS && !isNullText;
+            for (int index = start; index < end; index++) {
+                char c = rowBuffer.charAt(index);
+                if (mustEscapeQuoted(c)) {
+                    escapeCount++;
+                    quote = true;
+                } else if (c == delimiter || isLineBreak(c)) {
+                    quote = true;
+                }
+            }
+            if (!quote) {
+                escapeCount = 0;
+            }
+
+        }
+
+        if (!quote && escapeCount == 0) {
+            return;
+        }
+
+        // widen the value and move its chars from the back to their final positions
+        int quoteLength = quote ? 1 : 0;
+        int target = end + escapeCount + 2 * quoteLength;
+        rowBuffer.setLength(target);
+
+        if (quote) {
+            rowBuffer.setCharAt(--target, quoteChar);
+        }
+        for (int index = end - 1; index >= start; index--) {
+            char c = rowBuffer.charAt(index);
+            rowBuffer.setCharAt(--target, c);
+            if (quote ? mustEscapeQuoted(c) : mustEscapeUnquoted(c)) {
+                rowBuffer.setCharAt(--target, escapeChar);
+            }
+        }
+        if (quote) {
+            rowBuffer.setCharAt(--target, quoteChar);
+        }
+
+    }
+
+    /**
+     * Formats the passed values into the row buffer and flushes it, if it exceeds the flush threshold. Values
+     * beyond the number of columns are ignored, missing values are written as null.
+     * @param values values in order of the columns
+     * @return the writer instance
+     * @throws IOException if an I/O error occurs on flushing
+     */
+    @SuppressWarnings("unchecked")
+    public DelimitedRowWriter writeRow(final Object... values) throws IOException {
+
+        for (int index = 0; index < formatters.length; index++) {
+
+            if (index > 0) {
+                rowBuffer.append(delimiter);
+            }
+
+            Formatter<Object, ?> formatter = (Formatter<Object, ?>) formatters[index];
+            Object value = values != null && index < values.length ? values[index] : null;
+
+            int start = rowBuffer.length();
+            formatter.formatTo(value, rowBuffer);
+            quoteValue(start, formatter.getLastFormatResultCause() == FORMAT_RESULT_CAUSE.FORMAT_ON_NULL);
+
+        }
+
+        rowBuffer.append(lineSeparator);
+
+        if (rowBuffer.length() >= flushThreshold) {
+            flush();
+        }
+
+        return this;
+
+    }
+
+    private void writeFully(final ByteBuffer byteBuffer) throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    /**
+     * Encodes the buffered rows and writes them to the channel
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+
+        if (rowBuffer.length() == 0) {
+            return;
+        }
+
+        ByteBuffer byteBuffer = DirectByteBufferPool.acquire();
+
+        try {
+
+            CharBuffer charBuffer = CharBuffer.wrap(rowBuffer);
+            charsetEncoder.reset();
+
+            CoderResult coderResult;
+            do {
+                coderResult = charsetEncoder.encode(charBuffer, byteBuffer, true);
+                if (coderResult.isOverflow()) {
+                    writeFully(byteBuffer);
+                }
+            } while (coderResult.isOverflow());
+
+            while (charsetEncoder.flush(byteBuffer).isOverflow()) {
+                writeFully(byteBuffer);
+            }
+            writeFully(byteBuffer);
+
+        } finally {
+            DirectByteBufferPool.release(byteBuffer);
+            rowBuffer.setLength(0);
+        }
+
+    }
+
+    /**
+     * Flushes the buffered rows and closes the channel
+     * @throws IOException if an I/O error occurs
+     */
+    @Override public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
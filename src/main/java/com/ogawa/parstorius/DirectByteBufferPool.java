@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global pool of direct byte buffers of a fixed size. Allocating direct buffers is expensive and their memory is
+ * only released by the garbage collector, so writers borrow them for a flush and give them back afterwards.
+ */
+class DirectByteBufferPool {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_POOLED_BUFFERS = 16;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> pooledBuffers = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledBufferCount = new AtomicInteger();
+
+    private DirectByteBufferPool() {}
+
+    /**
+     * Returns a cleared direct buffer of {@link #BUFFER_SIZE} bytes, either a pooled or a newly allocated one
+     * @return direct byte buffer
+     */
+    static ByteBuffer acquire() {
+        ByteBuffer byteBuffer = pooledBuffers.poll();
+        if (byteBuffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        pooledBufferCount.decrementAndGet();
+        return byteBuffer;
+    }
+
+    /**
+     * Returns the passed buffer to the pool. If the pool is full, the buffer is left to the garbage collector.
+     * @param byteBuffer buffer acquired by {@link #acquire()}
+     */
+    static void release(final ByteBuffer byteBuffer) {
+        if (pooledBufferCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            byteBuffer.clear();
+            pooledBuffers.offer(byteBuffer);
+        } else {
+            pooledBufferCount.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.text.ParsePosition;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Formatter of the constants of an enum. Constants are formatted by their labels, which are their names unless set
+ * otherwise, looked up by ordinal. Parsing matches the longest name, label or alias at the parse position by a
+ * compiled trie. A text matching different constants is rejected on compiling, so a lookup is never ambiguous.
+ * @param <E> enum type
+ */
+public class EnumFormatter<E extends Enum<E>> extends Formatter<E, EnumFormatter<E>> {
+
+    final private Class<E> enumClassT;
+    final private E[] constants;
+
+    // labels indexed by ordinal
+    final private String[] labels;
+    private Map<String, E> aliases = Collections.emptyMap();
+
+    // matcher of names, labels and aliases to ordinals, derived by init()
+    private LiteralMatcher constantMatcher;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    public EnumFormatter(Class<E> enumClassT, boolean parseCaseInsensitive, PARSE_SKIP_MODE parseSkipMode,
+        boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+
+        this.enumClassT = Objects.requireNonNull(enumClassT, "enumClassT");
+        this.constants = enumClassT.getEnumConstants();
+        this.labels = new String[constants.length];
+        for (E constant : constants) {
+            labels[constant.ordinal()] = constant.name();
+        }
+
+        init();
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** common setter ***************************** */
+
+    /**
+     * Sets the labels of constants, which are formatted and parsed in addition to their names. Constants without
+     * a label are formatted by their names.
+     * @param labels labels (non-empty) of the constants
+     * @return this formatter
+     * @throws IllegalArgumentException if a label matches another constant
+     */
+    public EnumFormatter<E> setLabels(final Map<E, String> labels) {
+        String[] previousLabels = this.labels.clone();
+        try {
+            for (E constant : constants) {
+                String label = labels.getOrDefault(constant, constant.name());
+                if (Objects.requireNonNull(label, "label of " + constant).isEmpty()) {
+                    throw new IllegalArgumentException("empty label of " + constant);
+                }
+                this.labels[constant.ordinal()] = label;
+            }
+            return init();
+        } catch (RuntimeException exception) {
+            // keep the formatter consistent
+            System.arraycopy(previousLabels, 0, this.labels, 0, previousLabels.length);
+            throw exception;
+        }
+    }
+
+    /**
+     * Sets the aliases parsed in addition to names and labels, e.g. outdated codes
+     * @param aliases aliases (non-empty) and their constants
+     * @return this formatter
+     * @throws IllegalArgumentException if an alias matches another constant
+     */
+    public EnumFormatter<E> setAliases(final Map<String, E> aliases) {
+        Map<String, E> previousAliases = this.aliases;
+        this.aliases = Collections.unmodifiableMap(new LinkedHashMap<>(aliases));
+        try {
+            return init();
+        } catch (RuntimeException exception) {
+            // keep the formatter consistent
+            this.aliases = previousAliases;
+            throw exception;
+        }
+    }
+
+    /**
+     * Sets if the parser parses case insensitive.
+     * @param parseCaseInsensitive new case insensitivity for parsing
+     * @return this formatter
+     * @throws IllegalArgumentException if texts of different constants differ in case only
+     */
+    @Override public EnumFormatter<E> setParseCaseInsensitive(final boolean parseCaseInsensitive) {
+        boolean previousParseCaseInsensitive = this.parseCaseInsensitive;
+        try {
+            return super.setParseCaseInsensitive(parseCaseInsensitive);
+        } catch (RuntimeException exception) {
+            // keep the formatter consistent
+            this.parseCaseInsensitive = previousParseCaseInsensitive;
+            throw exception;
+        }
+    }
+
+    /* ****************************** common getter ***************************** */
+
+    public Class<E> getEnumClass() { return enumClassT; }
+
+    public Map<E, String> getLabels() {
+        Map<E, String> labelMap = new EnumMap<>(enumClassT);
+        for (E constant : constants) {
+            labelMap.put(constant, labels[constant.ordinal()]);
+        }
+        return labelMap;
+    }
+
+    public Map<String, E> getAliases() { return aliases; }
+
+    /* ****************************** common logic ****************************** */
+
+    // adds a text of a constant, unless it matches another constant
+    private static void addText(final LiteralMatcher matcher, final String text, final Enum<?> constant) {
+
+        if (Objects.requireNonNull(text, "alias").isEmpty()) {
+            throw new IllegalArgumentException("empty alias of " + constant);
+        }
+
+        if (!matcher.add(text, constant.ordinal())) {
+            long match = matcher.match(text, 0);
+            if (LiteralMatcher.valueOf(match) != constant.ordinal()) {
+                throw new IllegalArgumentException("\"" + text + "\" of " + constant + " matches another constant");
+            }
+        }
+
+    }
+
+    @Override protected EnumFormatter<E> init() {
+
+        renewParseConfigurationStamp();
+
+        LiteralMatcher matcher = new LiteralMatcher(parseCaseInsensitive);
+        for (E constant : constants) {
+            addText(matcher, constant.name(), constant);
+            addText(matcher, labels[constant.ordinal()], constant);
+        }
+        for (Map.Entry<String, E> alias : aliases.entrySet()) {
+            addText(matcher, alias.getKey(), Objects.requireNonNull(alias.getValue(), "constant"));
+        }
+        constantMatcher = matcher;
+
+        return this;
+    }
+
+    @Override public EnumFormatter<E> clone() {
+        EnumFormatter<E> clone = new EnumFormatter<>(enumClassT, getParseCaseInsensitive(), getParseSkipMode(),
+            getParseUntilEnd());
+        System.arraycopy(labels, 0, clone.labels, 0, labels.length);
+        clone.aliases = aliases;
+        // properties are copied last, so the clone shares the parse configuration stamp
+        return clone.init().copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
+    @Override
+    protected E parseText(String text, ParsePosition contextParsePosition) {
+
+        // the longest name, label or alias at the position
+        long match = constantMatcher.match(text, contextParsePosition.getIndex());
+        if (match < 0) {
+            contextParsePosition.setErrorIndex(contextParsePosition.getIndex());
+            return null;
+        }
+
+        contextParsePosition.setIndex(LiteralMatcher.endOf(match));
+        return constants[LiteralMatcher.valueOf(match)];
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format logic ****************************** */
+
+    @Override
+    protected String formatObject(E constant) {
+        return labels[constant.ordinal()];
+    }
+
+}
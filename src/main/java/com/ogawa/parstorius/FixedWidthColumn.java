@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.Math.abs;
+
+/**
+ * Describes a column of a fixed-width record by its offset, its width and the formatter used to parse and format
+ * its value. As for {@link StringFormatter#getFixedLength()} a positive width means left-aligned and a negative
+ * width right-aligned padding.
+ */
+public class FixedWidthColumn {
+
+    final private int offset;
+    final private int width;
+    final private Formatter<?, ?> formatter;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new column
+     * @param offset offset of the column within the record (0-based)
+     * @param width width of the column, positive for left-aligned, negative for right-aligned padding
+     * @param formatter formatter to parse and format the value of the column
+     */
+    public FixedWidthColumn(final int offset, final int width, final Formatter<?, ?> formatter) {
+
+        Objects.requireNonNull(formatter, "formatter");
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must be >= 0");
+        }
+        if (width == 0) {
+            throw new IllegalArgumentException("width must not be 0");
+        }
+
+        this.offset = offset;
+        this.width = width;
+        this.formatter = formatter;
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
+    /**
+     * Returns the offset of the column within the record
+     * @return the offset
+     */
+    public int getOffset() { return offset; }
+
+    /**
+     * Returns the signed width of the column, positive for left-aligned, negative for right-aligned padding
+     * @return the signed width
+     */
+    public int getWidth() { return width; }
+
+    /**
+     * Returns the number of chars occupied by the column
+     * @return the length of the column
+     */
+    public int getLength() { return abs(width); }
+
+    /**
+     * Returns if the column is padded right-aligned
+     * @return true, if the value is right-aligned
+     */
+    public boolean isRightAligned() { return width < 0; }
+
+    /**
+     * Returns the formatter of the column
+     * @return the formatter
+     */
+    public Formatter<?, ?> getFormatter() { return formatter; }
+
+    /* ****************************** common logic ****************************** */
+
+    /**
+     * Returns the length of a record consisting of the passed columns, which is the end of the rightmost column
+     * @param columns columns of the record
+     * @return record length
+     */
+    static int getRecordLength(final List<FixedWidthColumn> columns) {
+        int recordLength = 0;
+        for (FixedWidthColumn column : columns) {
+            recordLength = Math.max(recordLength, column.offset + column.getLength());
+        }
+        return recordLength;
+    }
+
+    @Override public String toString() {
+        return "column at " + offset + " with width " + width + " using " + formatter;
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads fixed-width records by offset arithmetic over a reusable char buffer. The padding of a column is skipped
+ * in place, so the only text instance created per column is the one passed to its formatter. Blank columns are
+ * passed as empty text and result in the missing default of the column's formatter.
+ * The reader is stateful and not thread-safe, like the formatters of its columns.
+ */
+@SuppressWarnings("unused")
+public class FixedWidthRecordReader {
+
+    public static final char PAD_CHAR = ' ';
+
+    final private FixedWidthColumn[] columns;
+    final private int recordLength;
+    final private Charset charset;
+
+    // ISO-8859-1 and US-ASCII bytes can be widened to chars directly without a decoder
+    final private boolean widenBytes;
+    final private CharsetDecoder charsetDecoder;
+
+    private char[] lineBuffer;
+    final private ParsePosition parsePosition;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new reader for records with the passed columns
+     * @param columns columns of the record
+     * @param charset charset to decode byte records with. Null is ISO-8859-1.
+     */
+    public FixedWidthRecordReader(final List<FixedWidthColumn> columns, final Charset charset) {
+
+        Objects.requireNonNull(columns, "columns");
+
+        this.columns = columns.toArray(new FixedWidthColumn[0]);
+        this.recordLength = FixedWidthColumn.getRecordLength(columns);
+        this.charset = Objects.requireNonNullElse(charset, StandardCharsets.ISO_8859_1);
+
+        this.widenBytes = this.charset.equals(StandardCharsets.ISO_8859_1)
+            || this.charset.equals(StandardCharsets.US_ASCII);
+        this.charsetDecoder = widenBytes ? null : this.charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        this.lineBuffer = new char[recordLength];
+        this.parsePosition = new ParsePosition(0);
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
+    /**
+     * Returns the columns of the record
+     * @return list of columns
+     */
+    public List<FixedWidthColumn> getColumns() { return List.of(columns); }
+
+    /**
+     * Returns the length of a complete record
+     * @return record length
+     */
+    public int getRecordLength() { return recordLength; }
+
+    /**
+     * Returns the charset used to decode byte records
+     * @return the charset
+     */
+    public Charset getCharset() { return charset; }
+
+    /* ************************************************************************** */
+    /* ********************************* reading ******************************** */
+    /* ************************************************************************** */
+
+    private Object[] getValues(final Object[] values) {
+        if (values == null || values.length < columns.length) {
+            return new Object[columns.length];
+        }
+        return values;
+    }
+
+    /**
+     * Reads a record from the passed char buffer. Columns beyond the end of the record are read as blank.
+     * @param buffer buffer containing the record
+     * @param offset offset of the record in the buffer
+     * @param length length of the record, which may be shorter than the record length
+     * @param values array to receive the values, reused if it is large enough
+     * @return the array with the parsed values in order of the columns
+     */
+    public Object[] read(final char[] buffer, final int offset, final int length, final Object[] values) {
+
+        Object[] result = getValues(values);
+        int end = offset + length;
+
+        for (int index = 0; index < columns.length; index++) {
+
+            FixedWidthColumn column = columns[index];
+            int start = Math.min(offset + column.getOffset(), end);
+            int stop = Math.min(start + column.getLength(), end);
+
+            // skip the padding of the column
+            if (column.isRightAligned()) {
+                while (start < stop && buffer[start] == PAD_CHAR) {
+                    start++;
+                }
+            } else {
+                while (stop > start && buffer[stop - 1] == PAD_CHAR) {
+                    stop--;
+                }
+            }
+
+            parsePosition.setIndex(0);
+            parsePosition.setErrorIndex(-1);
+            result[index] = column.getFormatter().parse(
+                start == stop ? "" : new String(buffer, start, stop - start), parsePosition);
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Reads a record from the passed text
+     * @param record text of the record
+     * @param values array to receive the values, reused if it is large enough
+     * @return the array with the parsed values in order of the columns
+     */
+    public Object[] read(final CharSequence record, final Object[] values) {
+
+        Objects.requireNonNull(record, "record");
+
+        int length = Math.min(record.length(), recordLength);
+        if (record instanceof String) {
+            ((String) record).getChars(0, length, lineBuffer, 0);
+        } else {
+            for (int index = 0; index < length; index++) {
+                lineBuffer[index] = record.charAt(index);
+            }
+        }
+
+        return read(lineBuffer, 0, length, values);
+
+    }
+
+    /**
+     * Reads a record from the passed byte buffer decoding it with the charset of the reader
+     * @param buffer buffer containing the record
+     * @param offset offset of the record in the buffer
+     * @param length length of the record in bytes
+     * @param values array to receive the values, reused if it is large enough
+     * @return the array with the parsed values in order of the columns
+     */
+    public Object[] read(final byte[] buffer, final int offset, final int length, final Object[] values) {
+
+        int charLength;
+
+        if (widenBytes) {
+
+            charLength = Math.min(length, recordLength);
+            for (int index = 0; index < charLength; index++) {
+                lineBuffer[index] = (char) (buffer[offset + index] & 0xFF);
+            }
+
+        } else {
+
+            // multibyte charsets may decode to more chars than the record length
+            if (lineBuffer.length < length) {
+                lineBuffer = new char[length];
+            }
+            CharBuffer charBuffer = CharBuffer.wrap(lineBuffer);
+            charsetDecoder.reset();
+            charsetDecoder.decode(ByteBuffer.wrap(buffer, offset, length), charBuffer, true);
+            charsetDecoder.flush(charBuffer);
+            charLength = Math.min(charBuffer.position(), recordLength);
+
+        }
+
+        return read(lineBuffer, 0, charLength, values);
+
+    }
+
+}
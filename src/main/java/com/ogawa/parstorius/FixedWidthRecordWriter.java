@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes fixed-width records by formatting each value into its column of one reusable line buffer and padding it in
+ * place. A formatted value exceeding the width of its column is an error, the column is filled with
+ * {@link #OVERFLOW_CHAR} and counted by {@link #getLastOverflowCount()}.
+ * The writer is stateful and not thread-safe, like the formatters of its columns.
+ */
+@SuppressWarnings("unused")
+public class FixedWidthRecordWriter {
+
+    public static final char PAD_CHAR = FixedWidthRecordReader.PAD_CHAR;
+    public static final char OVERFLOW_CHAR = '*';
+
+    final private FixedWidthColumn[] columns;
+    final private int recordLength;
+    final private Charset charset;
+
+    // chars of ISO-8859-1 and US-ASCII can be narrowed to bytes directly without an encoder
+    final private boolean narrowChars;
+    final private CharsetEncoder charsetEncoder;
+
+    final private char[] lineBuffer;
+    // each value is formatted into it before being copied to its column
+    final private StringBuilder formatBuffer = new StringBuilder();
+    private byte[] byteBuffer;
+    private int lastOverflowCount;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new writer for records with the passed columns
+     * @param columns columns of the record
+     * @param charset charset to encode byte records with. Null is ISO-8859-1.
+     */
+    public FixedWidthRecordWriter(final List<FixedWidthColumn> columns, final Charset charset) {
+
+        Objects.requireNonNull(columns, "columns");
+
+        this.columns = columns.toArray(new FixedWidthColumn[0]);
+        this.recordLength = FixedWidthColumn.getRecordLength(columns);
+        this.charset = Objects.requireNonNullElse(charset, StandardCharsets.ISO_8859_1);
+
+        this.narrowChars = this.charset.equals(StandardCharsets.ISO_8859_1);
+        this.charsetEncoder = narrowChars ? null : this.charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        this.lineBuffer = new char[recordLength];
+        this.byteBuffer = new byte[narrowChars ? recordLength
+            : (int) Math.ceil(recordLength * (double) charsetEncoder.maxBytesPerChar())];
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
+    /**
+     * Returns the columns of the record
+     * @return list of columns
+     */
+    public List<FixedWidthColumn> getColumns() { return List.of(columns); }
+
+    /**
+     * Returns the length of a complete record
+     * @return record length
+     */
+    public int getRecordLength() { return recordLength; }
+
+    /**
+     * Returns the charset used to encode byte records
+     * @return the charset
+     */
+    public Charset getCharset() { return charset; }
+
+    /**
+     * Returns the number of columns of the last formatted record, whose formatted value exceeded the column width
+     * @return number of overflown columns
+     */
+    public int getLastOverflowCount() { return lastOverflowCount; }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /**
+     * Formats the passed values into the line buffer. Gaps between the columns are filled with {@link #PAD_CHAR}.
+     * @param values values in order of the columns, missing values are formatted as null
+     * @return the line buffer containing the record of {@link #getRecordLength()} chars. The buffer is reused by the
+     * next call.
+     */
+    @SuppressWarnings("unchecked")
+    public char[] format(final Object[] values) {
+
+        Arrays.fill(lineBuffer, PAD_CHAR);
+        lastOverflowCount = 0;
+
+        for (int index = 0; index < columns.length; index++) {
+
+            FixedWidthColumn column = columns[index];
+            Object value = values != null && index < values.length ? values[index] : null;
+            formatBuffer.setLength(0);
+            ((Formatter<Object, ?>) column.getFormatter()).formatTo(value, formatBuffer);
+
+            int start = column.getOffset();
+            int length = column.getLength();
+            int textLength = formatBuffer.length();
+
+            if (textLength > length) {
+                Arrays.fill(lineBuffer, start, start + length, OVERFLOW_CHAR);
+                lastOverflowCount++;
+            } else if (column.isRightAligned()) {
+                formatBuffer.getChars(0, textLength, lineBuffer, start + length - textLength);
+            } else {
+                formatBuffer.getChars(0, textLength, lineBuffer, start);
+            }
+
+        }
+
+        return lineBuffer;
+
+    }
+
+    /**
+     * Formats the passed values and writes the record to the writer
+     * @param values values in order of the columns
+     * @param writer writer to write the record to
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final Object[] values, final Writer writer) throws IOException {
+        writer.write(format(values), 0, recordLength);
+    }
+
+    /**
+     * Formats the passed values and writes the record encoded with the charset of the writer to the output stream
+     * @param values values in order of the columns
+     * @param outputStream stream to write the record to
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final Object[] values, final OutputStream outputStream) throws IOException {
+
+        format(values);
+
+        int byteLength;
+
+        if (narrowChars) {
+
+            for (int index = 0; index < recordLength; index++) {
+                char c = lineBuffer[index];
+                byteBuffer[index] = (byte) (c <= 0xFF ? c : '?');
+            }
+            byteLength = recordLength;
+
+        } else {
+
+            ByteBuffer target = ByteBuffer.wrap(byteBuffer);
+            charsetEncoder.reset();
+            charsetEncoder.encode(CharBuffer.wrap(lineBuffer, 0, recordLength), target, true);
+            charsetEncoder.flush(target);
+            byteLength = target.position();
+
+        }
+
+        outputStream.write(byteBuffer, 0, byteLength);
+
+    }
+
+}
@@ -3,11 +3,10 @@ package com.ogawa.parstorius;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.time.format.DateTimeParseException;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract super class of all parsers with the main logic of a stateful, controlled formatter/parser.
@@ -36,8 +35,20 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
 
     // list of null representatives, e.g. "null", "<null>", "-", "none", "."
     List<String> parseNullTexts;
+    // null representatives compiled by setParseNullTexts and masks of their lengths and (folded) first chars modulo 64
+    private String[] nullTexts;
+    private long nullTextLengthMask;
+    private long nullTextFirstCharMask;
+    private long nullTextFoldedFirstCharMask;
     PARSE_SKIP_MODE parseSkipMode;
     boolean parseUntilEnd;
+    // optional cache of parse results shared with clones
+    ParseResultCache parseCache;
+    // stamp of the parse configuration renewed on each change, so results cached before miss
+    private static final AtomicInteger PARSE_CONFIGURATION_STAMPS = new AtomicInteger();
+    private int parseConfigurationStamp = PARSE_CONFIGURATION_STAMPS.incrementAndGet();
+    // optional interner of parse results shared with clones
+    ValueInterner<T> parseInterner;
     PARSE_RESULT_CAUSE lastParseResultCause = null;
 
     // Exceptions are private, because subclasses shall raise it, but not set it
@@ -90,10 +101,19 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     }
 
     /**
-     * Initializer method to be invoked on construction or changes by setters, which need reinitialization
+     * Initializer method to be invoked on construction or changes by setters, which need reinitialization.
+     * Implementations have to call {@link #renewParseConfigurationStamp()}.
      */
     abstract protected F init();
 
+    /**
+     * Renews the stamp of the parse configuration, so the results of parsing with the previous configuration are
+     * not replayed from the parse cache. It has to be called on each change of the parsing.
+     */
+    protected final void renewParseConfigurationStamp() {
+        parseConfigurationStamp = PARSE_CONFIGURATION_STAMPS.incrementAndGet();
+    }
+
     /**
      * Abstract clone method to be implemented by all subclasses.
      * @return the clone
@@ -134,6 +154,10 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
         this.setParseNullTextDefault(sourceFormatter.getParseNullTextDefault());
         this.setParseMissingDefault(sourceFormatter.getParseMissingDefault());
         this.setParseErrorDefault(sourceFormatter.getParseErrorDefault());
+        this.parseCache = sourceFormatter.getParseCache();
+        this.parseInterner = sourceFormatter.getParseInterner();
+        // configured alike, so cached results are shared
+        this.parseConfigurationStamp = ((Formatter<?, ?>) sourceFormatter).parseConfigurationStamp;
 
         // format result values
         this.setFormatNullText(sourceFormatter.getFormatNullText());
@@ -161,18 +185,38 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
         return clonedParsePosition;
     }
 
-        /**
-         * Checks if the passed collection find the passed string. The check takes parse case-sensitivity into account.
-         * @param collection collection to check against, if str is contained
-         * @param str string to check, if it is contained in collection
-         * @return boolean result of the find-check
-         */
-    Optional<String> find(Collection<String> collection, final String str) {
-        if (parseCaseInsensitive) {
-            return collection.stream().filter(str::equalsIgnoreCase).findFirst();
-        } else {
-            return collection.stream().filter(str::equals).findFirst();
+    /**
+     * Checks, if the text from the passed position up to its end is a null representative. The check takes parse
+     * case-sensitivity into account and rejects most texts by the masks of lengths and first chars without comparing.
+     * @param text text to check
+     * @param start position (less than the length of the text) to start at
+     * @return true, if the rest of the text is a null representative
+     */
+    boolean matchesNullText(final String text, final int start) {
+
+        if (nullTexts.length == 0) {
+            return false;
+        }
+
+        // shifts of longs use the distance modulo 64
+        int length = text.length() - start;
+        if ((nullTextLengthMask & (1L << length)) == 0) {
+            return false;
+        }
+        long firstCharMask = parseCaseInsensitive
+            ? nullTextFoldedFirstCharMask & (1L << LiteralMatcher.fold(text.charAt(start)))
+            : nullTextFirstCharMask & (1L << text.charAt(start));
+        if (firstCharMask == 0) {
+            return false;
+        }
+
+        for (String nullText : nullTexts) {
+            if (nullText.length() == length && text.regionMatches(parseCaseInsensitive, start, nullText, 0, length)) {
+                return true;
+            }
         }
+        return false;
+
     }
 
     /**
@@ -214,6 +258,18 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     public F setParseNullTexts(final List<String> parseNullTexts
     ) {
         this.parseNullTexts = List.copyOf(Objects.requireNonNullElse(parseNullTexts, Collections.EMPTY_LIST));
+
+        // empty texts are never parsed, since they are missing values
+        nullTexts = this.parseNullTexts.stream().filter(nullText -> !nullText.isEmpty()).toArray(String[]::new);
+        nullTextLengthMask = 0;
+        nullTextFirstCharMask = 0;
+        nullTextFoldedFirstCharMask = 0;
+        for (String nullText : nullTexts) {
+            nullTextLengthMask |= 1L << nullText.length();
+            nullTextFirstCharMask |= 1L << nullText.charAt(0);
+            nullTextFoldedFirstCharMask |= 1L << LiteralMatcher.fold(nullText.charAt(0));
+        }
+
         return (F) this;
     }
 
@@ -247,7 +303,8 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     @SuppressWarnings("unchecked")
     public F setParseCaseInsensitive(final boolean parseCaseInsensitive) {
         this.parseCaseInsensitive = parseCaseInsensitive;
-        return (F) this;
+        renewParseConfigurationStamp();
+        return init();
     }
 
     /**
@@ -283,6 +340,31 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     @SuppressWarnings("unchecked")
     public F setParseSkipMode(final PARSE_SKIP_MODE parseSkipMode) {
         this.parseSkipMode = parseSkipMode;
+        renewParseConfigurationStamp();
+        return (F) this;
+    }
+
+    /**
+     * Sets the cache of parse results, which skips parsing texts parsed before. It is shared with clones, but must
+     * not be shared with formatters parsing differently. Results of parsing must be immutable.
+     * @param parseCache cache or null to parse each text
+     * @return the formatter instance
+     */
+    @SuppressWarnings("unchecked")
+    public F setParseCache(final ParseResultCache parseCache) {
+        this.parseCache = parseCache;
+        return (F) this;
+    }
+
+    /**
+     * Sets the interner replacing parsed values by canonical instances, which saves the memory of equal values
+     * retained by a dataset. It is shared with clones. Results of parsing must be immutable.
+     * @param parseInterner interner or null to return the parsed values
+     * @return the formatter instance
+     */
+    @SuppressWarnings("unchecked")
+    public F setParseInterner(final ValueInterner<T> parseInterner) {
+        this.parseInterner = parseInterner;
         return (F) this;
     }
 
@@ -366,6 +448,18 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
      */
     public boolean getParseUntilEnd() { return parseUntilEnd; }
 
+    /**
+     * Returns the cache of parse results
+     * @return the cache or null, if texts are not cached
+     */
+    public ParseResultCache getParseCache() { return parseCache; }
+
+    /**
+     * Returns the interner of parse results
+     * @return the interner or null, if parsed values are not interned
+     */
+    public ValueInterner<T> getParseInterner() { return parseInterner; }
+
     /**
      * Returns the ParseException of the last parsing or null if no such exception was raised. Calling this method
      * will not reset the ParseException of the last parsing. Each parse will set its respective return value.
@@ -379,21 +473,23 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     /**
      * Parses the text and returns an instance of t or null to indicate an error. This is the core method
      * for paring, which has to be provided by all formatters. It is guaranteed that no null is passed to it.
-     * On error the implementing method can raise any exception
+     * On error the implementing method can raise any exception or set the error index of the parse position and
+     * return null, which avoids the costs of raising an exception on frequent errors
      * @param text (non-null)
      * @return instance of T or null in case of an error
      */
     protected abstract T parseText(final String text, ParsePosition parsePosition) throws Exception;
 
-    private T buildResult(final String text,
-        final T result, final PARSE_RESULT_CAUSE parseResultCause, final ParseException parseException,
+    private PARSE_RESULT_CAUSE finishParse(final String text,
+        final PARSE_RESULT_CAUSE parseResultCause, final ParseException parseException,
         final ParsePosition contextParsePosition) {
 
         lastParseResultCause = parseResultCause;
         exceptionOnParsing = parseException;
 
-        // parsing until end expected but parsing stopped before end
-        if (parseUntilEnd && text != null && parsePosition.getIndex() < text.length()) {
+        // parsing until end expected but parsing stopped before end (missing values and null texts span the text)
+        if (parseUntilEnd && text != null && parsePosition.getIndex() < text.length()
+            && (parseResultCause == PARSE_RESULT_CAUSE.TEXT_VALUE || parseResultCause == PARSE_RESULT_CAUSE.ERROR)) {
 
             // move over tailing (white)spaces with respect to the parse skip mode
             parsePosition.setIndex(parseSkipMode.getSkipTailingOffset(text, parsePosition.getIndex()));
@@ -410,7 +506,7 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
         contextParsePosition.setIndex(parsePosition.getIndex());
         contextParsePosition.setErrorIndex(parsePosition.getErrorIndex());
 
-        return result;
+        return lastParseResultCause;
     }
 
     /**
@@ -429,24 +525,21 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
     }
 
     /**
-     * Parses the passed text and returns the resulting value of type T. In case of an error null is returned.
-     * @param text text to be parsed. Null is not allowed, since a return value of null indicates an error.
+     * Begins parsing the passed text up to the point, where the text itself has to be parsed. Null, texts
+     * representing a missing value and null-texts are finished here with their respective cause. Otherwise,
+     * the text has to be parsed starting at the index of the internal parse position, followed by
+     * {@link #failParse(Exception)} on an exception and {@link #endParse(String, ParsePosition)}.
+     * @param text text to be parsed
      * @param contextParsePosition position to start from and parse position receiving the new (error) position
-     * @return Instance of T representing the parsed value
+     * @return the cause of the finished parsing or null, if the text has to be parsed
      */
-    final public T parse(final String text, ParsePosition contextParsePosition,
-        T parseOfNullDefault, T parseMissingDefault, T parseNullDefault, T parseErrorDefault) {
+    final PARSE_RESULT_CAUSE beginParse(final String text, final ParsePosition contextParsePosition) {
 
         // set error free state at start
         initParseState(contextParsePosition);
 
         if (text == null) {
-            return buildResult(
-                null, parseOfNullDefault, PARSE_RESULT_CAUSE.PARSE_OF_NULL, null, contextParsePosition);
-        }
-
-        if (text == text) {
-            System.out.print("");
+            return finishParse(null, PARSE_RESULT_CAUSE.PARSE_OF_NULL, null, contextParsePosition);
         }
 
         // Calculate and save the number of chars skipped by application of the skip mode
@@ -456,50 +549,158 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
         if (parsePosition.getIndex() == text.length()) {
 
             // yes, this is a missing value case
-            return buildResult(text, parseMissingDefault, PARSE_RESULT_CAUSE.MISSING_VALUE,
-                null, resetParsePosition(parsePosition));
+            return finishParse(text, PARSE_RESULT_CAUSE.MISSING_VALUE, null, resetParsePosition(parsePosition));
 
         } else {
 
             // search for a text representing NULL
-            Optional<String> foundNullText = find(parseNullTexts, text.substring(parsePosition.getIndex()));
+            if (matchesNullText(text, parsePosition.getIndex())) {
 
-            if (foundNullText.isPresent()) {
+                moveParsePosition(parsePosition, text.length() - parsePosition.getIndex());
 
-                moveParsePosition(parsePosition, foundNullText.get().length());
+                return finishParse(text, PARSE_RESULT_CAUSE.NULL_AS_TEXT, null, resetParsePosition(parsePosition));
 
-                return buildResult(text, parseNullDefault, PARSE_RESULT_CAUSE.NULL_AS_TEXT,
-                    null, resetParsePosition(parsePosition));
+            }
+        }
 
-            } else {
+        return null;
 
-              T result = null;
-                try {
-                    result = parseText(text, parsePosition);
+    }
 
-                } catch (ParseException caughtParseException) {
-                    exceptionOnParsing = ParseExceptionFactory.createParseException(caughtParseException);
+    /**
+     * Records the passed exception raised on parsing a text begun by {@link #beginParse(String, ParsePosition)}
+     * @param exception exception raised on parsing
+     */
+    final void failParse(final Exception exception) {
 
-                } catch (DateTimeParseException caughtDateTimeParseException) {
-                    exceptionOnParsing = ParseExceptionFactory.createParseException(caughtDateTimeParseException);
+        if (exception instanceof ParseException) {
+            exceptionOnParsing = ParseExceptionFactory.createParseException((ParseException) exception);
 
-                } catch (Exception exception) {
-                    exceptionOnParsing = ParseExceptionFactory.createParseException(exception);
-                    parsePosition.setErrorIndex(parsePosition.getIndex());
-                }
+        } else if (exception instanceof DateTimeParseException) {
+            exceptionOnParsing = ParseExceptionFactory.createParseException((DateTimeParseException) exception);
 
-                // caught an exception here or was it set in parseText?
-                if (exceptionOnParsing != null) {
-                    return buildResult(text, parseErrorDefault, PARSE_RESULT_CAUSE.ERROR,
-                        exceptionOnParsing, parsePosition);
-                } else {
-                    return buildResult(text, result, PARSE_RESULT_CAUSE.TEXT_VALUE, null, parsePosition);
-                }
+        } else {
+            exceptionOnParsing = ParseExceptionFactory.createParseException(exception);
+            parsePosition.setErrorIndex(parsePosition.getIndex());
+        }
+
+    }
 
+    /**
+     * Parses the text at the internal parse position and records an exception raised
+     * @param text text to be parsed
+     * @return the result or null on an error
+     */
+    private T parseTextSafely(final String text) {
+        try {
+            return intern(parseText(text, parsePosition));
+        } catch (Exception exception) {
+            failParse(exception);
+            return null;
+        }
+    }
+
+    // canonical instance of a value parsed without an error, if parse results are interned
+    private T intern(final T result) {
+        return parseInterner == null || result == null || parsePosition.getErrorIndex() >= 0
+            ? result : parseInterner.intern(result);
+    }
+
+    /**
+     * Parses the text at the internal parse position like {@link #parseTextSafely(String)}, but replays the result,
+     * position and exception of parsing the rest of an equal text before, if cached
+     * @param text text to be parsed
+     * @return the result or null on an error
+     */
+    @SuppressWarnings("unchecked")
+    private T parseTextCached(final String text) {
+
+        int start = parsePosition.getIndex();
+        int hash = ParseResultCache.hash(text, start);
+
+        ParseResultCache.Entry entry = parseCache.get(text, start, hash, parseConfigurationStamp);
+        if (entry != null) {
+            parsePosition.setIndex(start + entry.endOffset);
+            parsePosition.setErrorIndex(entry.errorOffset < 0 ? -1 : start + entry.errorOffset);
+            if (entry.exception != null) {
+                failParse(entry.exception);
             }
+            return (T) entry.result;
+        }
+
+        Exception exception = null;
+        T result = null;
+        try {
+            result = intern(parseText(text, parsePosition));
+        } catch (Exception parseException) {
+            exception = parseException;
+            failParse(parseException);
+        }
+
+        parseCache.put(text, start, hash, parseConfigurationStamp, result, parsePosition.getIndex(),
+            parsePosition.getErrorIndex(), exception);
+        return result;
+
+    }
+
+    /**
+     * Records an error signaled by parseText setting the error index instead of raising an exception
+     */
+    final void failParseOnErrorIndex() {
+        if (exceptionOnParsing == null && parsePosition.getErrorIndex() >= 0) {
+            exceptionOnParsing = ParseExceptionFactory.createParseException(parsePosition);
         }
     }
 
+    /**
+     * Ends parsing a text begun by {@link #beginParse(String, ParsePosition)}
+     * @param text text parsed
+     * @param contextParsePosition parse position receiving the new (error) position
+     * @return the cause of the parse result, which is an error, if an exception was recorded or the text was not
+     *         parsed until its end, if required
+     */
+    final PARSE_RESULT_CAUSE endParse(final String text, final ParsePosition contextParsePosition) {
+
+        // caught an exception here or was it set in parseText?
+        if (exceptionOnParsing != null) {
+            return finishParse(text, PARSE_RESULT_CAUSE.ERROR, exceptionOnParsing, contextParsePosition);
+        } else {
+            return finishParse(text, PARSE_RESULT_CAUSE.TEXT_VALUE, null, contextParsePosition);
+        }
+
+    }
+
+    /**
+     * Parses the passed text and returns the resulting value of type T. In case of an error null is returned.
+     * @param text text to be parsed. Null is not allowed, since a return value of null indicates an error.
+     * @param contextParsePosition position to start from and parse position receiving the new (error) position
+     * @return Instance of T representing the parsed value
+     */
+    final public T parse(final String text, ParsePosition contextParsePosition,
+        T parseOfNullDefault, T parseMissingDefault, T parseNullDefault, T parseErrorDefault) {
+
+        PARSE_RESULT_CAUSE parseResultCause = beginParse(text, contextParsePosition);
+
+        if (parseResultCause == PARSE_RESULT_CAUSE.PARSE_OF_NULL) {
+            return parseOfNullDefault;
+        } else if (parseResultCause == PARSE_RESULT_CAUSE.MISSING_VALUE) {
+            return parseMissingDefault;
+        } else if (parseResultCause == PARSE_RESULT_CAUSE.NULL_AS_TEXT) {
+            return parseNullDefault;
+        }
+
+        T result = parseCache == null ? parseTextSafely(text) : parseTextCached(text);
+
+        failParseOnErrorIndex();
+
+        // the result is kept, if only parsing until end failed
+        boolean failed = exceptionOnParsing != null;
+        endParse(text, contextParsePosition);
+
+        return failed ? parseErrorDefault : result;
+
+    }
+
     /**
      * Parses the passed text and returns the resulting value of type T. In case of an error null is returned.
      * @param text text to be parsed. Null is not allowed, since a return value of null indicates an error.
@@ -620,6 +821,23 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
      */
     protected abstract String formatObject(final T object);
 
+    /**
+     * Formats the passed object and appends its string representation to the passed string builder. This base
+     * implementation appends the result of {@link #formatObject(Object)}. Subclasses able to format directly into
+     * the builder can override it to avoid the intermediate string. It is guaranteed that no null is passed to it.
+     * @param object object (non-null) to format
+     * @param stringBuilder string builder to append the formatted object to
+     * @return true, if the object was formatted or false, if an error occurred and nothing was appended
+     */
+    protected boolean formatObjectTo(final T object, final StringBuilder stringBuilder) {
+        String result = formatObject(object);
+        if (result == null) {
+            return false;
+        }
+        stringBuilder.append(result);
+        return true;
+    }
+
     @SuppressWarnings("all") // for:
     // Unchecked cast: 'java.lang.Object' to 'T'
     // Method invocation 'toString' may produce 'NullPointerException'
@@ -689,6 +907,45 @@ public abstract class Formatter<T, F extends Formatter<T, F>> {
         }
     }
 
+    /**
+     * Formats the passed object like {@link #format(Object)}, but appends the result to the passed string builder.
+     * @param object object to format
+     * @param stringBuilder string builder to append the formatted object to
+     * @return the passed string builder
+     */
+    final public StringBuilder formatTo(final T object, final StringBuilder stringBuilder) {
+        return formatTo(object, this.formatNullDefault, this.formatErrorDefault, stringBuilder);
+    }
+
+    /**
+     * Formats the passed objectToFormat like {@link #format(Object, Object, Object)}, but appends the result to the
+     * passed string builder.
+     * @param objectToFormat       object to format
+     * @param defaultOnFormatNull  default value formatted on the attempt to format null
+     * @param defaultOnFormatError default value formatted, if an error occurred
+     * @param stringBuilder        string builder to append the formatted object to
+     * @return the passed string builder
+     */
+    final public StringBuilder formatTo(final T objectToFormat,
+        final Object defaultOnFormatNull, final Object defaultOnFormatError, final StringBuilder stringBuilder) {
+
+        // Is objectToFormat a real instance to format?
+        if (objectToFormat != null) {
+            // Didn't formatting fail?
+            if (formatObjectTo(objectToFormat, stringBuilder)) {
+                lastFormatResultCause = FORMAT_RESULT_CAUSE.OBJECT;
+                return stringBuilder;
+            } else {
+                lastFormatResultCause = FORMAT_RESULT_CAUSE.ERROR;
+                return stringBuilder.append(formatObj(defaultOnFormatError));
+            }
+        } else {
+            // no, work with default for null
+            lastFormatResultCause = FORMAT_RESULT_CAUSE.FORMAT_ON_NULL;
+            return stringBuilder.append(formatObj(defaultOnFormatNull));
+        }
+    }
+
     /* ************************************************************************** */
     /* ****************************** static stuff ****************************** */
     /* ************************************************************************** */
@@ -16,106 +16,196 @@
 
 package com.ogawa.parstorius;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of formatters by the classes of their values, e.g. to format the values of heterogeneous rows. A class
+ * without a formatter of its own is formatted by the formatter of its nearest superclass, else of its first
+ * interface found breadth-first, else of Object. Each class is resolved once, the answer is cached by a
+ * {@link ClassValue} including the absence of a formatter, so lookups take constant time. Putting a formatter
+ * discards the cached answers. Classes looked up by name are cached once found, names not found only up to a small
+ * bound, so unknown names cannot grow the registry. The registry is safe to share between threads, but the
+ * formatters are not.
+ */
 public class Formatters {
 
-    private LinkedHashMap<String, Formatter> allFormatters = null;
-    private StringBuilder stringBuilder;
+    // number of names not found remembered
+    private static final int MAX_NAMES_NOT_FOUND = 64;
 
-    Formatters() {
+    // formatters by value class in order of putting, guarded by this
+    private final Map<Class<?>, Formatter<?, ?>> allFormatters = new LinkedHashMap<>();
 
-        init();
+    // resolved formatters by value class, replaced on putting
+    private volatile ClassValue<Optional<Formatter<?, ?>>> resolvedFormatters = newResolvedFormatters();
 
-    }
+    // classes by name, only the ones found, which are bounded by the classes loaded
+    private final Map<String, Class<?>> classesByName = new ConcurrentHashMap<>();
 
-    Formatters(Formatters formatters) {
-
-        init();
+    // names not found, the least recently looked up is dropped first, guarded by itself
+    private final Map<String, Boolean> namesNotFound = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_NAMES_NOT_FOUND;
+        }
+    };
 
-        // put all existing formatters
-        allFormatters.putAll(formatters.allFormatters);
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
 
+    public Formatters() {
     }
 
-    private void init() {
-
-        stringBuilder = new StringBuilder();
-        allFormatters = new LinkedHashMap<String, Formatter>();
-
+    /**
+     * Constructs a new registry with the formatters of the passed one
+     * @param formatters registry to copy the formatters from
+     */
+    public Formatters(Formatters formatters) {
+        synchronized (formatters) {
+            allFormatters.putAll(formatters.allFormatters);
+        }
     }
 
-    public Formatters put(Formatter formatter) {
-
-        Formatters formatters = new Formatters(this);
-
-        // put passed formatter
-        formatters.allFormatters.put(formatter.getClass().getName(), formatter);
-
-        return formatters;
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** common setter ***************************** */
+
+    /**
+     * Puts the formatter of a value class, which replaces a formatter put before for the class
+     * @param valueClass class of the values
+     * @param formatter formatter of the values
+     * @param <T> type of the values
+     * @return this registry
+     */
+    public synchronized <T> Formatters put(final Class<T> valueClass, final Formatter<? super T, ?> formatter) {
+        allFormatters.put(Objects.requireNonNull(valueClass, "valueClass"),
+            Objects.requireNonNull(formatter, "formatter"));
+        resolvedFormatters = newResolvedFormatters();
+        return this;
+    }
 
+    /* ****************************** common getter ***************************** */
+
+    /**
+     * Returns the formatter of a value class or of its nearest supertype
+     * @param valueClass class of the values
+     * @param <T> type of the values
+     * @return the formatter or null, if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Formatter<? super T, ?> getForClass(final Class<T> valueClass) {
+        return valueClass == null ? null
+            : (Formatter<? super T, ?>) resolvedFormatters.get(valueClass).orElse(null);
     }
 
-    public Formatter getForClass(String className) {
+    /**
+     * Returns the formatter of a value class like {@link #getForClass(Class)}
+     * @param className name of the class of the values
+     * @return the formatter or null, if there is none or the class is not found
+     */
+    public Formatter<?, ?> getForClass(final String className) {
 
         if (className == null || className.isEmpty()) {
-
             return null;
-
         }
 
-        Formatter formatter = allFormatters.get(className);
+        Class<?> valueClass = classesByName.get(className);
+        if (valueClass == null) {
 
-        // Not found?
-        if (formatter == null) {
+            synchronized (namesNotFound) {
+                if (namesNotFound.get(className) != null) {
+                    return null;
+                }
+            }
 
             try {
-
-                Class<?> clazz = Class.forName(className);
-
-                if (clazz.isAssignableFrom(java.lang.CharSequence.class)) {
-
-                    formatter = allFormatters.get(java.lang.String.class.getClass().getName());
-
+                valueClass = Class.forName(className);
+            } catch (ClassNotFoundException | LinkageError exception) {
+                synchronized (namesNotFound) {
+                    namesNotFound.put(className, Boolean.TRUE);
                 }
+                return null;
+            }
+            classesByName.put(className, valueClass);
 
-/*
-                if (clazz.isAssignableFrom(org.apache.velocity.runtime.directive.Define.class)) {
+        }
+        return getForClass(valueClass);
 
-                    formatter = allFormatters.get(java.lang.String.class.getClass().getName());
+    }
 
-                }
-*/
-            } catch (ClassNotFoundException e) {
+    /**
+     * Returns the formatter of the class of a value like {@link #getForClass(Class)}, which can format the value
+     * @param value value
+     * @return the formatter or null, if the value is null or there is none
+     */
+    @SuppressWarnings("unchecked")
+    public Formatter<Object, ?> getForObject(final Object value) {
+        return value == null ? null : (Formatter<Object, ?>) getForClass(value.getClass());
+    }
 
-                // keep null
+    /* ****************************** common logic ****************************** */
 
+    private ClassValue<Optional<Formatter<?, ?>>> newResolvedFormatters() {
+        return new ClassValue<>() {
+            @Override protected Optional<Formatter<?, ?>> computeValue(final Class<?> valueClass) {
+                return Optional.ofNullable(resolve(valueClass));
             }
-        }
+        };
+    }
 
-        return formatter;
+    // formatter of the nearest superclass, else of the first interface breadth-first, else of Object
+    private synchronized Formatter<?, ?> resolve(final Class<?> valueClass) {
 
-    }
+        for (Class<?> superclass = valueClass; superclass != null && superclass != Object.class;
+            superclass = superclass.getSuperclass()) {
+            Formatter<?, ?> formatter = allFormatters.get(superclass);
+            if (formatter != null) {
+                return formatter;
+            }
+        }
 
-    public Formatter getForObject(String className) {
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> superclass = valueClass; superclass != null; superclass = superclass.getSuperclass()) {
+            Collections.addAll(interfaces, superclass.getInterfaces());
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> anInterface = interfaces.removeFirst();
+            if (visited.add(anInterface)) {
+                Formatter<?, ?> formatter = allFormatters.get(anInterface);
+                if (formatter != null) {
+                    return formatter;
+                }
+                Collections.addAll(interfaces, anInterface.getInterfaces());
+            }
+        }
 
-return null;
+        return allFormatters.get(Object.class);
 
     }
 
     @Override
-    public String toString() {
-
+    public synchronized String toString() {
 
-        stringBuilder.setLength(0); // reset is faster than to instantiate
+        StringBuilder stringBuilder = new StringBuilder()
+            .append("Formatters with ").append(allFormatters.size()).append(" formats\n");
 
-        stringBuilder.append("Formatters with " + allFormatters.size() + " formats\n");
-
-        allFormatters.forEach((className,formatter) ->
-                        stringBuilder.append("  ").append(formatter.toString()).append("\n")
+        allFormatters.forEach((valueClass, formatter) ->
+            stringBuilder.append("  ").append(valueClass.getName()).append(": ").append(formatter).append("\n")
         );
 
         return stringBuilder.toString();
 
     }
-}
\ No newline at end of file
+
+}
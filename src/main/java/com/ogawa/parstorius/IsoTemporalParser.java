@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Parser of the common ISO-8601 date-time forms of {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME},
+ * {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME}, {@link DateTimeFormatter#ISO_ZONED_DATE_TIME},
+ * {@link DateTimeFormatter#ISO_DATE_TIME} and {@link DateTimeFormatter#ISO_INSTANT}, e.g.
+ * 2024-05-01T12:34:56.789123+02:00[Europe/Berlin]. The fraction of seconds may have 1 to 9 digits. Offsets are
+ * taken from a table of all quarter-hour offsets, zone ids from a small cache, and epoch seconds are calculated
+ * without intermediate objects.
+ * Only 4-digit years and the usual offset forms Z, +HH:MM and +HH:MM:SS are handled. Every other text incl. any
+ * invalid one is left to the DateTimeFormatter (signaled by -1 respectively null), so results and errors are the
+ * same. Instances hold the state of the last parse and are not thread-safe.
+ */
+final class IsoTemporalParser {
+
+    // forms of the ISO formatters
+    private static final int LOCAL_DATE_TIME = 0;
+    private static final int OFFSET_DATE_TIME = 1;
+    private static final int ZONED_DATE_TIME = 2;
+    private static final int DATE_TIME = 3;
+    private static final int INSTANT = 4;
+
+    private static final int[] POWERS_OF_TEN = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000 };
+
+    // all offsets from -18:00 to +18:00 in steps of 15 minutes
+    private static final int QUARTER_HOUR_SECONDS = 900;
+    private static final int QUARTER_HOUR_OFFSET_BIAS = 72;
+    private static final ZoneOffset[] QUARTER_HOUR_OFFSETS = new ZoneOffset[2 * QUARTER_HOUR_OFFSET_BIAS + 1];
+
+    static {
+        for (int index = 0; index < QUARTER_HOUR_OFFSETS.length; index++) {
+            QUARTER_HOUR_OFFSETS[index] =
+                ZoneOffset.ofTotalSeconds((index - QUARTER_HOUR_OFFSET_BIAS) * QUARTER_HOUR_SECONDS);
+        }
+    }
+
+    // size of the direct-mapped zone id cache, a power of two
+    private static final int ZONE_CACHE_SIZE = 16;
+
+    final private int form;
+    final private Class<?> temporalClass;
+
+    // state of the last parse
+    private int year;
+    private int month;
+    private int day;
+    private int hour;
+    private int minute;
+    private int second;
+    private int nano;
+    private ZoneOffset offset;
+    private ZoneId zone;
+
+    final private String[] zoneIds;
+    final private ZoneId[] zones;
+    private int lastZoneSlot;
+
+    private IsoTemporalParser(final int form, final Class<?> temporalClass) {
+        this.form = form;
+        this.temporalClass = temporalClass;
+        this.zoneIds = new String[ZONE_CACHE_SIZE];
+        this.zones = new ZoneId[ZONE_CACHE_SIZE];
+        this.lastZoneSlot = 0;
+    }
+
+    /**
+     * Creates a parser for the passed DateTimeFormatter parsing to the passed temporal class
+     * @param dateTimeFormatter formatter, which has to be one of the ISO constants of DateTimeFormatter
+     * @param temporalClass class of the parse result
+     * @return the parser or null, if the formatter or the class is not supported
+     */
+    static IsoTemporalParser create(final DateTimeFormatter dateTimeFormatter, final Class<?> temporalClass) {
+
+        boolean offsetClass = temporalClass.equals(OffsetDateTime.class) || temporalClass.equals(ZonedDateTime.class)
+            || temporalClass.equals(Instant.class);
+
+        if (dateTimeFormatter == DateTimeFormatter.ISO_LOCAL_DATE_TIME) {
+            return temporalClass.equals(LocalDateTime.class) ? new IsoTemporalParser(LOCAL_DATE_TIME, temporalClass)
+                : null;
+        } else if (dateTimeFormatter == DateTimeFormatter.ISO_INSTANT) {
+            return temporalClass.equals(Instant.class) ? new IsoTemporalParser(INSTANT, temporalClass) : null;
+        } else if (offsetClass || temporalClass.equals(LocalDateTime.class)) {
+            if (dateTimeFormatter == DateTimeFormatter.ISO_OFFSET_DATE_TIME) {
+                return new IsoTemporalParser(OFFSET_DATE_TIME, temporalClass);
+            } else if (dateTimeFormatter == DateTimeFormatter.ISO_ZONED_DATE_TIME) {
+                return new IsoTemporalParser(ZONED_DATE_TIME, temporalClass);
+            } else if (dateTimeFormatter == DateTimeFormatter.ISO_DATE_TIME) {
+                return new IsoTemporalParser(DATE_TIME, temporalClass);
+            }
+        }
+
+        return null;
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // returns the value of the 2 digits at the position or -1, if there are none
+    private static int twoDigits(final String text, final int position) {
+        int tens = text.charAt(position) - '0';
+        int ones = text.charAt(position + 1) - '0';
+        return tens >= 0 && tens <= 9 && ones >= 0 && ones <= 9 ? tens * 10 + ones : -1;
+    }
+
+    /**
+     * Parses the text at the passed position
+     * @param text text to parse
+     * @param start position to start at
+     * @return the position after the date-time or -1, if the text has to be parsed by the DateTimeFormatter
+     */
+    int parse(final String text, final int start) {
+
+        int length = text.length();
+        int position = start;
+
+        // date and time up to the minutes: yyyy-MM-ddTHH:mm
+        if (position + 16 > length) {
+            return -1;
+        }
+        int century = twoDigits(text, position);
+        int yearOfCentury = twoDigits(text, position + 2);
+        month = twoDigits(text, position + 5);
+        day = twoDigits(text, position + 8);
+        char separator = text.charAt(position + 10);
+        hour = twoDigits(text, position + 11);
+        minute = twoDigits(text, position + 14);
+        if (century < 0 || yearOfCentury < 0 || month < 0 || day < 0 || hour < 0 || minute < 0
+            || text.charAt(position + 4) != '-' || text.charAt(position + 7) != '-'
+            || (separator != 'T' && separator != 't') || text.charAt(position + 13) != ':') {
+            return -1;
+        }
+        year = century * 100 + yearOfCentury;
+        position += 16;
+
+        // seconds and fraction
+        second = 0;
+        nano = 0;
+        if (position < length && text.charAt(position) == ':') {
+
+            if (position + 3 > length || (second = twoDigits(text, position + 1)) < 0) {
+                return -1;
+            }
+            position += 3;
+
+            if (position < length && text.charAt(position) == '.') {
+                int digits = 0;
+                int fraction = 0;
+                position++;
+                while (digits < 9 && position < length && isDigit(text.charAt(position))) {
+                    fraction = fraction * 10 + text.charAt(position++) - '0';
+                    digits++;
+                }
+                if (digits == 0) {
+                    return -1;
+                }
+                nano = fraction * POWERS_OF_TEN[9 - digits];
+            }
+
+        } else if (form == INSTANT) {
+            return -1;
+        }
+
+        if (position < length && isDigit(text.charAt(position))) {
+            return -1;
+        }
+
+        // the resolvers of the ISO formatters are strict, anything else e.g. 24:00 is left to them
+        if (month < 1 || month > 12 || day < 1 || day > TemporalLayout.lengthOfMonth(year, month)
+            || hour > 23 || minute > 59 || second > 59) {
+            return -1;
+        }
+
+        offset = null;
+        zone = null;
+
+        if (form == LOCAL_DATE_TIME) {
+            return position;
+        }
+
+        // offset, which is optional in ISO_DATE_TIME only
+        if (form == DATE_TIME && (position == length || "+-Zz".indexOf(text.charAt(position)) < 0)) {
+            return position;
+        }
+        position = parseOffset(text, position);
+        if (position < 0) {
+            return -1;
+        }
+
+        // zone region id in brackets
+        if ((form == ZONED_DATE_TIME || form == DATE_TIME) && position < length && text.charAt(position) == '[') {
+            int close = text.indexOf(']', position + 1);
+            if (close < 0 || (zone = lookupZone(text, position + 1, close)) == null) {
+                return -1;
+            }
+            position = close + 1;
+        }
+
+        return position;
+
+    }
+
+    // parses the offset Z, +HH:MM or +HH:MM:SS and returns the position after it or -1
+    private int parseOffset(final String text, int position) {
+
+        int length = text.length();
+        if (position >= length) {
+            return -1;
+        }
+
+        char sign = text.charAt(position);
+        if (sign == 'Z' || sign == 'z') {
+
+            offset = ZoneOffset.UTC;
+            position++;
+
+        } else if (sign == '+' || sign == '-') {
+
+            int hours;
+            int minutes;
+            int seconds = 0;
+            if (position + 6 > length || (hours = twoDigits(text, position + 1)) < 0
+                || text.charAt(position + 3) != ':' || (minutes = twoDigits(text, position + 4)) < 0) {
+                return -1;
+            }
+            position += 6;
+            if (position < length && text.charAt(position) == ':') {
+                if (position + 3 > length || (seconds = twoDigits(text, position + 1)) < 0) {
+                    return -1;
+                }
+                position += 3;
+            }
+
+            int totalSeconds = hours * 3600 + minutes * 60 + seconds;
+            if (hours > 18 || minutes > 59 || seconds > 59 || totalSeconds > 18 * 3600) {
+                return -1;
+            }
+            offset = toZoneOffset(sign == '-' ? -totalSeconds : totalSeconds);
+
+        } else {
+            return -1;
+        }
+
+        if (position < length && (isDigit(text.charAt(position)) || text.charAt(position) == ':')) {
+            return -1;
+        }
+
+        return position;
+
+    }
+
+    private static ZoneOffset toZoneOffset(final int totalSeconds) {
+        return totalSeconds % QUARTER_HOUR_SECONDS == 0
+            ? QUARTER_HOUR_OFFSETS[totalSeconds / QUARTER_HOUR_SECONDS + QUARTER_HOUR_OFFSET_BIAS]
+            : ZoneOffset.ofTotalSeconds(totalSeconds);
+    }
+
+    /**
+     * Looks up the zone region id between the passed positions in the cache, which checks the last hit first
+     * @param text text containing the id
+     * @param start start of the id
+     * @param end end of the id
+     * @return the zone or null, if the id is no region id or unknown
+     */
+    private ZoneId lookupZone(final String text, final int start, final int end) {
+
+        int length = end - start;
+
+        String lastZoneId = zoneIds[lastZoneSlot];
+        if (lastZoneId != null && lastZoneId.length() == length && text.startsWith(lastZoneId, start)) {
+            return zones[lastZoneSlot];
+        }
+
+        int hash = 0;
+        for (int position = start; position < end; position++) {
+            hash = 31 * hash + text.charAt(position);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (ZONE_CACHE_SIZE - 1);
+
+        String zoneId = zoneIds[slot];
+        if (zoneId == null || zoneId.length() != length || !text.startsWith(zoneId, start)) {
+
+            // ids based on UTC, GMT or UT incl. an offset are parsed leniently by the DateTimeFormatter
+            zoneId = text.substring(start, end);
+            if (length == 0 || !Character.isLetter(zoneId.charAt(0))
+                || ((zoneId.startsWith("UT") || zoneId.startsWith("GMT"))
+                    && !(zoneId.equals("UT") || zoneId.equals("UTC") || zoneId.equals("GMT")))) {
+                return null;
+            }
+
+            try {
+                zones[slot] = ZoneId.of(zoneId);
+            } catch (DateTimeException dateTimeException) {
+                return null;
+            }
+            zoneIds[slot] = zoneId;
+
+        }
+
+        lastZoneSlot = slot;
+        return zones[slot];
+
+    }
+
+    /**
+     * Resolves the last parsed date-time to an instance of the temporal class of the parser
+     * @return the temporal or null, if the parsed values are not sufficient for the temporal class
+     */
+    TemporalAccessor resolve() {
+
+        if (temporalClass == LocalDateTime.class) {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } else if (offset == null) {
+            return null;
+        } else if (temporalClass == Instant.class) {
+            return Instant.ofEpochSecond(getEpochSecond(), nano);
+        }
+
+        LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        if (temporalClass == OffsetDateTime.class) {
+            return OffsetDateTime.of(localDateTime, offset);
+        } else if (temporalClass == ZonedDateTime.class) {
+            return ZonedDateTime.ofInstant(localDateTime, offset, zone != null ? zone : offset);
+        } else {
+            return null;
+        }
+
+    }
+
+    /**
+     * Checks, if the last parsed date-time can be resolved to the temporal class of the parser
+     * @return true, if {@link #resolve()} returns a temporal
+     */
+    boolean isResolvable() {
+        return temporalClass == LocalDateTime.class || offset != null;
+    }
+
+    /**
+     * Returns the epoch day of the local date of the last parsed date-time. For an Instant it is the date in UTC.
+     * @return epoch day
+     */
+    long getEpochDay() {
+        if (temporalClass == Instant.class) {
+            return Math.floorDiv(getEpochSecond(), 86_400L);
+        } else if (temporalClass == ZonedDateTime.class && zone != null) {
+            // the zone can move the local date-time away from the parsed one
+            return ((ZonedDateTime) resolve()).toLocalDate().toEpochDay();
+        } else {
+            return TemporalLayout.epochDay(year, month, day);
+        }
+    }
+
+    /**
+     * Returns the epoch second of the last parsed date-time. Local date-times are taken as UTC.
+     * @return epoch second
+     */
+    long getEpochSecond() {
+        long epochSecond = TemporalLayout.epochDay(year, month, day) * 86_400L + hour * 3_600 + minute * 60 + second;
+        return temporalClass == LocalDateTime.class || offset == null
+            ? epochSecond : epochSecond - offset.getTotalSeconds();
+    }
+
+    /**
+     * Returns the nano of second of the last parsed date-time
+     * @return nano of second
+     */
+    int getNano() { return nano; }
+
+}
@@ -17,42 +17,142 @@
 package com.ogawa.parstorius;
 
 import java.text.ParsePosition;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
-@SuppressWarnings("unused")
-// The constant value is the format, which is the result of parseText and is returned on format
-// as its string representation
+/**
+ * Formatter mapping keys to values and back, e.g. country codes to countries or status codes to enums. Keys are
+ * compiled into a trie, so parsing matches the longest key at the parse position in a single pass over the text,
+ * case-insensitive keys are pre-folded. Formatting looks up the key of a value in a reverse table, where the first
+ * key of a value in the order of the map wins.
+ * @param <T> type of the values
+ */
 public class KeyValueFormatter<T> extends Formatter<T, KeyValueFormatter<T>> {
 
-    private T format;
+    final private Map<String, T> keyValueMap;
+
+    // values indexed by the value of the matcher, and first keys of the values
+    final private Object[] values;
+    final private Map<T, String> valueKeyMap;
+
+    // matcher of the keys, derived by init()
+    private LiteralMatcher keyMatcher;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
 
     /**
-     * Constructs a new formatter instance using the default pattern.
+     * Constructs a new formatter instance skipping whitespaces.
      * @param parseCaseInsensitive flag, if the parser behaves case-insensitive
-     * @param pattern pattern for parsing and formatting
+     * @param keyValueMap keys (non-empty) and their values (non-null) for parsing and formatting
+     * @param parseUntilEnd flag, if the text has to be parsed until its end
      */
-    protected KeyValueFormatter(final boolean parseCaseInsensitive, final Map<String, T> pattern, boolean parseUntilEnd) {
-        super(parseCaseInsensitive, PARSE_SKIP_MODE.WHITESPACES, parseUntilEnd);
+    public KeyValueFormatter(final boolean parseCaseInsensitive, final Map<String, T> keyValueMap,
+        boolean parseUntilEnd) {
+        this(parseCaseInsensitive, keyValueMap, PARSE_SKIP_MODE.WHITESPACES, parseUntilEnd);
     }
 
-    @Override protected KeyValueFormatter<T> init() { return this; }
+    /**
+     * Constructs a new formatter instance.
+     * @param parseCaseInsensitive flag, if the parser behaves case-insensitive
+     * @param keyValueMap keys (non-empty) and their values (non-null) for parsing and formatting
+     * @param parseSkipMode mode of skipping leading and trailing chars
+     * @param parseUntilEnd flag, if the text has to be parsed until its end
+     */
+    public KeyValueFormatter(final boolean parseCaseInsensitive, final Map<String, T> keyValueMap,
+        final PARSE_SKIP_MODE parseSkipMode, boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+
+        Objects.requireNonNull(keyValueMap, "keyValueMap");
+
+        Map<String, T> keyValues = new LinkedHashMap<>();
+        Map<T, String> valueKeys = new HashMap<>();
+        for (Map.Entry<String, T> entry : keyValueMap.entrySet()) {
+            String key = Objects.requireNonNull(entry.getKey(), "key");
+            T value = Objects.requireNonNull(entry.getValue(), "value of " + key);
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("empty key");
+            }
+            keyValues.put(key, value);
+            valueKeys.putIfAbsent(value, key);
+        }
+
+        this.keyValueMap = Collections.unmodifiableMap(keyValues);
+        this.values = keyValues.values().toArray();
+        this.valueKeyMap = valueKeys;
+
+        init();
 
-    @Override public KeyValueFormatter<T> clone() {
-        return new KeyValueFormatter<>(parseCaseInsensitive, null, getParseUntilEnd());
     }
 
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
     public Map<String, T> getKeyValueMap() {
-        return null;
+        return keyValueMap;
     }
 
-    @Override
-    protected String formatObject(T object) {
-        return format.toString();
+    /* ****************************** common logic ****************************** */
+
+    @Override protected KeyValueFormatter<T> init() {
+
+        renewParseConfigurationStamp();
+
+        // keys equal on parsing case-insensitive map to the value of the first one
+        LiteralMatcher matcher = new LiteralMatcher(parseCaseInsensitive);
+        int index = 0;
+        for (String key : keyValueMap.keySet()) {
+            matcher.add(key, index++);
+        }
+        keyMatcher = matcher;
+
+        return this;
     }
 
+    @Override public KeyValueFormatter<T> clone() {
+        return new KeyValueFormatter<>(getParseCaseInsensitive(), keyValueMap, getParseSkipMode(),
+            getParseUntilEnd()).copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
     @Override
+    @SuppressWarnings("unchecked")
     protected T parseText(String text, ParsePosition contextParsePosition) {
-        return format;
+
+        // the longest key at the position
+        long match = keyMatcher.match(text, contextParsePosition.getIndex());
+        if (match < 0) {
+            contextParsePosition.setErrorIndex(contextParsePosition.getIndex());
+            return null;
+        }
+
+        contextParsePosition.setIndex(LiteralMatcher.endOf(match));
+        return (T) values[LiteralMatcher.valueOf(match)];
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format logic ****************************** */
+
+    @Override
+    protected String formatObject(T object) {
+        // null for values without a key signals an error
+        return valueKeyMap.get(object);
     }
 
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.util.Arrays;
+
+/**
+ * Trie of literals mapped to int values, e.g. the texts of months or the representatives of booleans. The longest
+ * literal matching at a position wins. Case-insensitive literals are stored folded like
+ * String.regionMatches(true, ...) compares chars, so matching needs a single pass over the text and no allocation.
+ * A matcher is built once by {@link #add(String, int)} and only read afterwards.
+ */
+final class LiteralMatcher {
+
+    final private boolean caseInsensitive;
+
+    // per node the sorted chars of the edges, the nodes the edges lead to and the value of the literal ending there
+    private char[][] edgeChars;
+    private int[][] edgeNodes;
+    private int[] nodeValues;
+    private int nodeCount;
+
+    LiteralMatcher(final boolean caseInsensitive) {
+        this.caseInsensitive = caseInsensitive;
+        this.edgeChars = new char[16][];
+        this.edgeNodes = new int[16][];
+        this.nodeValues = new int[16];
+        this.nodeCount = 0;
+        addNode();
+    }
+
+    // folds a char like String.regionMatches(true, ...) does
+    static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    // value of a match returned by match()
+    static int valueOf(final long match) {
+        return (int) match;
+    }
+
+    // position after the matched literal of a match returned by match()
+    static int endOf(final long match) {
+        return (int) (match >>> 32);
+    }
+
+    boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    private int addNode() {
+        if (nodeCount == nodeValues.length) {
+            edgeChars = Arrays.copyOf(edgeChars, nodeCount << 1);
+            edgeNodes = Arrays.copyOf(edgeNodes, nodeCount << 1);
+            nodeValues = Arrays.copyOf(nodeValues, nodeCount << 1);
+        }
+        edgeChars[nodeCount] = new char[0];
+        edgeNodes[nodeCount] = new int[0];
+        nodeValues[nodeCount] = -1;
+        return nodeCount++;
+    }
+
+    /**
+     * Adds a literal, unless an equal literal was added before
+     * @param literal literal to add
+     * @param value value (non-negative) of the literal
+     * @return false, if an equal literal was added before, which keeps its value
+     */
+    boolean add(final String literal, final int value) {
+
+        int node = 0;
+
+        for (int position = 0; position < literal.length(); position++) {
+
+            char c = caseInsensitive ? fold(literal.charAt(position)) : literal.charAt(position);
+            int edge = Arrays.binarySearch(edgeChars[node], c);
+
+            if (edge < 0) {
+                edge = -edge - 1;
+                int child = addNode();
+                int edgeCount = edgeChars[node].length;
+                char[] chars = new char[edgeCount + 1];
+                int[] nodes = new int[edgeCount + 1];
+                System.arraycopy(edgeChars[node], 0, chars, 0, edge);
+                System.arraycopy(edgeNodes[node], 0, nodes, 0, edge);
+                System.arraycopy(edgeChars[node], edge, chars, edge + 1, edgeCount - edge);
+                System.arraycopy(edgeNodes[node], edge, nodes, edge + 1, edgeCount - edge);
+                chars[edge] = c;
+                nodes[edge] = child;
+                edgeChars[node] = chars;
+                edgeNodes[node] = nodes;
+            }
+
+            node = edgeNodes[node][edge];
+
+        }
+
+        if (nodeValues[node] >= 0) {
+            return false;
+        }
+        nodeValues[node] = value;
+        return true;
+
+    }
+
+    /**
+     * Matches the longest literal at the passed position
+     * @param text text to match
+     * @param position position to start at
+     * @return the position after the matched literal shifted left by 32 bits or-ed with the value of the matched
+     *         literal or -1, if no literal matches
+     */
+    long match(final CharSequence text, final int position) {
+
+        long match = nodeValues[0] >= 0 ? ((long) position << 32) | nodeValues[0] : -1;
+        int node = 0;
+
+        for (int end = position; end < text.length(); end++) {
+
+            char c = caseInsensitive ? fold(text.charAt(end)) : text.charAt(end);
+            int edge = Arrays.binarySearch(edgeChars[node], c);
+            if (edge < 0) {
+                break;
+            }
+
+            node = edgeNodes[node][edge];
+            if (nodeValues[node] >= 0) {
+                match = ((long) (end + 1) << 32) | nodeValues[node];
+            }
+
+        }
+
+        return match;
+
+    }
+
+}
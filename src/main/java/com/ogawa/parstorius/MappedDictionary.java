@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable dictionary of string keys and long values in a file mapped into memory, written by
+ * {@link MappedKeyValueFormatter.Builder}. Lookups read the mapped bytes directly, so processes mapping the same
+ * file share its pages and the heap holds the region buffers only.
+ * <p>
+ * Layout (big endian): a header, a hash table of key slots, a hash table of value slots, both probed linearly, and
+ * the records. A slot is 0, if empty, else the upper 16 bits of the hash followed by the 48 bit offset of a record.
+ * A record is the key length as int, the value as long and the chars of the key in one or two bytes. Records never
+ * cross the boundary of a region, so each is read from a single mapped buffer.
+ */
+final class MappedDictionary {
+
+    static final int MAGIC = 0x504B5631; // "PKV1"
+    static final int HEADER_SIZE = 32;
+    static final int REGION_SHIFT = 30;
+    static final long OFFSET_MASK = (1L << 48) - 1;
+
+    final private Path path;
+    final private ByteBuffer[] regions;
+    final private int charWidth;
+    final private int slotMask;
+    final private long entryCount;
+    final private long keySlotsOffset;
+    final private long valueSlotsOffset;
+
+    private MappedDictionary(final Path path, final ByteBuffer[] regions) {
+        this.path = path;
+        this.regions = regions;
+
+        ByteBuffer header = regions[0];
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(path + " is no mapped dictionary");
+        }
+        this.charWidth = header.getInt(4);
+        this.slotMask = header.getInt(8) - 1;
+        this.entryCount = header.getLong(16);
+        this.keySlotsOffset = HEADER_SIZE;
+        this.valueSlotsOffset = HEADER_SIZE + ((long) (slotMask + 1) << 3);
+    }
+
+    /**
+     * Maps the dictionary file read-only into memory
+     * @param path path of the file
+     * @return the dictionary
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    static MappedDictionary map(final Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            ByteBuffer[] regions = new ByteBuffer[(int) ((size + (1L << REGION_SHIFT) - 1) >>> REGION_SHIFT)];
+            for (int index = 0; index < regions.length; index++) {
+                long start = (long) index << REGION_SHIFT;
+                regions[index] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(1L << REGION_SHIFT, size - start));
+            }
+            if (regions.length == 0) {
+                throw new IllegalArgumentException(path + " is no mapped dictionary");
+            }
+
+            // the mapping stays valid after closing the channel
+            return new MappedDictionary(path, regions);
+
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    Path getPath() { return path; }
+
+    long getEntryCount() { return entryCount; }
+
+    /* ************************************************************************** */
+    /* ********************************* hashing ******************************** */
+    /* ************************************************************************** */
+
+    // finalizes a hash by the mixer of MurmurHash3
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Hashes the folded chars of a key by FNV-1a, so keys equal case-insensitive have equal hashes
+     * @param key text containing the key
+     * @param start position of the key
+     * @param end position after the key
+     * @return the hash
+     */
+    static long hashKey(final CharSequence key, final int start, final int end) {
+        long hash = 0xCBF29CE484222325L;
+        for (int position = start; position < end; position++) {
+            hash ^= LiteralMatcher.fold(key.charAt(position));
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* lookups ******************************** */
+    /* ************************************************************************** */
+
+    private ByteBuffer region(final long offset) {
+        return regions[(int) (offset >>> REGION_SHIFT)];
+    }
+
+    private long getLong(final long offset) {
+        return region(offset).getLong((int) offset & ((1 << REGION_SHIFT) - 1));
+    }
+
+    private char keyChar(final ByteBuffer region, final int keyPosition, final int index) {
+        return charWidth == 1
+            ? (char) (region.get(keyPosition + index) & 0xFF) : region.getChar(keyPosition + (index << 1));
+    }
+
+    // compares the key of the record with the text
+    private boolean keyEquals(final long record, final CharSequence text, final int start, final int end,
+        final boolean caseInsensitive) {
+
+        ByteBuffer region = region(record);
+        int position = (int) record & ((1 << REGION_SHIFT) - 1);
+        int length = end - start;
+        if (region.getInt(position) != length) {
+            return false;
+        }
+
+        int keyPosition = position + 12;
+        for (int index = 0; index < length; index++) {
+            char c = keyChar(region, keyPosition, index);
+            char textChar = text.charAt(start + index);
+            if (c != textChar && !(caseInsensitive && LiteralMatcher.fold(c) == LiteralMatcher.fold(textChar))) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * Finds the record of a key
+     * @param text text containing the key
+     * @param start position of the key
+     * @param end position after the key
+     * @param caseInsensitive true, if the key is compared case-insensitive
+     * @return the offset of the record or -1, if the key is not found
+     */
+    long findKey(final CharSequence text, final int start, final int end, final boolean caseInsensitive) {
+
+        long hash = hashKey(text, start, end);
+        long tag = hash >>> 48;
+
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long entry = getLong(keySlotsOffset + ((long) slot << 3));
+            if (entry == 0) {
+                return -1;
+            }
+            if (entry >>> 48 == tag && keyEquals(entry & OFFSET_MASK, text, start, end, caseInsensitive)) {
+                return entry & OFFSET_MASK;
+            }
+        }
+
+    }
+
+    /**
+     * Finds the record of the first key of a value
+     * @param value value
+     * @return the offset of the record or -1, if the value is not found
+     */
+    long findValue(final long value) {
+
+        long hash = mix(value);
+        long tag = hash >>> 48;
+
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long entry = getLong(valueSlotsOffset + ((long) slot << 3));
+            if (entry == 0) {
+                return -1;
+            }
+            if (entry >>> 48 == tag && valueOf(entry & OFFSET_MASK) == value) {
+                return entry & OFFSET_MASK;
+            }
+        }
+
+    }
+
+    long valueOf(final long record) {
+        return getLong(record + 4);
+    }
+
+    /**
+     * Appends the key of a record
+     * @param record offset of the record
+     * @param stringBuilder string builder to append the key to
+     */
+    void appendKey(final long record, final StringBuilder stringBuilder) {
+        ByteBuffer region = region(record);
+        int position = (int) record & ((1 << REGION_SHIFT) - 1);
+        int length = region.getInt(position);
+        for (int index = 0; index < length; index++) {
+            stringBuilder.append(keyChar(region, position + 12, index));
+        }
+    }
+
+}
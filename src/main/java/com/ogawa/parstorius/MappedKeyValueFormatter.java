@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Formatter mapping keys to long values, e.g. product codes to internal IDs, by a dictionary file too large for the
+ * heap. The file is prebuilt by a {@link Builder} and mapped into memory on construction, lookups read the mapped
+ * bytes directly. Clones share the mapping. The key is the rest of the text without the trailing chars skipped by
+ * the parse skip mode. Formatting writes the first key of a value.
+ */
+public class MappedKeyValueFormatter extends Formatter<Long, MappedKeyValueFormatter> {
+
+    final private MappedDictionary dictionary;
+
+    private final StringBuilder formatBuffer = new StringBuilder(32);
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new formatter mapping the dictionary file read-only into memory
+     * @param dictionaryPath path of a file written by a {@link Builder}
+     * @param parseCaseInsensitive flag, if the parser behaves case-insensitive
+     * @param parseSkipMode mode of skipping leading and trailing chars
+     * @param parseUntilEnd flag, if the text has to be parsed until its end
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    public MappedKeyValueFormatter(final Path dictionaryPath, final boolean parseCaseInsensitive,
+        final PARSE_SKIP_MODE parseSkipMode, final boolean parseUntilEnd) {
+        this(MappedDictionary.map(Objects.requireNonNull(dictionaryPath, "dictionaryPath")), parseCaseInsensitive,
+            parseSkipMode, parseUntilEnd);
+    }
+
+    private MappedKeyValueFormatter(final MappedDictionary dictionary, final boolean parseCaseInsensitive,
+        final PARSE_SKIP_MODE parseSkipMode, final boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+        this.dictionary = dictionary;
+        init();
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
+    public Path getDictionaryPath() { return dictionary.getPath(); }
+
+    public long getEntryCount() { return dictionary.getEntryCount(); }
+
+    /* ****************************** common logic ****************************** */
+
+    @Override protected MappedKeyValueFormatter init() {
+        renewParseConfigurationStamp();
+        return this;
+    }
+
+    @Override public MappedKeyValueFormatter clone() {
+        return new MappedKeyValueFormatter(dictionary, getParseCaseInsensitive(), getParseSkipMode(),
+            getParseUntilEnd()).copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
+    /**
+     * Finds the record of the key at the position and moves the position beyond the text
+     * @param text text containing the key
+     * @param contextParsePosition position of the key, set to the end of the text or the error index
+     * @return the record or -1, if the key is not found
+     */
+    private long findRecord(final String text, final ParsePosition contextParsePosition) {
+
+        int start = contextParsePosition.getIndex();
+        long record = dictionary.findKey(text, start,
+            parseSkipMode.getTrailingSkippedEnd(text, start), parseCaseInsensitive);
+        if (record < 0) {
+            contextParsePosition.setErrorIndex(start);
+        } else {
+            contextParsePosition.setIndex(text.length());
+        }
+        return record;
+
+    }
+
+    @Override
+    protected Long parseText(String text, ParsePosition contextParsePosition) {
+        long record = findRecord(text, contextParsePosition);
+        return record < 0 ? null : dictionary.valueOf(record);
+    }
+
+    /**
+     * Parses the passed text to its value without boxing. Results and errors are reported like on
+     * {@link #parse(String, ParsePosition)}, but all defaults are replaced by the passed one.
+     * @param text text to parse
+     * @param contextParsePosition position to start from and parse position receiving the new (error) position
+     * @param defaultValue value returned, if no value was parsed
+     * @return the value or the default value
+     */
+    public long parseValue(final String text, final ParsePosition contextParsePosition, final long defaultValue) {
+
+        if (beginParse(text, contextParsePosition) != null) {
+            return defaultValue;
+        }
+
+        long record = findRecord(text, parsePosition);
+        failParseOnErrorIndex();
+
+        return endParse(text, contextParsePosition) == PARSE_RESULT_CAUSE.TEXT_VALUE
+            ? dictionary.valueOf(record) : defaultValue;
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format logic ****************************** */
+
+    @Override protected String formatObject(final Long value) {
+        formatBuffer.setLength(0);
+        return formatObjectTo(value, formatBuffer) ? formatBuffer.toString() : null;
+    }
+
+    @Override protected boolean formatObjectTo(final Long value, final StringBuilder stringBuilder) {
+        // values without a key are errors
+        long record = dictionary.findValue(value);
+        if (record < 0) {
+            return false;
+        }
+        dictionary.appendKey(record, stringBuilder);
+        return true;
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* building ******************************* */
+    /* ************************************************************************** */
+
+    /**
+     * Builder of dictionary files. Keys and values are collected on the heap and written at once, the first key put
+     * wins over equal ones and is the one formatted for its value. Keys are stored in one byte per char, if all chars
+     * are Latin-1, else in two.
+     */
+    public static final class Builder {
+
+        private final List<String> keys = new ArrayList<>();
+        private long[] values = new long[1024];
+
+        /**
+         * Adds a key and its value
+         * @param key key (non-empty)
+         * @param value value
+         * @return this builder
+         */
+        public Builder put(final String key, final long value) {
+            if (Objects.requireNonNull(key, "key").isEmpty()) {
+                throw new IllegalArgumentException("empty key");
+            }
+            if (keys.size() == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[keys.size()] = value;
+            keys.add(key);
+            return this;
+        }
+
+        public int size() { return keys.size(); }
+
+        // linear probing index of the slot of a hash
+        private static int probe(final long[] slots, final long hash) {
+            int slotMask = slots.length - 1;
+            int slot = (int) hash & slotMask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            return slot;
+        }
+
+        /**
+         * Writes the dictionary file
+         * @param path path of the file, which is replaced, if it exists
+         * @return the path
+         * @throws UncheckedIOException if the file cannot be written
+         */
+        public Path write(final Path path) {
+
+            if (keys.size() > 1 << 29) {
+                throw new IllegalArgumentException("too many keys: " + keys.size());
+            }
+
+            // unique keys in order, equal ones found in the slots of their index plus 1
+            int slotCount = Math.max(16, Integer.highestOneBit(Math.max(1, keys.size() * 2 - 1)) << 1);
+            int slotMask = slotCount - 1;
+            int[] keyIndexSlots = new int[slotCount];
+            int[] uniqueKeys = new int[keys.size()];
+            int uniqueCount = 0;
+            int charWidth = 1;
+            for (int index = 0; index < keys.size(); index++) {
+                String key = keys.get(index);
+                int slot = (int) MappedDictionary.hashKey(key, 0, key.length()) & slotMask;
+                while (keyIndexSlots[slot] != 0 && !keys.get(keyIndexSlots[slot] - 1).equals(key)) {
+                    slot = (slot + 1) & slotMask;
+                }
+                if (keyIndexSlots[slot] == 0) {
+                    keyIndexSlots[slot] = index + 1;
+                    uniqueKeys[uniqueCount++] = index;
+                    for (int position = 0; position < key.length() && charWidth == 1; position++) {
+                        charWidth = key.charAt(position) > 0xFF ? 2 : 1;
+                    }
+                }
+            }
+            keyIndexSlots = null;
+
+            // records in order, each moved to the next region, if it would cross the boundary
+            long regionSize = 1L << MappedDictionary.REGION_SHIFT;
+            long[] recordOffsets = new long[uniqueCount];
+            long offset = MappedDictionary.HEADER_SIZE + ((long) slotCount << 4);
+            for (int unique = 0; unique < uniqueCount; unique++) {
+                long size = 12 + (long) keys.get(uniqueKeys[unique]).length() * charWidth;
+                if (offset / regionSize != (offset + size - 1) / regionSize) {
+                    offset = (offset / regionSize + 1) * regionSize;
+                }
+                recordOffsets[unique] = offset;
+                offset += size;
+            }
+            if (offset > MappedDictionary.OFFSET_MASK) {
+                throw new IllegalArgumentException("dictionary too large: " + offset + " bytes");
+            }
+
+            // slots of the keys and of the first key of each value
+            long[] keySlots = new long[slotCount];
+            long[] valueSlots = new long[slotCount];
+            for (int unique = 0; unique < uniqueCount; unique++) {
+                String key = keys.get(uniqueKeys[unique]);
+                long hash = MappedDictionary.hashKey(key, 0, key.length());
+                keySlots[probe(keySlots, hash)] = (hash >>> 48 << 48) | recordOffsets[unique];
+
+                long value = values[uniqueKeys[unique]];
+                hash = MappedDictionary.mix(value);
+                int slot = (int) hash & slotMask;
+                while (valueSlots[slot] != 0 && values[uniqueKeys[findUnique(recordOffsets,
+                    valueSlots[slot] & MappedDictionary.OFFSET_MASK)]] != value) {
+                    slot = (slot + 1) & slotMask;
+                }
+                if (valueSlots[slot] == 0) {
+                    valueSlots[slot] = (hash >>> 48 << 48) | recordOffsets[unique];
+                }
+            }
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path),
+                1 << 16))) {
+
+                output.writeInt(MappedDictionary.MAGIC);
+                output.writeInt(charWidth);
+                output.writeInt(slotCount);
+                output.writeInt(0);
+                output.writeLong(uniqueCount);
+                output.writeLong(0);
+                for (long slot : keySlots) {
+                    output.writeLong(slot);
+                }
+                for (long slot : valueSlots) {
+                    output.writeLong(slot);
+                }
+
+                long position = MappedDictionary.HEADER_SIZE + ((long) slotCount << 4);
+                for (int unique = 0; unique < uniqueCount; unique++) {
+                    for (; position < recordOffsets[unique]; position++) {
+                        output.writeByte(0);
+                    }
+                    String key = keys.get(uniqueKeys[unique]);
+                    output.writeInt(key.length());
+                    output.writeLong(values[uniqueKeys[unique]]);
+                    for (int index = 0; index < key.length(); index++) {
+                        if (charWidth == 1) {
+                            output.writeByte(key.charAt(index));
+                        } else {
+                            output.writeChar(key.charAt(index));
+                        }
+                    }
+                    position += 12 + (long) key.length() * charWidth;
+                }
+
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+
+            return path;
+
+        }
+
+        // index of the unique key of a record offset
+        private static int findUnique(final long[] recordOffsets, final long recordOffset) {
+            return Arrays.binarySearch(recordOffsets, recordOffset);
+        }
+
+    }
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Formatter parsing temporals in several layouts given by a list of DateTimeFormatters. The formatters are tried in
+ * an order adapted to the texts parsed: formatters, whose cheap discriminators (leading char class, length and
+ * separator positions of sample texts) fit the text, are tried first, and among them the formatters having matched
+ * most often. Texts not matching a formatter are rejected without exceptions. The index of the formatter, which
+ * matched the last text, is reported by {@link #getLastMatchedIndex()}.
+ * Temporals are formatted using the first DateTimeFormatter.
+ * @param <T> class of the temporals
+ */
+public class MultiPatternTemporalAccessorFormatter<T extends TemporalAccessor>
+    extends Formatter<T, MultiPatternTemporalAccessorFormatter<T>> {
+
+    // hit counts are halved, if one of them reaches this limit, so older hits fade out
+    private static final int MAX_HIT_COUNT = 1 << 16;
+
+    // leading char classes
+    private static final int DIGIT = 0;
+    private static final int LETTER = 1;
+    private static final int SIGN = 2;
+    private static final int OTHER = 3;
+
+    // samples formatted to derive the discriminators, which differ in the length of all variable-width fields
+    private static final ZonedDateTime[] SAMPLES = {
+        ZonedDateTime.of(2024, 12, 18, 22, 44, 55, 123_456_789, ZoneOffset.ofHoursMinutes(5, 30)),
+        ZonedDateTime.of(2021, 5, 2, 4, 5, 6, 7_000_000, ZoneOffset.UTC) };
+
+    final private Class<T> classT;
+    final private List<DateTimeFormatter> dateTimeFormatters;
+
+    // per formatter the delegate and its discriminators
+    private List<TemporalAccessorFormatter<T>> candidates;
+    private int[] leadingCharClasses;
+    private int[] fixedLengths;
+    private int[][] separatorPositions;
+    private char[][] separators;
+
+    // indexes of the formatters in order of descending hit counts
+    private int[] candidateOrder;
+    private int[] hitCounts;
+
+    // order of the formatters tried for the current text
+    private int[] tryOrder;
+
+    private int lastMatchedIndex;
+    private final ParsePosition candidateParsePosition = new ParsePosition(0);
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    public MultiPatternTemporalAccessorFormatter(Class<T> temporalAccessorClassT,
+        List<DateTimeFormatter> dateTimeFormatters, boolean parseCaseInsensitive, PARSE_SKIP_MODE parseSkipMode,
+        boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+
+        Objects.requireNonNull(temporalAccessorClassT, "temporalAccessorClassT");
+        Objects.requireNonNull(dateTimeFormatters, "dateTimeFormatters");
+        if (dateTimeFormatters.isEmpty()) {
+            throw new IllegalArgumentException("dateTimeFormatters must not be empty");
+        }
+
+        this.classT = temporalAccessorClassT;
+        this.dateTimeFormatters = Collections.unmodifiableList(new ArrayList<>(dateTimeFormatters));
+
+        int count = this.dateTimeFormatters.size();
+        this.candidateOrder = new int[count];
+        this.hitCounts = new int[count];
+        this.tryOrder = new int[count];
+        for (int index = 0; index < count; index++) {
+            candidateOrder[index] = index;
+        }
+        this.lastMatchedIndex = -1;
+
+        init();
+
+    }
+
+    @Override protected MultiPatternTemporalAccessorFormatter<T> init() {
+
+        renewParseConfigurationStamp();
+
+        int count = dateTimeFormatters.size();
+        List<TemporalAccessorFormatter<T>> newCandidates = new ArrayList<>(count);
+        leadingCharClasses = new int[count];
+        fixedLengths = new int[count];
+        separatorPositions = new int[count][];
+        separators = new char[count][];
+
+        for (int index = 0; index < count; index++) {
+
+            DateTimeFormatter dateTimeFormatter = dateTimeFormatters.get(index);
+
+            // skipping and parsing until end is done by this formatter
+            newCandidates.add(new TemporalAccessorFormatter<>(classT, dateTimeFormatter, parseCaseInsensitive,
+                PARSE_SKIP_MODE.NO_SKIP, false));
+
+            initDiscriminators(index, dateTimeFormatter);
+
+        }
+
+        candidates = newCandidates;
+
+        return this;
+
+    }
+
+    /**
+     * Derives the discriminators of the formatter at the passed index from the texts of the samples. Without
+     * samples, e.g. for formatters requiring other fields, the formatter has no discriminators and fits all texts.
+     * @param index index of the formatter
+     * @param dateTimeFormatter the formatter
+     */
+    private void initDiscriminators(final int index, final DateTimeFormatter dateTimeFormatter) {
+
+        String first;
+        String second;
+        try {
+            first = dateTimeFormatter.format(SAMPLES[0]);
+            second = dateTimeFormatter.format(SAMPLES[1]);
+        } catch (DateTimeException dateTimeException) {
+            first = "";
+            second = "";
+        }
+
+        leadingCharClasses[index] = first.isEmpty() || charClass(first.charAt(0)) != charClass(second.charAt(0))
+            ? -1 : charClass(first.charAt(0));
+        fixedLengths[index] = first.length() == second.length() ? first.length() : -1;
+
+        // separators at equal positions up to the first position, where the texts differ in their char classes
+        StringBuilder positions = new StringBuilder();
+        int length = Math.min(first.length(), second.length());
+        for (int position = 0; position < length; position++) {
+            char c = first.charAt(position);
+            if (charClass(c) != charClass(second.charAt(position))) {
+                break;
+            } else if ((charClass(c) == OTHER || charClass(c) == SIGN) && c == second.charAt(position)) {
+                positions.append((char) position);
+            }
+        }
+
+        separatorPositions[index] = new int[positions.length()];
+        separators[index] = new char[positions.length()];
+        for (int separator = 0; separator < positions.length(); separator++) {
+            separatorPositions[index][separator] = positions.charAt(separator);
+            separators[index][separator] = first.charAt(positions.charAt(separator));
+        }
+
+    }
+
+    @Override protected MultiPatternTemporalAccessorFormatter<T> copyProperties(
+        MultiPatternTemporalAccessorFormatter<T> sourceFormatter) {
+        // the learned order is kept
+        this.candidateOrder = sourceFormatter.candidateOrder.clone();
+        this.hitCounts = sourceFormatter.hitCounts.clone();
+        this.lastMatchedIndex = sourceFormatter.getLastMatchedIndex();
+        return super.copyProperties(sourceFormatter);
+    }
+
+    @Override public MultiPatternTemporalAccessorFormatter<T> clone() {
+        return new MultiPatternTemporalAccessorFormatter<>(classT, dateTimeFormatters,
+        getParseCaseInsensitive(), getParseSkipMode(), getParseUntilEnd()).copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ***************************** common getter ****************************** */
+
+    /**
+     * Returns the DateTimeFormatters passed on construction
+     * @return unmodifiable list of the DateTimeFormatters
+     */
+    public List<DateTimeFormatter> getDateTimeFormatters() { return dateTimeFormatters; }
+
+    /**
+     * Returns the index of the DateTimeFormatter, which matched the last text parsed
+     * @return index of the matching DateTimeFormatter or -1, if the last text was not parsed by a DateTimeFormatter
+     */
+    public int getLastMatchedIndex() { return lastMatchedIndex; }
+
+    /**
+     * Returns the DateTimeFormatter, which matched the last text parsed
+     * @return the matching DateTimeFormatter or null, if the last text was not parsed by a DateTimeFormatter
+     */
+    public DateTimeFormatter getLastMatchedDateTimeFormatter() {
+        return lastMatchedIndex >= 0 ? dateTimeFormatters.get(lastMatchedIndex) : null;
+    }
+
+    /**
+     * Returns how often the DateTimeFormatters matched recently, which determines the order they are tried in
+     * @return hit counts indexed like the DateTimeFormatters
+     */
+    public int[] getHitCounts() { return hitCounts.clone(); }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
+    private static int charClass(final char c) {
+        if (c >= '0' && c <= '9') {
+            return DIGIT;
+        } else if (Character.isLetter(c)) {
+            return LETTER;
+        } else if (c == '+' || c == '-') {
+            return SIGN;
+        } else {
+            return OTHER;
+        }
+    }
+
+    /**
+     * Checks, if the discriminators of the formatter at the passed index fit the text
+     * @param index index of the formatter
+     * @param text text to parse
+     * @param start position to start at
+     * @return true, if the formatter is likely to match
+     */
+    private boolean fits(final int index, final String text, final int start) {
+
+        if (leadingCharClasses[index] >= 0 && leadingCharClasses[index] != charClass(text.charAt(start))) {
+            return false;
+        }
+
+        int length = text.length() - start;
+        if (fixedLengths[index] >= 0 && fixedLengths[index] != length
+            && (parseUntilEnd || fixedLengths[index] > length)) {
+            return false;
+        }
+
+        for (int separator = 0; separator < separatorPositions[index].length; separator++) {
+            int position = start + separatorPositions[index][separator];
+            if (position >= text.length() || text.charAt(position) != separators[index][separator]) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    // counts a hit of the formatter at the passed index and moves it ahead of formatters with less hits
+    private void countHit(final int index) {
+
+        if (++hitCounts[index] == MAX_HIT_COUNT) {
+            for (int other = 0; other < hitCounts.length; other++) {
+                hitCounts[other] >>>= 1;
+            }
+        }
+
+        int position = 0;
+        while (candidateOrder[position] != index) {
+            position++;
+        }
+        while (position > 0 && hitCounts[candidateOrder[position - 1]] < hitCounts[index]) {
+            candidateOrder[position] = candidateOrder[position - 1];
+            position--;
+        }
+        candidateOrder[position] = index;
+
+    }
+
+    // checks, if parsing ended at the end of the text, if required, like the check after parsing
+    private boolean endsProperly(final String text, final int end) {
+        return !parseUntilEnd || end >= text.length() || parseSkipMode.getSkipTailingOffset(text, end) >= text.length();
+    }
+
+    @Override
+    protected T parseText(String text, ParsePosition contextParsePosition) {
+
+        int start = contextParsePosition.getIndex();
+
+        // formatters fitting the text first, each group in order of descending hit counts
+        int tryCount = 0;
+        for (int index : candidateOrder) {
+            if (fits(index, text, start)) {
+                tryOrder[tryCount++] = index;
+            }
+        }
+        for (int index : candidateOrder) {
+            if (!fits(index, text, start)) {
+                tryOrder[tryCount++] = index;
+            }
+        }
+
+        lastMatchedIndex = -1;
+        DateTimeException resolveException = null;
+
+        for (int tryIndex = 0; tryIndex < tryCount; tryIndex++) {
+
+            int index = tryOrder[tryIndex];
+            candidateParsePosition.setIndex(start);
+            candidateParsePosition.setErrorIndex(-1);
+
+            T result;
+            try {
+                result = candidates.get(index).parseCandidate(text, candidateParsePosition);
+            } catch (DateTimeException dateTimeException) {
+                // matching, but not resolvable, is reported, if no other formatter matches
+                if (resolveException == null) {
+                    resolveException = dateTimeException;
+                }
+                continue;
+            }
+
+            if (result != null && endsProperly(text, candidateParsePosition.getIndex())) {
+                lastMatchedIndex = index;
+                countHit(index);
+                contextParsePosition.setIndex(candidateParsePosition.getIndex());
+                return result;
+            }
+
+        }
+
+        if (resolveException != null) {
+            throw resolveException;
+        }
+
+        // no formatter matches: the error of the most likely formatter is reported
+        return candidates.get(tryOrder[0]).parseText(text, contextParsePosition);
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format logic ****************************** */
+
+    @Override protected String formatObject(final T object) {
+        return candidates.get(0).formatObject(object);
+    }
+
+    @Override protected boolean formatObjectTo(final T object, final StringBuilder stringBuilder) {
+        return candidates.get(0).formatObjectTo(object, stringBuilder);
+    }
+
+}
@@ -20,7 +20,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.ParsePosition;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,12 +46,29 @@ import java.util.regex.Pattern;
 // T can be one of Byte, Short, Integer, Long, Float, Double, BigInteger, BigDecimal
 public class NumberFormatter<T extends Number> extends Formatter<T, NumberFormatter<T>> {
 
+    /** Default lowest integer value formatted by table lookup */
+    public static final int DEFAULT_FORMAT_TABLE_MIN = -128;
+    /** Default highest integer value formatted by table lookup */
+    public static final int DEFAULT_FORMAT_TABLE_MAX = 1023;
+
+    // maximum number of values of a format table and of cached format tables, the cache is cleared, if exceeded
+    private static final int MAX_FORMAT_TABLE_SIZE = 1 << 16;
+    private static final int MAX_FORMAT_TABLES = 256;
+
+    // format tables shared by all formatters with an equal DecimalFormat and range, filled on demand
+    private static final Map<List<Object>, String[]> FORMAT_TABLES = new ConcurrentHashMap<>();
+
     // final, because it is characteristic for the formatter it should not be changeable
     final private Class<T> numberClassT;
     // reference to BigDecimal method to cast to T (used by cast())
     final private Function<BigDecimal, ?> castMethod;
     final private DecimalFormat decimalFormat;
 
+    // formatted integer values from formatTableMin by value, derived by init(), null if there is no table
+    private int formatTableMin = DEFAULT_FORMAT_TABLE_MIN;
+    private int formatTableMax = DEFAULT_FORMAT_TABLE_MAX;
+    private String[] formatTable;
+
     /* ************************************************************************** */
     /* ****************************** constructors ****************************** */
     /* ************************************************************************** */
@@ -70,6 +91,8 @@ public class NumberFormatter<T extends Number> extends Formatter<T, NumberFormat
             throw new IllegalArgumentException(numberClassT.getName() + " not supported");
         }
 
+        init();
+
     }
 
     /* ************************************************************************** */
@@ -78,6 +101,12 @@ public class NumberFormatter<T extends Number> extends Formatter<T, NumberFormat
 
     /* ***************************** common getter ****************************** */
 
+    /**
+     * Returns the class of the numbers parsed and formatted
+     * @return the number class
+     */
+    public Class<T> getNumberClass() { return numberClassT; }
+
     /**
      * Returns a clone of the used DecimalFormat
      * @return internal DecimalFormat
@@ -108,11 +137,35 @@ public class NumberFormatter<T extends Number> extends Formatter<T, NumberFormat
     }
 
     @Override protected NumberFormatter<T> init() {
+
+        renewParseConfigurationStamp();
+
+        // integer types only, formatting them does not depend on the rounding mode
+        if (formatTableMin > formatTableMax || !(numberClassT == Byte.class || numberClassT == Short.class
+            || numberClassT == Integer.class || numberClassT == Long.class)) {
+            formatTable = null;
+            return this;
+        }
+
+        List<Object> key = Arrays.asList(decimalFormat.clone(), formatTableMin, formatTableMax);
+        String[] table = FORMAT_TABLES.get(key);
+        if (table == null) {
+            if (FORMAT_TABLES.size() >= MAX_FORMAT_TABLES) {
+                FORMAT_TABLES.clear();
+            }
+            table = FORMAT_TABLES.computeIfAbsent(key, k -> new String[formatTableMax - formatTableMin + 1]);
+        }
+        formatTable = table;
+
         return this;
+
     }
 
     @Override protected NumberFormatter<T> copyProperties(NumberFormatter<T> sourceFormatter) {
-        return super.copyProperties(sourceFormatter).setParseRoundingMode(this.getParseRoundingMode());
+        // reinitializing setters first, so the parse configuration stamp is copied last
+        setParseRoundingMode(sourceFormatter.getParseRoundingMode())
+            .setFormatTableRange(sourceFormatter.formatTableMin, sourceFormatter.formatTableMax);
+        return super.copyProperties(sourceFormatter);
     }
 
     // instantiates a new Formatter with same local and formatPattern
@@ -186,11 +239,51 @@ public class NumberFormatter<T extends Number> extends Formatter<T, NumberFormat
     /* ******************************* formatting ******************************* */
     /* ************************************************************************** */
 
+    /* ****************************** format setter ***************************** */
+
+    /**
+     * Sets the range of integer values, which are formatted once per pattern and locale and looked up afterwards.
+     * Applies to formatters of Byte, Short, Integer and Long only.
+     * @param formatTableMin lowest value of the range
+     * @param formatTableMax highest value of the range or less than the lowest one to look up no values
+     * @return this formatter
+     */
+    public NumberFormatter<T> setFormatTableRange(final int formatTableMin, final int formatTableMax) {
+        if (formatTableMin <= formatTableMax && (long) formatTableMax - formatTableMin >= MAX_FORMAT_TABLE_SIZE) {
+            throw new IllegalArgumentException("range " + formatTableMin + ".." + formatTableMax + " not supported");
+        }
+        this.formatTableMin = formatTableMin;
+        this.formatTableMax = formatTableMax;
+        return init();
+    }
+
+    /* ****************************** format getter ***************************** */
+
+    public int getFormatTableMin() { return formatTableMin; }
+
+    public int getFormatTableMax() { return formatTableMax; }
+
     /* ****************************** format logic ****************************** */
 
     @Override
     protected String formatObject(final T object) {
+
+        if (formatTable != null) {
+            long value = object.longValue();
+            if (value >= formatTableMin && value <= formatTableMax) {
+                int index = (int) (value - formatTableMin);
+                String text = formatTable[index];
+                if (text == null) {
+                    // strings are immutable, so racing formatters store equal ones safely
+                    text = decimalFormat.format(value);
+                    formatTable[index] = text;
+                }
+                return text;
+            }
+        }
+
         return decimalFormat.format(object);
+
     }
 
 }
\ No newline at end of file
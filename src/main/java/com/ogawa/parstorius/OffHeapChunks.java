@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable off-heap storage organized in chunks of equal size, which are either direct byte buffers or regions of a
+ * spill file mapped into memory. Fixed-width values are addressed by a byte offset, which never crosses a chunk
+ * boundary as long as the chunk size is a multiple of the value size.
+ */
+class OffHeapChunks {
+
+    final private int chunkShift;
+    final private int chunkMask;
+    final private FileChannel spillChannel;
+    final private List<ByteBuffer> chunks;
+
+    /**
+     * Constructs new chunk storage
+     * @param chunkShift log2 of the chunk size in bytes
+     * @param spillChannel channel of the spill file to map the chunks from or null to allocate direct buffers
+     */
+    OffHeapChunks(final int chunkShift, final FileChannel spillChannel) {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.spillChannel = spillChannel;
+        this.chunks = new ArrayList<>();
+    }
+
+    int getChunkSize() { return 1 << chunkShift; }
+
+    int getChunkCount() { return chunks.size(); }
+
+    long getAllocatedBytes() { return (long) chunks.size() << chunkShift; }
+
+    /**
+     * Returns a read-only view of the chunk sharing its memory
+     * @param index chunk index
+     * @return read-only view in native byte order
+     */
+    ByteBuffer getChunkView(final int index) {
+        return chunks.get(index).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Allocates a new chunk of the passed size at the end of the storage. Only the last chunk may be larger than
+     * the chunk size, because offsets beyond it are not addressable by shift.
+     * @param size size of the new chunk in bytes
+     * @return the new chunk
+     */
+    ByteBuffer allocateChunk(final int size) {
+
+        ByteBuffer chunk;
+
+        if (spillChannel == null) {
+            chunk = ByteBuffer.allocateDirect(size);
+        } else {
+            synchronized (spillChannel) {
+                try {
+                    chunk = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillChannel.size(), size);
+                } catch (IOException ioException) {
+                    throw new UncheckedIOException(ioException);
+                }
+            }
+        }
+
+        chunk.order(ByteOrder.nativeOrder());
+        chunks.add(chunk);
+        return chunk;
+
+    }
+
+    ByteBuffer getChunk(final int index) { return chunks.get(index); }
+
+    // returns the chunk containing the passed offset, allocating it if necessary
+    private ByteBuffer chunkFor(final long offset) {
+        int index = (int) (offset >>> chunkShift);
+        while (index >= chunks.size()) {
+            allocateChunk(1 << chunkShift);
+        }
+        return chunks.get(index);
+    }
+
+    void putByte(final long offset, final byte value) { chunkFor(offset).put((int) offset & chunkMask, value); }
+
+    byte getByte(final long offset) { return chunks.get((int) (offset >>> chunkShift)).get((int) offset & chunkMask); }
+
+    void putInt(final long offset, final int value) { chunkFor(offset).putInt((int) offset & chunkMask, value); }
+
+    int getInt(final long offset) { return chunks.get((int) (offset >>> chunkShift)).getInt((int) offset & chunkMask); }
+
+    void putLong(final long offset, final long value) { chunkFor(offset).putLong((int) offset & chunkMask, value); }
+
+    long getLong(final long offset) {
+        return chunks.get((int) (offset >>> chunkShift)).getLong((int) offset & chunkMask);
+    }
+
+    void putDouble(final long offset, final double value) {
+        chunkFor(offset).putDouble((int) offset & chunkMask, value);
+    }
+
+    double getDouble(final long offset) {
+        return chunks.get((int) (offset >>> chunkShift)).getDouble((int) offset & chunkMask);
+    }
+
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.chrono.ChronoLocalDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.time.temporal.ChronoField;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sink collecting parsed rows column by column off the Java heap. Numbers are stored as fixed-width primitives,
+ * dates as epoch days, timestamps as epoch nanos and texts UTF-8 encoded in an offset+data layout. The storage is
+ * organized in chunks of direct byte buffers or, for datasets larger than memory, of regions of a spill file
+ * mapped into memory. Readers can scan the chunks through read-only views without copying.
+ * Each row of a column has a state byte holding the ordinal of its {@link PARSE_RESULT_CAUSE} and
+ * {@link #VALUE_PRESENT_FLAG}, if the formatter returned a non-null result. A result not convertible to the type
+ * of the column, e.g. a timestamp out of the range of epoch nanos, is recorded as {@link PARSE_RESULT_CAUSE#ERROR}
+ * without value.
+ * The sink is stateful and not thread-safe, like the formatters of its columns.
+ */
+@SuppressWarnings("unused")
+public class OffHeapColumnarSink implements Closeable {
+
+    public static final int DEFAULT_CHUNK_SHIFT = 20; // 1 MiB
+    public static final byte VALUE_PRESENT_FLAG = (byte) 0x80;
+
+    final private int chunkShift;
+    final private FileChannel spillChannel;
+    final private List<Column> columns;
+    private long rowCount;
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Constructs a new sink allocating its chunks as direct byte buffers
+     */
+    public OffHeapColumnarSink() {
+        this.chunkShift = DEFAULT_CHUNK_SHIFT;
+        this.spillChannel = null;
+        this.columns = new ArrayList<>();
+        this.rowCount = 0;
+    }
+
+    /**
+     * Constructs a new sink mapping its chunks from the passed spill file, which is created or truncated
+     * @param spillFile path of the spill file
+     * @throws IOException if the spill file cannot be opened
+     */
+    public OffHeapColumnarSink(final Path spillFile) throws IOException {
+        Objects.requireNonNull(spillFile, "spillFile");
+        this.chunkShift = DEFAULT_CHUNK_SHIFT;
+        this.spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.columns = new ArrayList<>();
+        this.rowCount = 0;
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* columns ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Abstract super class of all columns holding the state bytes of the rows
+     */
+    public static abstract class Column {
+
+        final Formatter<?, ?> formatter;
+        final OffHeapChunks states;
+        final OffHeapChunks values;
+        final int valueShift;
+        long size;
+
+        Column(final Formatter<?, ?> formatter, final OffHeapColumnarSink sink, final int valueShift) {
+            this.formatter = Objects.requireNonNull(formatter, "formatter");
+            this.states = new OffHeapChunks(sink.chunkShift, sink.spillChannel);
+            this.values = new OffHeapChunks(sink.chunkShift, sink.spillChannel);
+            this.valueShift = valueShift;
+            this.size = 0;
+        }
+
+        /**
+         * Converts the non-null parse result and stores it at the passed row, which is left unchanged on failure
+         * @param row row index
+         * @param value parse result
+         * @return true, if the value was stored, false, if it is not convertible
+         */
+        abstract boolean storeValue(long row, Object value);
+
+        void append(final String text) {
+
+            Object value = formatter.parse(text);
+            byte state = (byte) formatter.getLastParseResultCause().ordinal();
+            // the value is stored before the state, so a failed conversion leaves no partial row
+            if (value != null && !storeValue(size, value)) {
+                value = null;
+                state = (byte) PARSE_RESULT_CAUSE.ERROR.ordinal();
+            }
+
+            if (value != null) {
+                state |= VALUE_PRESENT_FLAG;
+            } else {
+                // keep the value chunks in step with the rows, new chunks are zeroed
+                values.putByte(size << valueShift, (byte) 0);
+            }
+            states.putByte(size, state);
+            size++;
+
+        }
+
+        long checkRow(final long row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("row " + row + " out of bounds for size " + size);
+            }
+            return row;
+        }
+
+        public Formatter<?, ?> getFormatter() { return formatter; }
+
+        /**
+         * Returns the number of rows in the column
+         * @return number of rows
+         */
+        public long size() { return size; }
+
+        /**
+         * Returns if the row has no value, because parsing resulted in null
+         * @param row row index
+         * @return true, if the row has no value
+         */
+        public boolean isNull(final long row) {
+            return (states.getByte(checkRow(row)) & VALUE_PRESENT_FLAG) == 0;
+        }
+
+        /**
+         * Returns the cause of the parse result of the row
+         * @param row row index
+         * @return parse result cause
+         */
+        public PARSE_RESULT_CAUSE getParseResultCause(final long row) {
+            return PARSE_RESULT_CAUSE.values()[states.getByte(checkRow(row)) & ~VALUE_PRESENT_FLAG];
+        }
+
+        /**
+         * Returns the number of chunks of the state bytes, each containing the states of {@link #getRowsPerStateChunk()}
+         * rows
+         * @return number of chunks
+         */
+        public int getStateChunkCount() { return states.getChunkCount(); }
+
+        /**
+         * Returns the number of rows, whose states are stored per chunk
+         * @return rows per chunk
+         */
+        public int getRowsPerStateChunk() { return states.getChunkSize(); }
+
+        /**
+         * Returns a read-only view without copying of the state bytes stored in the chunk. The chunk with index i
+         * contains the rows i * getRowsPerStateChunk() up to (i + 1) * getRowsPerStateChunk() - 1
+         * @param chunkIndex index of the chunk
+         * @return view in native byte order
+         */
+        public ByteBuffer getStateChunk(final int chunkIndex) { return states.getChunkView(chunkIndex); }
+
+        /**
+         * Returns the number of chunks of the fixed-width values, each containing the values of
+         * {@link #getRowsPerValueChunk()} rows
+         * @return number of chunks
+         */
+        public int getValueChunkCount() { return values.getChunkCount(); }
+
+        /**
+         * Returns the number of rows, whose fixed-width values are stored per chunk
+         * @return rows per chunk
+         */
+        public int getRowsPerValueChunk() { return values.getChunkSize() >>> valueShift; }
+
+        /**
+         * Returns a read-only view without copying of the fixed-width values stored in the chunk. The chunk with
+         * index i contains the rows i * getRowsPerValueChunk() up to (i + 1) * getRowsPerValueChunk() - 1
+         * @param chunkIndex index of the chunk
+         * @return view in native byte order
+         */
+        public ByteBuffer getValueChunk(final int chunkIndex) { return values.getChunkView(chunkIndex); }
+
+        /**
+         * Returns the number of bytes allocated by the column
+         * @return allocated bytes
+         */
+        public long getAllocatedBytes() { return states.getAllocatedBytes() + values.getAllocatedBytes(); }
+
+    }
+
+    /**
+     * Column of integral numbers stored as long
+     */
+    public static class LongColumn extends Column {
+
+        LongColumn(final NumberFormatter<?> formatter, final OffHeapColumnarSink sink) { super(formatter, sink, 3); }
+
+        @Override boolean storeValue(final long row, final Object value) {
+            try {
+                values.putLong(row << 3, ColumnarSink.toLong((Number) value));
+                return true;
+            } catch (ArithmeticException exception) {
+                return false;
+            }
+        }
+
+        public long getLong(final long row) { return values.getLong(checkRow(row) << 3); }
+
+    }
+
+    /**
+     * Column of floating point numbers stored as double
+     */
+    public static class DoubleColumn extends Column {
+
+        DoubleColumn(final NumberFormatter<?> formatter, final OffHeapColumnarSink sink) { super(formatter, sink, 3); }
+
+        @Override boolean storeValue(final long row, final Object value) {
+            values.putDouble(row << 3, ((Number) value).doubleValue());
+            return true;
+        }
+
+        public double getDouble(final long row) { return values.getDouble(checkRow(row) << 3); }
+
+    }
+
+    /**
+     * Column of dates stored as epoch day (int)
+     */
+    public static class EpochDayColumn extends Column {
+
+        EpochDayColumn(final TemporalAccessorFormatter<?> formatter, final OffHeapColumnarSink sink) {
+            super(formatter, sink, 2);
+        }
+
+        @Override boolean storeValue(final long row, final Object value) {
+            try {
+                values.putInt(row << 2, ColumnarSink.toEpochDay((TemporalAccessor) value));
+                return true;
+            } catch (DateTimeException | ArithmeticException exception) {
+                return false;
+            }
+        }
+
+        public int getEpochDay(final long row) { return values.getInt(checkRow(row) << 2); }
+
+    }
+
+    /**
+     * Column of timestamps stored as nanos since the epoch (long). Temporals without offset or zone are taken as UTC.
+     */
+    public static class EpochNanoColumn extends Column {
+
+        EpochNanoColumn(final TemporalAccessorFormatter<?> formatter, final OffHeapColumnarSink sink) {
+            super(formatter, sink, 3);
+        }
+
+        @Override boolean storeValue(final long row, final Object value) {
+
+            long epochNano;
+            try {
+                TemporalAccessor temporal = (TemporalAccessor) value;
+                long epochSecond = temporal.isSupported(ChronoField.INSTANT_SECONDS)
+                    ? temporal.getLong(ChronoField.INSTANT_SECONDS)
+                    : Math.addExact(Math.multiplyExact(temporal.getLong(ChronoField.EPOCH_DAY), 86_400L),
+                        temporal.getLong(ChronoField.SECOND_OF_DAY));
+                epochNano = Math.addExact(Math.multiplyExact(epochSecond, 1_000_000_000L),
+                    temporal.getLong(ChronoField.NANO_OF_SECOND));
+            } catch (DateTimeException | ArithmeticException exception) {
+                return false;
+            }
+
+            values.putLong(row << 3, epochNano);
+            return true;
+
+        }
+
+        public long getEpochNano(final long row) { return values.getLong(checkRow(row) << 3); }
+
+    }
+
+    /**
+     * Column of texts stored UTF-8 encoded. The fixed-width values are the addresses of the texts, which are the
+     * chunk index of the data in the upper and the offset in that chunk in the lower 32 bit, and the data chunks
+     * contain the encoded texts each prefixed by its length as int.
+     */
+    public static class StringColumn extends Column {
+
+        final OffHeapChunks data;
+        private ByteBuffer dataChunk;
+
+        StringColumn(final Formatter<? extends CharSequence, ?> formatter, final OffHeapColumnarSink sink) {
+            super(formatter, sink, 3);
+            this.data = new OffHeapChunks(sink.chunkShift, sink.spillChannel);
+        }
+
+        private static int getEncodedLength(final CharSequence text) {
+            int length = 0;
+            for (int index = 0; index < text.length(); index++) {
+                char c = text.charAt(index);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                    length += 4;
+                    index++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        private static void encode(final CharSequence text, final ByteBuffer target) {
+            for (int index = 0; index < text.length(); index++) {
+                char c = text.charAt(index);
+                if (c < 0x80) {
+                    target.put((byte) c);
+                } else if (c < 0x800) {
+                    target.put((byte) (0xC0 | (c >> 6)));
+                    target.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++index));
+                    target.put((byte) (0xF0 | (codePoint >> 18)));
+                    target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    target.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired surrogate is encoded as '?' like String.getBytes does
+                    target.put((byte) '?');
+                    target.put((byte) '?');
+                    target.put((byte) '?');
+                } else {
+                    target.put((byte) (0xE0 | (c >> 12)));
+                    target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    target.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        @Override boolean storeValue(final long row, final Object value) {
+
+            CharSequence text = (CharSequence) value;
+            int length = getEncodedLength(text);
+
+            // a text never spans chunks, oversized texts get a chunk of their own
+            if (dataChunk == null || dataChunk.remaining() < length + Integer.BYTES) {
+                dataChunk = data.allocateChunk(Math.max(data.getChunkSize(), length + Integer.BYTES));
+            }
+
+            long address = ((long) (data.getChunkCount() - 1) << 32) | dataChunk.position();
+            dataChunk.putInt(length);
+            encode(text, dataChunk);
+            values.putLong(row << 3, address);
+            return true;
+
+        }
+
+        /**
+         * Returns a read-only view without copying of the UTF-8 encoded text of the row or null, if the row
+         * has no value
+         * @param row row index
+         * @return view of the encoded text
+         */
+        public ByteBuffer getUtf8(final long row) {
+            if (isNull(row)) {
+                return null;
+            }
+            long address = values.getLong(row << 3);
+            ByteBuffer view = data.getChunkView((int) (address >>> 32));
+            int offset = (int) address;
+            int length = view.getInt(offset);
+            return view.position(offset + Integer.BYTES).limit(offset + Integer.BYTES + length).slice();
+        }
+
+        /**
+         * Returns the text of the row decoded into a new string or null, if the row has no value
+         * @param row row index
+         * @return text of the row
+         */
+        public String getString(final long row) {
+            ByteBuffer utf8 = getUtf8(row);
+            return utf8 == null ? null : StandardCharsets.UTF_8.decode(utf8).toString();
+        }
+
+        @Override public long getAllocatedBytes() { return super.getAllocatedBytes() + data.getAllocatedBytes(); }
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    // throws IllegalArgumentException for temporals without date and time, like ColumnarSink.checkEpochDay()
+    private static <F extends TemporalAccessorFormatter<?>> F checkEpochSecond(final F formatter) {
+        Class<?> temporalClass = Objects.requireNonNull(formatter, "formatter").getTemporalAccessorClass();
+        if (temporalClass != TemporalAccessor.class && temporalClass != Temporal.class
+            && !Instant.class.isAssignableFrom(temporalClass)
+            && !ChronoLocalDateTime.class.isAssignableFrom(temporalClass)
+            && !ChronoZonedDateTime.class.isAssignableFrom(temporalClass)
+            && !OffsetDateTime.class.isAssignableFrom(temporalClass)) {
+            throw new IllegalArgumentException(temporalClass.getName() + " not supported");
+        }
+        return formatter;
+    }
+
+    private <C extends Column> C addColumn(final C column) {
+        if (rowCount > 0) {
+            throw new IllegalStateException("columns must be added before the first row");
+        }
+        columns.add(column);
+        return column;
+    }
+
+    public LongColumn addLongColumn(final NumberFormatter<?> formatter) {
+        return addColumn(new LongColumn(ColumnarSink.checkIntegral(formatter), this));
+    }
+
+    public DoubleColumn addDoubleColumn(final NumberFormatter<?> formatter) {
+        return addColumn(new DoubleColumn(formatter, this));
+    }
+
+    public EpochDayColumn addEpochDayColumn(final TemporalAccessorFormatter<?> formatter) {
+        return addColumn(new EpochDayColumn(ColumnarSink.checkEpochDay(formatter), this));
+    }
+
+    public EpochNanoColumn addEpochNanoColumn(final TemporalAccessorFormatter<?> formatter) {
+        return addColumn(new EpochNanoColumn(checkEpochSecond(formatter), this));
+    }
+
+    public StringColumn addStringColumn(final Formatter<? extends CharSequence, ?> formatter) {
+        return addColumn(new StringColumn(formatter, this));
+    }
+
+    /**
+     * Returns the column at the passed index
+     * @param index column index
+     * @return the column
+     */
+    public Column getColumn(final int index) { return columns.get(index); }
+
+    /**
+     * Returns the number of columns
+     * @return number of columns
+     */
+    public int getColumnCount() { return columns.size(); }
+
+    /**
+     * Returns the number of rows appended
+     * @return number of rows
+     */
+    public long getRowCount() { return rowCount; }
+
+    /**
+     * Returns the number of off-heap bytes allocated by all columns
+     * @return allocated bytes
+     */
+    public long getAllocatedBytes() {
+        long allocatedBytes = 0;
+        for (Column column : columns) {
+            allocatedBytes += column.getAllocatedBytes();
+        }
+        return allocatedBytes;
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Parses the passed texts and appends them as a row. Texts beyond the number of columns are ignored, missing
+     * texts are parsed as null.
+     * @param texts texts in order of the columns
+     * @return the sink instance
+     */
+    public OffHeapColumnarSink appendRow(final String... texts) {
+
+        for (int index = 0; index < columns.size(); index++) {
+            columns.get(index).append(texts != null && index < texts.length ? texts[index] : null);
+        }
+        rowCount++;
+
+        return this;
+
+    }
+
+    /**
+     * Closes the spill file. Direct and mapped chunks are released by the garbage collector, when the sink and
+     * all views of its chunks are no longer referenced.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override public void close() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+        }
+    }
+
+}
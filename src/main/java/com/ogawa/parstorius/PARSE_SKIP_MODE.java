@@ -24,48 +24,58 @@ public enum PARSE_SKIP_MODE {
   /**
    * does not skip
    */
-  NO_SKIP(String::toString, StringUtil.skipZeroFunction, StringUtil.skipZeroFunction),
+  NO_SKIP(String::toString, StringUtil.skipZeroFunction, StringUtil.skipZeroFunction,
+      StringUtil.skipNoneEndFunction),
 
   /**
    * skips trailing spaces
    */
-  TRAILING_SPACES(StringUtil::trimTrailing, StringUtil.skipZeroFunction, StringUtil.skipAllTrailingSpacesFunction),
+  TRAILING_SPACES(StringUtil::trimTrailing, StringUtil.skipZeroFunction, StringUtil.skipAllTrailingSpacesFunction,
+      StringUtil.skipTrailingSpacesEndFunction),
 
   /**
    * skips leading spaces
    */
-  LEADING_SPACES(StringUtil::trimLeading, StringUtil.skipAllTrailingSpacesFunction, StringUtil.skipZeroFunction),
+  LEADING_SPACES(StringUtil::trimLeading, StringUtil.skipAllTrailingSpacesFunction, StringUtil.skipZeroFunction,
+      StringUtil.skipNoneEndFunction),
 
   /**
    * skips leading and trailing spaces
    */
-  SPACES(String::toString, StringUtil.skipAllTrailingSpacesFunction, StringUtil.skipAllTrailingSpacesFunction),
+  SPACES(String::toString, StringUtil.skipAllTrailingSpacesFunction, StringUtil.skipAllTrailingSpacesFunction,
+      StringUtil.skipTrailingSpacesEndFunction),
 
   /**
    * skips leading whitespaces
    */
-  LEADING_WHITESPACES(String::stripLeading, StringUtil.skipAllTrailingWhiteSpacesFunction, StringUtil.skipZeroFunction),
+  LEADING_WHITESPACES(String::stripLeading, StringUtil.skipAllTrailingWhiteSpacesFunction, StringUtil.skipZeroFunction,
+      StringUtil.skipNoneEndFunction),
 
   /**
    * skips trailing whitespaces
    */
-  TRAILING_WHITESPACES(String::stripTrailing, StringUtil.skipZeroFunction, StringUtil.skipAllTrailingWhiteSpacesFunction),
+  TRAILING_WHITESPACES(String::stripTrailing, StringUtil.skipZeroFunction, StringUtil.skipAllTrailingWhiteSpacesFunction,
+      StringUtil.skipTrailingWhiteSpacesEndFunction),
 
   /**
    * skips leading and trailing whitespaces
    */
-  WHITESPACES(String::strip, StringUtil.skipAllTrailingWhiteSpacesFunction, StringUtil.skipAllTrailingWhiteSpacesFunction);
+  WHITESPACES(String::strip, StringUtil.skipAllTrailingWhiteSpacesFunction, StringUtil.skipAllTrailingWhiteSpacesFunction,
+      StringUtil.skipTrailingWhiteSpacesEndFunction);
 
   final private UnaryOperator<String> trimOperator;
   final private BiFunction<String, Integer, Integer> skipLeadingFunction;
   final private BiFunction<String, Integer, Integer> skipTrailingFunction;
+  final private StringUtil.IndexFunction trailingSkippedEndFunction;
 
   PARSE_SKIP_MODE(final UnaryOperator<String> trimOperator,
       final BiFunction<String, Integer, Integer> skipLeadingFunction,
-      final BiFunction<String, Integer, Integer> skipTrailingFunction) {
+      final BiFunction<String, Integer, Integer> skipTrailingFunction,
+      final StringUtil.IndexFunction trailingSkippedEndFunction) {
     this.trimOperator = trimOperator;
     this.skipLeadingFunction = skipLeadingFunction;
     this.skipTrailingFunction = skipTrailingFunction;
+    this.trailingSkippedEndFunction = trailingSkippedEndFunction;
   }
 
   /**
@@ -93,4 +103,15 @@ public enum PARSE_SKIP_MODE {
    */
   public int getSkipTailingOffset(String text, int startIndex) { return skipTrailingFunction.apply(text, startIndex); }
 
+  /**
+   * Returns the end of the passed text without its trailing (white)spaces with regard to the skip mode, but not
+   * before the passed start index
+   * @param text string
+   * @param startIndex index not to skip beyond
+   * @return resulting end
+   */
+  public int getTrailingSkippedEnd(CharSequence text, int startIndex) {
+    return trailingSkippedEndFunction.apply(text, startIndex);
+  }
+
 }
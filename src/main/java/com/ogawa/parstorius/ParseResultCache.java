@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the results of parsing texts, e.g. of columns repeating few dates or prices, which skips costly
+ * parses of repeated texts. A formatter with a cache looks up the rest of the text from the parse position before
+ * parsing and replays the result, the end position and the error of a hit. Null texts, missing values, defaults
+ * and the check of parsing until the end are applied as usual, so the cache holds the results of the text parsing
+ * only. Results are keyed by the rest of the text and the stamp of the formatter's parse configuration, which
+ * is renewed on each change of the configuration, so a reconfigured formatter does not replay stale results.
+ * Results must be immutable.
+ * <p>
+ * The cache is two-way set associative and admits a new text only, if it was looked up more frequently than the
+ * text it would evict (TinyLFU). Frequencies are estimated by a count-min sketch of 4 rows of byte counters, which
+ * are halved periodically, so the cache follows shifts of the frequent texts. The cache is safe to share between
+ * threads: entries are immutable and replaced without locking, racing sketch updates only blur the estimates.
+ * Formatters hit the results of each other only with equal stamps, i.e. a formatter and its clones configured
+ * alike.
+ */
+public final class ParseResultCache {
+
+    // immutable result of parsing the rest of a text
+    static final class Entry {
+
+        final private String key;
+        final private int hash;
+        final private int configurationStamp;
+        final Object result;
+        // positions relative to the start of the key, error offset -1 without an error
+        final int endOffset;
+        final int errorOffset;
+        final Exception exception;
+
+        private Entry(final String key, final int hash, final int configurationStamp, final Object result,
+            final int endOffset, final int errorOffset, final Exception exception) {
+            this.key = key;
+            this.hash = hash;
+            this.configurationStamp = configurationStamp;
+            this.result = result;
+            this.endOffset = endOffset;
+            this.errorOffset = errorOffset;
+            this.exception = exception;
+        }
+
+    }
+
+    private static final int SKETCH_ROWS = 4;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int[] SKETCH_SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+    final private Entry[] entries;
+    final private int setMask;
+
+    final private byte[] sketch;
+    final private int sketchMask;
+    final private int sampleSize;
+    private int sampleCount;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Constructs a new cache
+     * @param capacity maximum number of results kept, rounded up to a power of two (at least 2)
+     */
+    public ParseResultCache(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("capacity " + capacity + " not supported");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.entries = new Entry[size];
+        this.setMask = (size >>> 1) - 1;
+        this.sketch = new byte[size * SKETCH_ROWS];
+        this.sketchMask = size - 1;
+        this.sampleSize = size * 10;
+    }
+
+    public int getCapacity() { return entries.length; }
+
+    public long getHitCount() { return hitCount.sum(); }
+
+    public long getMissCount() { return missCount.sum(); }
+
+    public long getEvictionCount() { return evictionCount.sum(); }
+
+    /* ************************************************************************** */
+    /* ******************************** frequency ******************************* */
+    /* ************************************************************************** */
+
+    private int sketchIndex(final int hash, final int row) {
+        int rowHash = (hash ^ SKETCH_SEEDS[row]) * 0x01000193;
+        return row * (sketchMask + 1) + ((rowHash ^ (rowHash >>> 15)) & sketchMask);
+    }
+
+    // estimated frequency as minimum of the counters of the rows
+    private int frequency(final int hash) {
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SKETCH_ROWS; row++) {
+            frequency = Math.min(frequency, sketch[sketchIndex(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void increment(final int hash) {
+
+        for (int row = 0; row < SKETCH_ROWS; row++) {
+            int index = sketchIndex(hash, row);
+            if (sketch[index] < MAX_FREQUENCY) {
+                sketch[index]++;
+            }
+        }
+
+        // ages the frequencies, so texts frequent long ago can be evicted
+        if (++sampleCount >= sampleSize) {
+            sampleCount = 0;
+            for (int index = 0; index < sketch.length; index++) {
+                sketch[index] >>= 1;
+            }
+        }
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* lookups ******************************** */
+    /* ************************************************************************** */
+
+    // hash of the rest of the text like String.hashCode()
+    static int hash(final String text, final int start) {
+        int hash = 0;
+        for (int position = start; position < text.length(); position++) {
+            hash = 31 * hash + text.charAt(position);
+        }
+        return hash;
+    }
+
+    private int firstSlot(final int hash) {
+        return ((hash ^ (hash >>> 16)) & setMask) << 1;
+    }
+
+    private static boolean matches(final Entry entry, final int hash, final int configurationStamp,
+        final String text, final int start) {
+        return entry != null && entry.hash == hash && entry.configurationStamp == configurationStamp
+            && entry.key.length() == text.length() - start
+            && text.regionMatches(start, entry.key, 0, entry.key.length());
+    }
+
+    /**
+     * Looks up the result of parsing the rest of a text and counts the lookup
+     * @param text text
+     * @param start parse position
+     * @param hash hash of the rest of the text by {@link #hash(String, int)}
+     * @param configurationStamp stamp of the parse configuration of the formatter
+     * @return the entry or null on a miss
+     */
+    Entry get(final String text, final int start, final int hash, final int configurationStamp) {
+
+        increment(hash);
+
+        int slot = firstSlot(hash);
+        Entry entry = entries[slot];
+        if (!matches(entry, hash, configurationStamp, text, start)) {
+            entry = entries[slot + 1];
+            if (!matches(entry, hash, configurationStamp, text, start)) {
+                missCount.increment();
+                return null;
+            }
+        }
+
+        hitCount.increment();
+        return entry;
+
+    }
+
+    /**
+     * Offers the result of parsing the rest of a text, which is admitted, if a slot of its set is free or it is
+     * more frequent than the less frequent text of the set
+     * @param text text
+     * @param start parse position
+     * @param hash hash of the rest of the text by {@link #hash(String, int)}
+     * @param configurationStamp stamp of the parse configuration of the formatter
+     * @param result result of the parsing
+     * @param end end position of the parsing
+     * @param errorIndex error index of the parsing or -1
+     * @param exception exception raised on parsing or null
+     */
+    void put(final String text, final int start, final int hash, final int configurationStamp, final Object result,
+        final int end, final int errorIndex, final Exception exception) {
+
+        int slot = firstSlot(hash);
+        Entry first = entries[slot];
+        Entry second = entries[slot + 1];
+
+        int victimSlot;
+        if (first == null) {
+            victimSlot = slot;
+        } else if (second == null) {
+            victimSlot = slot + 1;
+        } else {
+            int firstFrequency = frequency(first.hash);
+            int secondFrequency = frequency(second.hash);
+            victimSlot = firstFrequency <= secondFrequency ? slot : slot + 1;
+            if (frequency(hash) <= Math.min(firstFrequency, secondFrequency)) {
+                return;
+            }
+            evictionCount.increment();
+        }
+
+        entries[victimSlot] = new Entry(start == 0 ? text : text.substring(start), hash, configurationStamp, result,
+            end - start, errorIndex < 0 ? -1 : errorIndex - start, exception);
+
+    }
+
+    /**
+     * Removes all results and frequencies and resets the counters
+     */
+    public void clear() {
+        Arrays.fill(entries, null);
+        Arrays.fill(sketch, (byte) 0);
+        sampleCount = 0;
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+/**
+ * This enum describes when a formatted value is quoted writing delimited rows.
+ */
+public enum QUOTE_MODE {
+  /**
+   * Values are never quoted. Delimiters, line breaks and escape chars inside a value are prefixed by the escape char.
+   */
+  NEVER,
+  /**
+   * Values are quoted, if they contain a delimiter, a quote char or a line break.
+   */
+  AS_NEEDED,
+  /**
+   * All values are quoted, except the text representing null.
+   */
+  ALWAYS
+}
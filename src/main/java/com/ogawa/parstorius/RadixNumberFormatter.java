@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.math.BigInteger;
+import java.text.ParsePosition;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+// T can be one of: Integer, Long, BigInteger
+
+/**
+ * Formatter of integers in a radix from 2 to 36, e.g. hexadecimal IDs and hashes, octal flags or binary masks.
+ * Numbers can have an optional sign, a prefix like "0x" and are formatted zero padded up to a minimum width.
+ * Digits are decoded and encoded by tables, radixes of powers of two are formatted by shifting. Invalid digits
+ * and overflows are signaled by the error index instead of exceptions. Integers and longs can be handled unsigned,
+ * like {@link Long#toHexString(long)} does.
+ * @param <T> Integer, Long or BigInteger
+ */
+public class RadixNumberFormatter<T extends Number> extends Formatter<T, RadixNumberFormatter<T>> {
+
+    private static final char[] LOWER_DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    final private Class<T> numberClassT;
+    final private int radix;
+
+    private String prefix = "";
+    private boolean unsigned;
+    private int formatWidth;
+    private boolean formatUpperCase;
+
+    // values of the ASCII chars as digits of the radix or -1, derived by init()
+    private final byte[] digitValues = new byte[128];
+    // digits of the radix in the format case, derived by init()
+    private char[] digits;
+    // number of bits per digit, if the radix is a power of two, else 0
+    private final int bitsPerDigit;
+    // maximum magnitudes as unsigned long of the numbers with and without a minus sign, derived by init()
+    private long negativeLimit;
+    private long positiveLimit;
+
+    private final char[] digitBuffer = new char[Long.SIZE];
+    private final StringBuilder formatBuffer = new StringBuilder(Long.SIZE + 8);
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    public RadixNumberFormatter(Class<T> numberClassT, int radix, boolean parseCaseInsensitive,
+        PARSE_SKIP_MODE parseSkipMode, boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+
+        Objects.requireNonNull(numberClassT, "numberClassT");
+
+        if (!(numberClassT.equals(Integer.class) || numberClassT.equals(Long.class)
+            || numberClassT.equals(BigInteger.class))) {
+            throw new IllegalArgumentException(numberClassT.getName() + " not supported");
+        }
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+            throw new IllegalArgumentException("radix " + radix + " not supported");
+        }
+
+        this.numberClassT = numberClassT;
+        this.radix = radix;
+        this.bitsPerDigit = Integer.bitCount(radix) == 1 ? Integer.numberOfTrailingZeros(radix) : 0;
+
+        init();
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* common ********************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** common setter ***************************** */
+
+    /**
+     * Sets the prefix preceding the digits, e.g. "0x". A set prefix is required on parsing and follows the sign.
+     * @param prefix prefix or an empty string for none
+     * @return this formatter
+     */
+    public RadixNumberFormatter<T> setPrefix(final String prefix) {
+        this.prefix = Objects.requireNonNull(prefix, "prefix");
+        return init();
+    }
+
+    /**
+     * Sets, if integers and longs are handled as unsigned, i.e. negative numbers are formatted as their two's
+     * complement and parsed texts must not have a minus sign. BigIntegers are always signed.
+     * @param unsigned true, if unsigned
+     * @return this formatter
+     */
+    public RadixNumberFormatter<T> setUnsigned(final boolean unsigned) {
+        this.unsigned = unsigned;
+        return init();
+    }
+
+    /* ****************************** common getter ***************************** */
+
+    public int getRadix() { return radix; }
+
+    public String getPrefix() { return prefix; }
+
+    public boolean getUnsigned() { return unsigned; }
+
+    /* ****************************** common logic ****************************** */
+
+    @Override public String toString() {
+        return getClass().getSimpleName() + "{" + numberClassT.getSimpleName() + ", radix=" + radix
+            + ", prefix=\"" + prefix + "\"}";
+    }
+
+    @Override protected RadixNumberFormatter<T> init() {
+
+        renewParseConfigurationStamp();
+
+        digits = formatUpperCase ? UPPER_DIGITS : LOWER_DIGITS;
+
+        // letters are accepted in the format case only, if parsing is case-sensitive
+        Arrays.fill(digitValues, (byte) -1);
+        for (int value = 0; value < radix; value++) {
+            digitValues[digits[value]] = (byte) value;
+            if (parseCaseInsensitive) {
+                digitValues[LOWER_DIGITS[value]] = (byte) value;
+                digitValues[UPPER_DIGITS[value]] = (byte) value;
+            }
+        }
+
+        if (numberClassT.equals(Integer.class)) {
+            negativeLimit = unsigned ? 0 : -(long) Integer.MIN_VALUE;
+            positiveLimit = unsigned ? 0xFFFF_FFFFL : Integer.MAX_VALUE;
+        } else {
+            // BigIntegers use the limits of longs for the fast path
+            negativeLimit = unsigned ? 0 : Long.MIN_VALUE;
+            positiveLimit = unsigned ? -1L : Long.MAX_VALUE;
+        }
+
+        return this;
+    }
+
+    @Override public RadixNumberFormatter<T> clone() {
+        RadixNumberFormatter<T> clone = new RadixNumberFormatter<>(numberClassT, radix,
+            getParseCaseInsensitive(), getParseSkipMode(), getParseUntilEnd());
+        clone.prefix = this.prefix;
+        clone.unsigned = this.unsigned;
+        clone.formatWidth = this.formatWidth;
+        clone.formatUpperCase = this.formatUpperCase;
+        // properties are copied last, so the clone shares the parse configuration stamp
+        return clone.init().copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
+    private int digitValue(final String text, final int position) {
+        char c = text.charAt(position);
+        return c < digitValues.length ? digitValues[c] : -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T parseText(String text, ParsePosition contextParsePosition) {
+
+        int position = contextParsePosition.getIndex();
+
+        boolean negative = false;
+        if (position < text.length() && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+            negative = text.charAt(position) == '-';
+            if (negative && unsigned && !numberClassT.equals(BigInteger.class)) {
+                contextParsePosition.setErrorIndex(position);
+                return null;
+            }
+            position++;
+        }
+
+        if (!text.regionMatches(parseCaseInsensitive, position, prefix, 0, prefix.length())) {
+            contextParsePosition.setErrorIndex(position);
+            return null;
+        }
+        position += prefix.length();
+
+        // magnitude accumulated as unsigned long
+        int digitsStart = position;
+        long multiplyLimit = Long.divideUnsigned(-1L, radix);
+        long magnitude = 0;
+        boolean overflow = false;
+        int value;
+        while (position < text.length() && (value = digitValue(text, position)) >= 0) {
+            if (!overflow) {
+                overflow = Long.compareUnsigned(magnitude, multiplyLimit) > 0;
+                long product = magnitude * radix;
+                magnitude = product + value;
+                overflow |= Long.compareUnsigned(magnitude, product) < 0;
+            }
+            position++;
+        }
+
+        if (position == digitsStart) {
+            contextParsePosition.setErrorIndex(position);
+            return null;
+        }
+
+        if (numberClassT.equals(BigInteger.class)) {
+            contextParsePosition.setIndex(position);
+            if (overflow || Long.compareUnsigned(magnitude, Long.MAX_VALUE) > 0) {
+                BigInteger bigInteger = new BigInteger(text.substring(digitsStart, position), radix);
+                return (T) (negative ? bigInteger.negate() : bigInteger);
+            }
+            return (T) BigInteger.valueOf(negative ? -magnitude : magnitude);
+        }
+
+        if (overflow || Long.compareUnsigned(magnitude, negative ? negativeLimit : positiveLimit) > 0) {
+            contextParsePosition.setErrorIndex(digitsStart);
+            return null;
+        }
+
+        contextParsePosition.setIndex(position);
+        long number = negative ? -magnitude : magnitude;
+        if (numberClassT.equals(Integer.class)) {
+            return (T) Integer.valueOf((int) number);
+        }
+        return (T) Long.valueOf(number);
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format setter ***************************** */
+
+    /**
+     * Sets the minimum number of digits, up to which formatted numbers are padded with leading zeros
+     * @param formatWidth minimum number of digits
+     * @return this formatter
+     */
+    public RadixNumberFormatter<T> setFormatWidth(final int formatWidth) {
+        this.formatWidth = formatWidth;
+        return this;
+    }
+
+    /**
+     * Sets, if the letters of digits are formatted in upper case. If parsing is case-sensitive, only letters in this
+     * case are parsed.
+     * @param formatUpperCase true for upper case letters
+     * @return this formatter
+     */
+    public RadixNumberFormatter<T> setFormatUpperCase(final boolean formatUpperCase) {
+        this.formatUpperCase = formatUpperCase;
+        return init();
+    }
+
+    /* ****************************** format getter ***************************** */
+
+    public int getFormatWidth() { return formatWidth; }
+
+    public boolean getFormatUpperCase() { return formatUpperCase; }
+
+    /* ****************************** format logic ****************************** */
+
+    // appends sign, prefix and padding in front of the digits
+    private void appendHead(final boolean negative, final int digitCount, final StringBuilder stringBuilder) {
+        if (negative) {
+            stringBuilder.append('-');
+        }
+        stringBuilder.append(prefix);
+        for (int padding = digitCount; padding < formatWidth; padding++) {
+            stringBuilder.append('0');
+        }
+    }
+
+    private void appendBigInteger(final BigInteger bigInteger, final StringBuilder stringBuilder) {
+        String digitsText = bigInteger.abs().toString(radix);
+        appendHead(bigInteger.signum() < 0, digitsText.length(), stringBuilder);
+        stringBuilder.append(formatUpperCase ? digitsText.toUpperCase(Locale.ROOT) : digitsText);
+    }
+
+    private void appendLong(final long number, final StringBuilder stringBuilder) {
+
+        boolean negative = !unsigned && number < 0;
+        // magnitude as unsigned long, which covers the minimum of long too
+        long magnitude = negative ? -number : number;
+
+        int position = digitBuffer.length;
+        if (bitsPerDigit > 0) {
+            int mask = radix - 1;
+            do {
+                digitBuffer[--position] = digits[(int) magnitude & mask];
+                magnitude >>>= bitsPerDigit;
+            } while (magnitude != 0);
+        } else {
+            if (magnitude < 0) {
+                long quotient = Long.divideUnsigned(magnitude, radix);
+                digitBuffer[--position] = digits[(int) (magnitude - quotient * radix)];
+                magnitude = quotient;
+            }
+            do {
+                digitBuffer[--position] = digits[(int) (magnitude % radix)];
+                magnitude /= radix;
+            } while (magnitude != 0);
+        }
+
+        appendHead(negative, digitBuffer.length - position, stringBuilder);
+        stringBuilder.append(digitBuffer, position, digitBuffer.length - position);
+
+    }
+
+    @Override protected String formatObject(final T number) {
+        formatBuffer.setLength(0);
+        formatObjectTo(number, formatBuffer);
+        return formatBuffer.toString();
+    }
+
+    @Override protected boolean formatObjectTo(final T number, final StringBuilder stringBuilder) {
+        if (number instanceof BigInteger) {
+            appendBigInteger((BigInteger) number, stringBuilder);
+        } else if (number instanceof Integer && unsigned) {
+            appendLong(Integer.toUnsignedLong((Integer) number), stringBuilder);
+        } else {
+            appendLong(number.longValue(), stringBuilder);
+        }
+        return true;
+    }
+
+}
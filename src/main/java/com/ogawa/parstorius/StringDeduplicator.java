@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache returning canonical instances of strings, e.g. for columns of countries, currencies or states
+ * repeating few distinct values across many rows. Regions of texts are hashed and compared in place, so a hit
+ * neither copies the region nor keeps the text. The cache is two-way set associative: a set keeps its two most
+ * recently used strings, so memory is capped by the capacity. Like formatters, a deduplicator is not thread-safe,
+ * but it can be shared by the formatters of one thread.
+ */
+public final class StringDeduplicator {
+
+    final private String[] strings;
+    final private int setMask;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Constructs a new deduplicator
+     * @param capacity maximum number of strings kept, rounded up to a power of two (at least 2)
+     */
+    public StringDeduplicator(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity " + capacity + " not supported");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.strings = new String[size];
+        this.setMask = (size >>> 1) - 1;
+    }
+
+    public int getCapacity() { return strings.length; }
+
+    public long getHitCount() { return hitCount; }
+
+    public long getMissCount() { return missCount; }
+
+    /**
+     * Returns the ratio of hits to all lookups
+     * @return hit rate from 0 to 1 or 0, if nothing was looked up
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Removes all strings and resets the statistics
+     */
+    public void clear() {
+        Arrays.fill(strings, null);
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    private static boolean regionEquals(final String string, final String text, final int start, final int end) {
+        return string != null && string.length() == end - start && text.regionMatches(start, string, 0, end - start);
+    }
+
+    /**
+     * Returns the canonical instance of a region of a text, which is added on a miss
+     * @param text text containing the region
+     * @param start position of the region
+     * @param end position after the region
+     * @return the canonical string equal to the region
+     */
+    public String deduplicate(final String text, final int start, final int end) {
+
+        // hash like String.hashCode() spread over the sets
+        int hash = 0;
+        for (int position = start; position < end; position++) {
+            hash = 31 * hash + text.charAt(position);
+        }
+        int first = ((hash ^ (hash >>> 16)) & setMask) << 1;
+
+        String string = strings[first];
+        if (regionEquals(string, text, start, end)) {
+            hitCount++;
+            return string;
+        }
+
+        String second = strings[first + 1];
+        if (regionEquals(second, text, start, end)) {
+            // most recently used first
+            strings[first + 1] = string;
+            strings[first] = second;
+            hitCount++;
+            return second;
+        }
+
+        // the least recently used string is evicted
+        missCount++;
+        string = start == 0 && end == text.length() ? text : text.substring(start, end);
+        strings[first + 1] = strings[first];
+        strings[first] = string;
+        return string;
+
+    }
+
+    /**
+     * Returns the canonical instance of a string like {@link #deduplicate(String, int, int)}
+     * @param string string
+     * @return the canonical string equal to the passed one
+     */
+    public String deduplicate(final String string) {
+        return deduplicate(string, 0, string.length());
+    }
+
+}
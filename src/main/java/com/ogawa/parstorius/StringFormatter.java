@@ -26,11 +26,28 @@ import static java.lang.Math.abs;
 // T can extend Number, but must not inherit methods from AbstractObjectFormatter
 public class StringFormatter extends Formatter<String, StringFormatter> {
 
+    // run of blanks shared by all formatters to pad from
+    private static final String BLANKS = " ".repeat(64);
+
     private int fixedLength;
     String blankValueDefault;
 
-    protected StringFormatter(boolean parseCaseInsensitive, int fixedLength, boolean parseUntilEnd) {
+    // optional cache of canonical parse results
+    private StringDeduplicator parseDeduplicator;
+
+    private final StringBuilder formatBuffer = new StringBuilder();
+    private final TextView textView = new TextView();
+
+    /**
+     * Constructs a new string formatter
+     * @param parseCaseInsensitive flag, if this formatter parses case-insensitive
+     * @param fixedLength length of the formatted text, positive for left-aligned, negative for right-aligned
+     *                    padding and 0 for no padding at all
+     * @param parseUntilEnd flag, if the parser has to parse until the end of the text
+     */
+    public StringFormatter(boolean parseCaseInsensitive, int fixedLength, boolean parseUntilEnd) {
         super(parseCaseInsensitive, PARSE_SKIP_MODE.TRAILING_WHITESPACES,  parseUntilEnd);
+        this.fixedLength = fixedLength;
         this.blankValueDefault = null;
     }
 
@@ -38,7 +55,10 @@ public class StringFormatter extends Formatter<String, StringFormatter> {
         return 4;
     }
 
-    @Override protected StringFormatter init() { return this; }
+    @Override protected StringFormatter init() {
+        renewParseConfigurationStamp();
+        return this;
+    }
 
     /**
      * Returns a deep copy clone
@@ -48,7 +68,11 @@ public class StringFormatter extends Formatter<String, StringFormatter> {
         StringFormatter clone = new StringFormatter(parseCaseInsensitive, fixedLength, getParseUntilEnd());
         clone.fixedLength = this.fixedLength;
         clone.blankValueDefault = this.blankValueDefault;
-        return clone.init();
+        // deduplicators are not thread-safe, so the clone gets its own
+        if (this.parseDeduplicator != null) {
+            clone.parseDeduplicator = new StringDeduplicator(this.parseDeduplicator.getCapacity());
+        }
+        return clone.init().copyProperties(this);
     }
 
     public StringFormatter setBlankValueDefault(String blankValueDefault) {
@@ -57,6 +81,112 @@ public class StringFormatter extends Formatter<String, StringFormatter> {
     }
     public String getBlankValueDefault() { return blankValueDefault; }
 
+    /**
+     * Sets the deduplicator returning canonical instances of parsed strings, which saves the memory of equal
+     * strings kept, e.g. of columns with few distinct values. It can be shared by the formatters of one thread.
+     * @param parseDeduplicator deduplicator or null to return new strings
+     * @return this formatter
+     */
+    public StringFormatter setParseDeduplicator(final StringDeduplicator parseDeduplicator) {
+        this.parseDeduplicator = parseDeduplicator;
+        return this;
+    }
+
+    public StringDeduplicator getParseDeduplicator() { return parseDeduplicator; }
+
+    /**
+     * Returns the fixed length of the formatted text. A positive length pads left-aligned, a negative length pads
+     * right-aligned and 0 means no padding.
+     * @return the fixed length
+     */
+    public int getFixedLength() { return fixedLength; }
+
+
+    /**
+     * View of a region of a text without copying it. The view of a formatter is reused by each of its parses.
+     */
+    private static final class TextView implements CharSequence {
+
+        private String text = "";
+        private int start;
+        private int end;
+
+        private TextView set(final String text, final int start, final int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override public int length() { return end - start; }
+
+        @Override public char charAt(final int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override public CharSequence subSequence(final int subStart, final int subEnd) {
+            return toString().subSequence(subStart, subEnd);
+        }
+
+        // materializes the region, which is the text itself, if the region covers it
+        @Override public String toString() {
+            return start == 0 && end == text.length() ? text : text.substring(start, end);
+        }
+
+    }
+
+    /* ******************************* parse logic ****************************** */
+
+    @Override
+    protected String parseText(String text, ParsePosition parsePosition) {
+        // the rest of the text without its trailing chars skipped by the parse skip mode
+        int start = parsePosition.getIndex();
+        int end = parseSkipMode.getTrailingSkippedEnd(text, start);
+        parsePosition.setIndex(text.length());
+        if (parseDeduplicator != null) {
+            return parseDeduplicator.deduplicate(text, start, end);
+        }
+        return start == 0 && end == text.length() ? text : text.substring(start, end);
+    }
+
+    /**
+     * Parses the passed text like {@link #parse(String, ParsePosition)}, but returns a view of the parsed region of
+     * the text instead of a new string. The view is reused by the next call, so it has to be materialized by
+     * toString() to be kept. All defaults are replaced by the passed one.
+     * @param text text to parse
+     * @param contextParsePosition position to start from and parse position receiving the new (error) position
+     * @param defaultValue value returned, if no text was parsed
+     * @return the view of the parsed region or the default value
+     */
+    public CharSequence parseView(final String text, final ParsePosition contextParsePosition,
+        final CharSequence defaultValue) {
+
+        if (beginParse(text, contextParsePosition) != null) {
+            return defaultValue;
+        }
+
+        int start = parsePosition.getIndex();
+        int end = parseSkipMode.getTrailingSkippedEnd(text, start);
+        parsePosition.setIndex(text.length());
+
+        return endParse(text, contextParsePosition) == PARSE_RESULT_CAUSE.TEXT_VALUE
+            ? textView.set(text, start, end) : defaultValue;
+
+    }
+
+    /* ****************************** format logic ****************************** */
+
+    // appends blanks from the shared run
+    private static void appendBlanks(final StringBuilder stringBuilder, int count) {
+        while (count > 0) {
+            int run = Math.min(count, BLANKS.length());
+            stringBuilder.append(BLANKS, 0, run);
+            count -= run;
+        }
+    }
 
     @Override
     protected String formatObject(String object) {
@@ -70,30 +200,34 @@ public class StringFormatter extends Formatter<String, StringFormatter> {
             return object;
         }
 
-        String result = object;
+        formatBuffer.setLength(0);
+        return formatObjectTo(object, formatBuffer) ? formatBuffer.toString() : null;
 
-        // Is objects string representation to long for the format?
-        if (result.length() > abs(fixedLength)) {
+    }
 
-            return null;
+    @Override
+    protected boolean formatObjectTo(final String object, final StringBuilder stringBuilder) {
 
+        // No formatting?
+        if (fixedLength == 0) {
+            stringBuilder.append(object);
+            return true;
         }
 
-        if (fixedLength < 0) {
-
-            return " ".repeat(-fixedLength - result.length()) + result;
+        // Is objects string representation to long for the format?
+        if (object.length() > abs(fixedLength)) {
+            return false;
+        }
 
+        if (fixedLength < 0) {
+            appendBlanks(stringBuilder, -fixedLength - object.length());
+            stringBuilder.append(object);
         } else {
-
-            return result + " ".repeat(fixedLength - result.length());
-
+            stringBuilder.append(object);
+            appendBlanks(stringBuilder, fixedLength - object.length());
         }
+        return true;
 
     }
 
-    @Override
-    protected String parseText(String text, ParsePosition parsePosition) {
-        return text;
-    }
-
 }
@@ -111,6 +111,42 @@ public class StringUtil {
     return -1;
   }
 
+  /**
+   * Returns the end of text without its trailing spaces, but not before index startIndex
+   * @param text text to search in
+   * @param startIndex index not to search beyond
+   * @return index after the last non-space or startIndex if a non-space could not to be found
+   */
+  public static int getTrailingSpacesSkippedEnd(CharSequence text, int startIndex) {
+    int end = text.length();
+    while (end > startIndex && text.charAt(end - 1) == '\u0020') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Returns the end of text without its trailing whitespaces, but not before index startIndex
+   * @param text text to search in
+   * @param startIndex index not to search beyond
+   * @return index after the last non-whitespace or startIndex if a non-whitespace could not to be found
+   */
+  public static int getTrailingWhiteSpacesSkippedEnd(CharSequence text, int startIndex) {
+    int end = text.length();
+    while (end > startIndex && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Function of a text and an index to an index, taking and returning primitive indexes
+   */
+  @FunctionalInterface
+  interface IndexFunction {
+    int apply(CharSequence text, int index);
+  }
+
   static BiFunction<String, Integer, Integer> skipZeroFunction = ((str, startIndex) -> 0);
 
   static BiFunction<String, Integer, Integer> skipAllTrailingSpacesFunction =
@@ -120,5 +156,9 @@ public class StringUtil {
       ((str, startIndex) -> Math.max(0, StringUtil.getFirstNonWhiteSpaceIndex(str, startIndex))
       );
 
+  static IndexFunction skipNoneEndFunction = ((text, startIndex) -> text.length());
+  static IndexFunction skipTrailingSpacesEndFunction = StringUtil::getTrailingSpacesSkippedEnd;
+  static IndexFunction skipTrailingWhiteSpacesEndFunction = StringUtil::getTrailingWhiteSpacesSkippedEnd;
+
 
 }
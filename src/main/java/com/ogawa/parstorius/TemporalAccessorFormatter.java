@@ -17,6 +17,7 @@
 package com.ogawa.parstorius;
 
 import java.text.ParsePosition;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,6 +26,8 @@ import java.time.OffsetDateTime;
 import java.time.OffsetTime;
 import java.time.Year;
 import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.chrono.HijrahDate;
 import java.time.chrono.JapaneseDate;
@@ -32,8 +35,14 @@ import java.time.chrono.MinguoDate;
 import java.time.chrono.ThaiBuddhistDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 // T can be one of: LocalDate, LocalDateTime, LocalTime, ZonedDateTime.
@@ -43,10 +52,46 @@ import java.util.function.Function;
 public class TemporalAccessorFormatter<T extends TemporalAccessor>
     extends Formatter<T, TemporalAccessorFormatter<T>> {
 
+    // maximum number of cached parse setups, the cache is cleared, if it is exceeded
+    private static final int MAX_PARSE_SETUPS = 1024;
+
+    // number of recently formatted temporals kept with their texts, a power of two
+    private static final int FORMAT_CACHE_SIZE = 16;
+
+    // parse setups shared by all formatters with an equal DateTimeFormatter, class and parse properties
+    private static final Map<List<Object>, ParseSetup> PARSE_SETUPS = new ConcurrentHashMap<>();
+
     final private Class<T> classT;
     // reference to BigDecimal method to cast to T (used by cast())
     private final Function<TemporalAccessor, ?> castMethod;
     DateTimeFormatter dateTimeFormatter;
+    private boolean parseLenient;
+
+    // DateTimeFormatter respecting the parse properties, which is used for parsing
+    private DateTimeFormatter parseDateTimeFormatter;
+
+    // fixed layout of the DateTimeFormatter for the fast path or null, if there is none
+    private TemporalLayout temporalLayout;
+    private final int[] layoutValues = new int[TemporalLayout.VALUE_COUNT];
+
+    // field values and formatted prefix of the last temporal formatted using the layout
+    private final int[] formatValues = new int[TemporalLayout.VALUE_COUNT];
+    private final StringBuilder formatPrefix = new StringBuilder();
+    private final StringBuilder formatBuffer = new StringBuilder();
+    private long formatPrefixKey;
+
+    // texts of recently formatted temporals by hash for format(), temporals of all supported classes are immutable
+    private final Object[] formatCacheTemporals = new Object[FORMAT_CACHE_SIZE];
+    private final String[] formatCacheTexts = new String[FORMAT_CACHE_SIZE];
+
+    // parser of the ISO date-time forms for the fast path or null, if the formatter is none of them
+    private IsoTemporalParser isoTemporalParser;
+
+    // cache of the dates of a non-ISO chronology by epoch day or null, if T is none of them
+    private final ChronoDateCache chronoDateCache;
+
+    // position used to probe texts unresolved by parseCandidate()
+    private final ParsePosition candidateParsePosition = new ParsePosition(0);
 
     /* ************************************************************************** */
     /* ****************************** constructors ****************************** */
@@ -62,6 +107,7 @@ public class TemporalAccessorFormatter<T extends TemporalAccessor>
         this.classT = temporalAccessorClassT;
         this.dateTimeFormatter = dateTimeFormatter;
         this.parseCaseInsensitive = parseCaseInsensitive;
+        this.chronoDateCache = ChronoDateCache.of(temporalAccessorClassT);
 
         castMethod = getCastMethod(temporalAccessorClassT);
 
@@ -79,26 +125,125 @@ public class TemporalAccessorFormatter<T extends TemporalAccessor>
 
     /* ***************************** common setter ****************************** */
 
-    public DateTimeFormatter getDateTimeFormatter() {
-        return new DateTimeFormatterBuilder().append(dateTimeFormatter).toFormatter();
+    /**
+     * Sets, if the formatter parses leniently, e.g. accepting numbers of other widths than the pattern
+     * @param parseLenient new value for the parse lenient property
+     * @return the formatter instance
+     */
+    public TemporalAccessorFormatter<T> setParseLenient(final boolean parseLenient) {
+        this.parseLenient = parseLenient;
+        return init();
     }
 
+    /* ***************************** common getter ****************************** */
+
+    /**
+     * Returns the class of the temporals parsed and formatted
+     * @return the temporal class
+     */
+    public Class<T> getTemporalAccessorClass() { return classT; }
+
+    /**
+     * Returns the DateTimeFormatter passed on construction, which is used for formatting
+     * @return the DateTimeFormatter
+     */
+    public DateTimeFormatter getDateTimeFormatter() { return dateTimeFormatter; }
+
+    /**
+     * Returns, if the formatter parses leniently
+     * @return boolean parse lenient property
+     */
+    public boolean getParseLenient() { return parseLenient; }
+
     /* ****************************** common logic ****************************** */
 
-    @Override protected TemporalAccessorFormatter<T> init() {
+    /**
+     * DateTimeFormatter and fixed layout for parsing derived from a DateTimeFormatter for a class and the parse
+     * properties. Both are immutable and shared.
+     */
+    private static final class ParseSetup {
+
+        final private DateTimeFormatter parseDateTimeFormatter;
+        final private TemporalLayout temporalLayout;
+
+        private ParseSetup(final DateTimeFormatter dateTimeFormatter, final Class<?> temporalClass,
+            final boolean parseCaseInsensitive, final boolean parseLenient) {
+
+            DateTimeFormatterBuilder dateTimeFormatterBuilder = new DateTimeFormatterBuilder();
+
+            if (parseCaseInsensitive) {
+                dateTimeFormatterBuilder.parseCaseInsensitive();
+            }
+            if (parseLenient) {
+                dateTimeFormatterBuilder.parseLenient();
+            }
+
+            // all settings of the DateTimeFormatter are kept
+            this.parseDateTimeFormatter = dateTimeFormatterBuilder.append(dateTimeFormatter)
+                .toFormatter(dateTimeFormatter.getLocale())
+                .withDecimalStyle(dateTimeFormatter.getDecimalStyle())
+                .withChronology(dateTimeFormatter.getChronology())
+                .withZone(dateTimeFormatter.getZone())
+                .withResolverStyle(dateTimeFormatter.getResolverStyle())
+                .withResolverFields(dateTimeFormatter.getResolverFields());
+
+            // the layout parses fixed widths and the texts of the locale only, dates of non-ISO chronologies are
+            // parsed as ISO dates like by the DateTimeFormatter without chronology
+            Class<?> layoutClass = ChronoDateCache.of(temporalClass) != null ? LocalDate.class : temporalClass;
+            this.temporalLayout = parseLenient ? null
+                : TemporalLayout.compile(dateTimeFormatter, layoutClass, parseCaseInsensitive);
+
+        }
 
-        DateTimeFormatterBuilder dateTimeFormatterBuilder = new DateTimeFormatterBuilder();
+    }
 
-        if (parseCaseInsensitive) {
-            dateTimeFormatterBuilder.parseCaseInsensitive();
+    /**
+     * Returns the shared parse setup of the formatter's DateTimeFormatter, class and parse properties. The setups
+     * are keyed by the description of the DateTimeFormatter and its settings, so equal formatters constructed
+     * separately share them. Texts of fields can be customized without changing the description, so such
+     * formatters are keyed by their identity.
+     * @return the parse setup
+     */
+    private ParseSetup getParseSetup() {
+
+        String description = dateTimeFormatter.toString();
+        List<Object> key = Arrays.asList(description, dateTimeFormatter.getLocale(),
+            dateTimeFormatter.getDecimalStyle(), dateTimeFormatter.getChronology(), dateTimeFormatter.getZone(),
+            dateTimeFormatter.getResolverStyle(), dateTimeFormatter.getResolverFields(),
+            classT, parseCaseInsensitive, parseLenient,
+            description.contains("Text(") ? dateTimeFormatter : null);
+
+        ParseSetup parseSetup = PARSE_SETUPS.get(key);
+        if (parseSetup == null) {
+            if (PARSE_SETUPS.size() >= MAX_PARSE_SETUPS) {
+                PARSE_SETUPS.clear();
+            }
+            parseSetup = PARSE_SETUPS.computeIfAbsent(key,
+                k -> new ParseSetup(dateTimeFormatter, classT, parseCaseInsensitive, parseLenient));
         }
 
-        dateTimeFormatterBuilder.parseLenient().append(dateTimeFormatter);
+        return parseSetup;
+
+    }
+
+    @Override protected TemporalAccessorFormatter<T> init() {
+
+        renewParseConfigurationStamp();
+
+        ParseSetup parseSetup = getParseSetup();
+        parseDateTimeFormatter = parseSetup.parseDateTimeFormatter;
+        temporalLayout = parseSetup.temporalLayout;
+        isoTemporalParser = parseLenient ? null : IsoTemporalParser.create(dateTimeFormatter, classT);
+        formatPrefixKey = -1;
+        Arrays.fill(formatCacheTemporals, null);
+        Arrays.fill(formatCacheTexts, null);
+
         return this;
 
     }
 
     @Override protected TemporalAccessorFormatter<T> copyProperties(TemporalAccessorFormatter<T> sourceFormatter) {
+        this.parseLenient = sourceFormatter.getParseLenient();
         return super.copyProperties(sourceFormatter);
     }
 
@@ -107,8 +252,13 @@ public class TemporalAccessorFormatter<T extends TemporalAccessor>
         getParseCaseInsensitive(), getParseSkipMode(), getParseUntilEnd()).copyProperties(this);
     }
 
+    // dates of non-ISO chronologies are converted from the epoch day like by their from() method, but cached
     @SuppressWarnings("unchecked")
     private T cast(TemporalAccessor temporalAccessor) {
+        if (chronoDateCache != null && temporalAccessor.isSupported(ChronoField.EPOCH_DAY)) {
+            // throws DateTimeException for dates out of the range of the chronology like the from() method
+            return (T) chronoDateCache.get(temporalAccessor.getLong(ChronoField.EPOCH_DAY));
+        }
         return (T) castMethod.apply(temporalAccessor);
     }
 
@@ -151,24 +301,445 @@ public class TemporalAccessorFormatter<T extends TemporalAccessor>
 
     /* ******************************* parse logic ****************************** */
 
+    /**
+     * Parses the text using the fixed layout of the DateTimeFormatter
+     * @param text text to parse
+     * @param contextParsePosition position to start at, set to the end of the layout on success
+     * @return the parsed temporal or null, if the text has to be parsed by the DateTimeFormatter
+     */
+    @SuppressWarnings("unchecked")
+    private T parseLayout(String text, ParsePosition contextParsePosition) {
+
+        int end = temporalLayout.parse(text, contextParsePosition.getIndex(), layoutValues);
+        if (end < 0) {
+            return null;
+        }
+
+        T result;
+        if (chronoDateCache != null) {
+            try {
+                result = temporalLayout.isResolvable(layoutValues, LocalDate.class)
+                    ? (T) chronoDateCache.get(TemporalLayout.epochDay(layoutValues[TemporalLayout.YEAR],
+                        layoutValues[TemporalLayout.MONTH], layoutValues[TemporalLayout.DAY]))
+                    : null;
+            } catch (DateTimeException exception) {
+                // out of the range of the chronology, the DateTimeFormatter reports the error at the end of the text
+                result = null;
+            }
+        } else {
+            result = (T) temporalLayout.resolve(layoutValues, classT);
+        }
+        if (result != null) {
+            contextParsePosition.setIndex(end);
+        }
+        return result;
+
+    }
+
+    /**
+     * Parses the text using the ISO parser
+     * @param text text to parse
+     * @param contextParsePosition position to start at, set to the end of the date-time on success
+     * @return the parsed temporal or null, if the text has to be parsed by the DateTimeFormatter
+     */
+    @SuppressWarnings("unchecked")
+    private T parseIso(String text, ParsePosition contextParsePosition) {
+
+        int end = isoTemporalParser.parse(text, contextParsePosition.getIndex());
+        if (end < 0) {
+            return null;
+        }
+
+        T result = (T) isoTemporalParser.resolve();
+        if (result != null) {
+            contextParsePosition.setIndex(end);
+        }
+        return result;
+
+    }
+
+    // fast path for fixed layouts and ISO forms, anything else incl. errors is left to the DateTimeFormatter
+    private T parseFast(String text, ParsePosition contextParsePosition) {
+        if (temporalLayout != null) {
+            return parseLayout(text, contextParsePosition);
+        } else if (isoTemporalParser != null) {
+            return parseIso(text, contextParsePosition);
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public T parseText(String text, ParsePosition contextParsePosition) {
 
-        TemporalAccessor result =  dateTimeFormatter.parse(text, contextParsePosition);
+        T result = parseFast(text, contextParsePosition);
+        if (result != null) {
+            return result;
+        }
+
+        TemporalAccessor temporalAccessor = parseDateTimeFormatter.parse(text, contextParsePosition);
 
-        return result != null ? cast(result) : null;
+        return temporalAccessor != null ? cast(temporalAccessor) : null;
 
     }
 
+    /**
+     * Parses the text like {@link #parseText(String, ParsePosition)}, but returns null instead of raising an
+     * exception, if the text does not match the DateTimeFormatter. This lets a caller try several formatters
+     * cheaply, since texts not matching are detected by parsing them unresolved.
+     * @param text text to parse
+     * @param contextParsePosition position to start at, set to the end of the parsed temporal on success
+     * @return the parsed temporal or null, if the text does not match the DateTimeFormatter
+     * @throws java.time.DateTimeException if the text matches, but cannot be resolved to a temporal of class T
+     */
+    T parseCandidate(String text, ParsePosition contextParsePosition) {
+
+        T result = parseFast(text, contextParsePosition);
+        if (result != null) {
+            return result;
+        }
+
+        candidateParsePosition.setIndex(contextParsePosition.getIndex());
+        candidateParsePosition.setErrorIndex(-1);
+        if (parseDateTimeFormatter.parseUnresolved(text, candidateParsePosition) == null) {
+            return null;
+        }
+
+        return cast(parseDateTimeFormatter.parse(text, contextParsePosition));
+
+    }
+
+    /* ****************************** epoch parsing ***************************** */
+
+    // epoch value in the passed unit of the passed epoch second and nano of second
+    private static long toEpochValue(final long epochSecond, final int nano, final ChronoUnit unit) {
+        switch (unit) {
+            case DAYS:
+                return Math.floorDiv(epochSecond, 86_400L);
+            case SECONDS:
+                return epochSecond;
+            case MILLIS:
+                return Math.addExact(Math.multiplyExact(epochSecond, 1_000L), nano / 1_000_000);
+            case MICROS:
+                return Math.addExact(Math.multiplyExact(epochSecond, 1_000_000L), nano / 1_000);
+            case NANOS:
+                return Math.addExact(Math.multiplyExact(epochSecond, 1_000_000_000L), nano);
+            default:
+                throw new IllegalArgumentException(unit + " not supported");
+        }
+    }
+
+    // epoch value in the passed unit of the passed temporal, local date-times are taken as UTC
+    private static long toEpochValue(final TemporalAccessor temporalAccessor, final ChronoUnit unit) {
+
+        if (unit == ChronoUnit.DAYS && temporalAccessor.isSupported(ChronoField.EPOCH_DAY)) {
+            return temporalAccessor.getLong(ChronoField.EPOCH_DAY);
+        }
+
+        long epochSecond;
+        if (temporalAccessor.isSupported(ChronoField.INSTANT_SECONDS)) {
+            epochSecond = temporalAccessor.getLong(ChronoField.INSTANT_SECONDS);
+        } else {
+            epochSecond = Math.multiplyExact(temporalAccessor.getLong(ChronoField.EPOCH_DAY), 86_400L);
+            if (temporalAccessor.isSupported(ChronoField.SECOND_OF_DAY)) {
+                epochSecond += temporalAccessor.getLong(ChronoField.SECOND_OF_DAY);
+            }
+        }
+
+        return toEpochValue(epochSecond,
+            temporalAccessor.isSupported(ChronoField.NANO_OF_SECOND)
+                ? temporalAccessor.get(ChronoField.NANO_OF_SECOND) : 0, unit);
+
+    }
+
+    /**
+     * Parses the text starting at the internal parse position to an epoch value without creating a temporal on the
+     * fast paths
+     * @param text text to parse
+     * @param unit unit of the epoch value
+     * @return the epoch value
+     * @throws Exception on any error
+     */
+    private long parseEpochText(final String text, final ChronoUnit unit) throws Exception {
+
+        int start = parsePosition.getIndex();
+
+        if (temporalLayout != null) {
+
+            int end = temporalLayout.parse(text, start, layoutValues);
+            if (end >= 0 && classT != LocalTime.class && temporalLayout.isResolvable(layoutValues, classT)) {
+                parsePosition.setIndex(end);
+                long epochDay = TemporalLayout.epochDay(layoutValues[TemporalLayout.YEAR],
+                    layoutValues[TemporalLayout.MONTH], layoutValues[TemporalLayout.DAY]);
+                if (unit == ChronoUnit.DAYS || classT == LocalDate.class) {
+                    return toEpochValue(Math.multiplyExact(epochDay, 86_400L), 0, unit);
+                }
+                return toEpochValue(epochDay * 86_400L + layoutValues[TemporalLayout.HOUR] * 3_600
+                    + layoutValues[TemporalLayout.MINUTE] * 60 + layoutValues[TemporalLayout.SECOND],
+                    layoutValues[TemporalLayout.NANO], unit);
+            }
+
+        } else if (isoTemporalParser != null) {
+
+            int end = isoTemporalParser.parse(text, start);
+            if (end >= 0 && isoTemporalParser.isResolvable()) {
+                parsePosition.setIndex(end);
+                return unit == ChronoUnit.DAYS ? isoTemporalParser.getEpochDay()
+                    : toEpochValue(isoTemporalParser.getEpochSecond(), isoTemporalParser.getNano(), unit);
+            }
+
+        }
+
+        return toEpochValue(cast(parseDateTimeFormatter.parse(text, parsePosition)), unit);
+
+    }
+
+    /**
+     * Parses the passed text to an epoch value. Results and errors are reported like on
+     * {@link #parse(String, ParsePosition)}, but all defaults are replaced by the passed one. Dates are taken as
+     * start of the day and local date-times as UTC. The epoch day of a date-time with offset or zone is the one of its
+     * local date, of an instant the one in UTC.
+     * @param text text to parse
+     * @param contextParsePosition position to start from and parse position receiving the new (error) position
+     * @param unit unit of the epoch value, one of DAYS, SECONDS, MILLIS, MICROS or NANOS
+     * @param defaultValue value returned, if no value was parsed
+     * @return the epoch value or the default value
+     */
+    public long parseEpoch(final String text, final ParsePosition contextParsePosition, final ChronoUnit unit,
+        final long defaultValue) {
+
+        Objects.requireNonNull(unit, "unit");
+
+        if (beginParse(text, contextParsePosition) != null) {
+            return defaultValue;
+        }
+
+        long result = defaultValue;
+        try {
+            result = parseEpochText(text, unit);
+        } catch (Exception exception) {
+            failParse(exception);
+        }
+
+        return endParse(text, contextParsePosition) == PARSE_RESULT_CAUSE.TEXT_VALUE ? result : defaultValue;
+
+    }
+
+    /**
+     * Parses the passed text to an epoch day like {@link #parseEpoch(String, ParsePosition, ChronoUnit, long)}
+     * @param text text to parse
+     * @param defaultValue value returned, if no value was parsed
+     * @return the epoch day or the default value
+     */
+    public long parseEpochDay(final String text, final long defaultValue) {
+        return parseEpoch(text, new ParsePosition(0), ChronoUnit.DAYS, defaultValue);
+    }
+
+    /**
+     * Parses the passed text to epoch milliseconds like {@link #parseEpoch(String, ParsePosition, ChronoUnit, long)}
+     * @param text text to parse
+     * @param defaultValue value returned, if no value was parsed
+     * @return the epoch milliseconds or the default value
+     */
+    public long parseEpochMilli(final String text, final long defaultValue) {
+        return parseEpoch(text, new ParsePosition(0), ChronoUnit.MILLIS, defaultValue);
+    }
+
+    /**
+     * Parses the passed text to epoch microseconds like {@link #parseEpoch(String, ParsePosition, ChronoUnit, long)}
+     * @param text text to parse
+     * @param defaultValue value returned, if no value was parsed
+     * @return the epoch microseconds or the default value
+     */
+    public long parseEpochMicro(final String text, final long defaultValue) {
+        return parseEpoch(text, new ParsePosition(0), ChronoUnit.MICROS, defaultValue);
+    }
+
+    /**
+     * Parses the passed text to epoch nanoseconds like {@link #parseEpoch(String, ParsePosition, ChronoUnit, long)}
+     * @param text text to parse
+     * @param defaultValue value returned, if no value was parsed
+     * @return the epoch nanoseconds or the default value
+     */
+    public long parseEpochNano(final String text, final long defaultValue) {
+        return parseEpoch(text, new ParsePosition(0), ChronoUnit.NANOS, defaultValue);
+    }
+
     /* ************************************************************************** */
     /* ******************************* formatting ******************************* */
     /* ************************************************************************** */
 
     /* ****************************** format logic ****************************** */
 
-    @Override protected String formatObject(final T object) {
+    /**
+     * Formats the temporal using the fixed layout of the DateTimeFormatter. The formatted prefix before the fraction
+     * of seconds is reused as long as consecutive temporals differ only in the fraction, e.g. in the same second.
+     * @param object temporal to format
+     * @param stringBuilder string builder to append to
+     * @return true, if the temporal was formatted or false, if it has to be formatted by the DateTimeFormatter
+     */
+    private boolean formatLayout(final T object, final StringBuilder stringBuilder) {
+
+        if (!temporalLayout.extract(object, formatValues)) {
+            return false;
+        }
+
+        formatLayoutValues(stringBuilder);
+        return true;
+
+    }
+
+    // formats the extracted field values using the fixed layout
+    private void formatLayoutValues(final StringBuilder stringBuilder) {
+
+        long prefixKey = temporalLayout.prefixKey(formatValues);
+        if (prefixKey != formatPrefixKey) {
+            formatPrefix.setLength(0);
+            temporalLayout.format(formatValues, 0, temporalLayout.getPrefixEnd(), formatPrefix);
+            formatPrefixKey = prefixKey;
+        }
+
+        stringBuilder.append(formatPrefix);
+        temporalLayout.format(formatValues, temporalLayout.getPrefixEnd(), temporalLayout.getElementCount(),
+            stringBuilder);
+
+    }
+
+    private static int formatCacheIndex(final Object object) {
+        int hash = object.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (FORMAT_CACHE_SIZE - 1);
+    }
+
+    // formats the temporal without the cache of recently formatted temporals
+    private String formatUncached(final T object) {
+
+        if (temporalLayout != null) {
+            formatBuffer.setLength(0);
+            if (formatLayout(object, formatBuffer)) {
+                return formatBuffer.toString();
+            }
+        }
+
         return dateTimeFormatter.format(object);
+
     }
 
-}
+    @Override protected String formatObject(final T object) {
+
+        // repeated temporals, e.g. dates of a sorted column, are looked up
+        int index = formatCacheIndex(object);
+        if (object.equals(formatCacheTemporals[index])) {
+            return formatCacheTexts[index];
+        }
+
+        String text = formatUncached(object);
+        formatCacheTemporals[index] = object;
+        formatCacheTexts[index] = text;
+        return text;
+
+    }
+
+    @Override protected boolean formatObjectTo(final T object, final StringBuilder stringBuilder) {
+
+        // appended without the cache of recently formatted temporals, which would need a string per miss
+        if (temporalLayout == null || !formatLayout(object, stringBuilder)) {
+            dateTimeFormatter.formatTo(object, stringBuilder);
+        }
+        return true;
+
+    }
 
+    /* **************************** epoch formatting **************************** */
+
+    // temporal of the passed epoch second and nano of second in the zone of the formatter or UTC
+    @SuppressWarnings("unchecked")
+    private T toTemporal(final long epochSecond, final int nano) {
+
+        if (classT == Instant.class || classT == OffsetDateTime.class || classT == ZonedDateTime.class
+            || classT == OffsetTime.class) {
+            Instant instant = Instant.ofEpochSecond(epochSecond, nano);
+            ZoneId zone = dateTimeFormatter.getZone() != null ? dateTimeFormatter.getZone() : ZoneOffset.UTC;
+            return classT == Instant.class ? (T) instant : cast(instant.atZone(zone));
+        }
+
+        return cast(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+
+    }
+
+    /**
+     * Formats the passed epoch value like {@link #format(TemporalAccessor)}. The value is converted to a temporal in
+     * the zone of the DateTimeFormatter or UTC, which is skipped on the fast path of fixed layouts.
+     * @param epochValue epoch value to format
+     * @param unit unit of the epoch value, one of DAYS, SECONDS, MILLIS, MICROS or NANOS
+     * @return the formatted epoch value
+     */
+    public String formatEpoch(final long epochValue, final ChronoUnit unit) {
+
+        long epochSecond;
+        int nano;
+        switch (Objects.requireNonNull(unit, "unit")) {
+            case DAYS:
+                epochSecond = Math.multiplyExact(epochValue, 86_400L);
+                nano = 0;
+                break;
+            case SECONDS:
+                epochSecond = epochValue;
+                nano = 0;
+                break;
+            case MILLIS:
+                epochSecond = Math.floorDiv(epochValue, 1_000L);
+                nano = (int) Math.floorMod(epochValue, 1_000L) * 1_000_000;
+                break;
+            case MICROS:
+                epochSecond = Math.floorDiv(epochValue, 1_000_000L);
+                nano = (int) Math.floorMod(epochValue, 1_000_000L) * 1_000;
+                break;
+            case NANOS:
+                epochSecond = Math.floorDiv(epochValue, 1_000_000_000L);
+                nano = (int) Math.floorMod(epochValue, 1_000_000_000L);
+                break;
+            default:
+                throw new IllegalArgumentException(unit + " not supported");
+        }
+
+        if (temporalLayout != null && temporalLayout.extract(Math.floorDiv(epochSecond, 86_400L),
+            (int) Math.floorMod(epochSecond, 86_400L), nano, classT, formatValues)) {
+            formatBuffer.setLength(0);
+            formatLayoutValues(formatBuffer);
+            lastFormatResultCause = FORMAT_RESULT_CAUSE.OBJECT;
+            return formatBuffer.toString();
+        }
+
+        return format(toTemporal(epochSecond, nano));
+
+    }
+
+    /**
+     * Formats the passed epoch day like {@link #formatEpoch(long, ChronoUnit)}
+     * @param epochDay epoch day to format
+     * @return the formatted epoch day
+     */
+    public String formatEpochDay(final long epochDay) { return formatEpoch(epochDay, ChronoUnit.DAYS); }
+
+    /**
+     * Formats the passed epoch milliseconds like {@link #formatEpoch(long, ChronoUnit)}
+     * @param epochMilli epoch milliseconds to format
+     * @return the formatted epoch milliseconds
+     */
+    public String formatEpochMilli(final long epochMilli) { return formatEpoch(epochMilli, ChronoUnit.MILLIS); }
+
+    /**
+     * Formats the passed epoch microseconds like {@link #formatEpoch(long, ChronoUnit)}
+     * @param epochMicro epoch microseconds to format
+     * @return the formatted epoch microseconds
+     */
+    public String formatEpochMicro(final long epochMicro) { return formatEpoch(epochMicro, ChronoUnit.MICROS); }
+
+    /**
+     * Formats the passed epoch nanoseconds like {@link #formatEpoch(long, ChronoUnit)}
+     * @param epochNano epoch nanoseconds to format
+     * @return the formatted epoch nanoseconds
+     */
+    public String formatEpochNano(final long epochNano) { return formatEpoch(epochNano, ChronoUnit.NANOS); }
+
+}
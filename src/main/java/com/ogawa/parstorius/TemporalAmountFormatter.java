@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.text.ParsePosition;
+import java.time.Duration;
+import java.time.Period;
+import java.time.temporal.TemporalAmount;
+import java.util.Arrays;
+import java.util.Objects;
+
+// T can be one of: Duration, Period
+
+/**
+ * Formatter of durations and periods in the ISO-8601 formats of {@link Duration#parse(CharSequence)} and
+ * {@link Period#parse(CharSequence)}, e.g. PT1H30M, PT-0.5S, P2DT3H, P1Y2M3D or P3W. Texts are parsed in a single
+ * pass without regular expressions and errors are signaled by the error index instead of exceptions. The designators
+ * P, T, D, H, M, S, Y and W are parsed case-insensitive only, if the formatter parses case-insensitive. Amounts are
+ * formatted like their toString() methods directly into the target.
+ * @param <T> Duration or Period
+ */
+public class TemporalAmountFormatter<T extends TemporalAmount> extends Formatter<T, TemporalAmountFormatter<T>> {
+
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+    // designators of the parts of a period: years, months, weeks and days in this order
+    private static final char[] PERIOD_DESIGNATORS = { 'Y', 'M', 'W', 'D' };
+
+    final private Class<T> classT;
+
+    // set by parseNumber(), if the number exceeds the range of long
+    private boolean numberOverflow;
+
+    // values of the parts of a period indexed like PERIOD_DESIGNATORS, reused by parsePeriod()
+    final private long[] periodValues = new long[PERIOD_DESIGNATORS.length];
+
+    private final StringBuilder formatBuffer = new StringBuilder(24);
+
+    /* ************************************************************************** */
+    /* ****************************** constructors ****************************** */
+    /* ************************************************************************** */
+
+    public TemporalAmountFormatter(Class<T> temporalAmountClassT, boolean parseCaseInsensitive,
+        PARSE_SKIP_MODE parseSkipMode, boolean parseUntilEnd) {
+        super(parseCaseInsensitive, parseSkipMode, parseUntilEnd);
+
+        Objects.requireNonNull(temporalAmountClassT, "temporalAmountClassT");
+
+        if (!(temporalAmountClassT.equals(Duration.class) || temporalAmountClassT.equals(Period.class))) {
+            throw new IllegalArgumentException(temporalAmountClassT.getName() + " not supported");
+        }
+
+        this.classT = temporalAmountClassT;
+
+        init();
+
+    }
+
+    @Override protected TemporalAmountFormatter<T> init() {
+        renewParseConfigurationStamp();
+        return this;
+    }
+
+    @Override public TemporalAmountFormatter<T> clone() {
+        return new TemporalAmountFormatter<>(classT, getParseCaseInsensitive(), getParseSkipMode(),
+            getParseUntilEnd()).copyProperties(this);
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /* ******************************* parse logic ****************************** */
+
+    // checks, if the char at the position is the passed upper case designator
+    private boolean isDesignator(final String text, final int position, final char designator) {
+        if (position >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(position);
+        return c == designator || (parseCaseInsensitive && Character.toUpperCase(c) == designator);
+    }
+
+    private static boolean isDigit(final String text, final int position) {
+        return position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9';
+    }
+
+    /**
+     * Scans an optionally signed number of ASCII digits
+     * @param text text to scan
+     * @param position position to start at
+     * @return the position after the number or -1, if there is no number at the position
+     */
+    private static int scanNumber(final String text, int position) {
+        if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            position++;
+        }
+        if (!isDigit(text, position)) {
+            return -1;
+        }
+        while (isDigit(text, position)) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parses a number scanned by {@link #scanNumber(String, int)} like {@link Long#parseLong(CharSequence, int, int,
+     * int)}, but signals an overflow by {@link #numberOverflow} instead of an exception
+     * @param text text containing the number
+     * @param start position of the number
+     * @param end position after the number
+     * @return the number
+     */
+    private long parseNumber(final String text, int start, final int end) {
+
+        boolean negative = text.charAt(start) == '-';
+        if (negative || text.charAt(start) == '+') {
+            start++;
+        }
+
+        // accumulated negatively, since the range of negative numbers is larger
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (int position = start; position < end; position++) {
+            int digit = text.charAt(position) - '0';
+            if (result < multiplyLimit || result * 10 < limit + digit) {
+                numberOverflow = true;
+                return 0;
+            }
+            result = result * 10 - digit;
+        }
+
+        return negative ? result : -result;
+
+    }
+
+    private static boolean overflowsAddition(final long summand, final long otherSummand) {
+        long sum = summand + otherSummand;
+        return ((summand ^ sum) & (otherSummand ^ sum)) < 0;
+    }
+
+    private static boolean isInt(final long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    // signals an error at the passed position
+    private T fail(final ParsePosition contextParsePosition, final int errorIndex) {
+        contextParsePosition.setErrorIndex(errorIndex);
+        return null;
+    }
+
+    /**
+     * Parses a duration like {@link Duration#parse(CharSequence)}
+     * @param text text to parse
+     * @param contextParsePosition position to start at, set to the end of the duration or its error index
+     * @return the duration or null on an error
+     */
+    @SuppressWarnings("unchecked")
+    private T parseDuration(final String text, final ParsePosition contextParsePosition) {
+
+        int position = contextParsePosition.getIndex();
+        numberOverflow = false;
+
+        boolean negate = false;
+        if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            negate = text.charAt(position) == '-';
+            position++;
+        }
+        if (!isDesignator(text, position, 'P')) {
+            return fail(contextParsePosition, position);
+        }
+        position++;
+
+        long days = 0;
+        long hours = 0;
+        long minutes = 0;
+        long seconds = 0;
+        int nanos = 0;
+        boolean hasDays = false;
+
+        int end = scanNumber(text, position);
+        if (end >= 0 && isDesignator(text, end, 'D')) {
+            days = parseNumber(text, position, end);
+            hasDays = true;
+            position = end + 1;
+        }
+
+        if (isDesignator(text, position, 'T')) {
+
+            int timePosition = ++position;
+
+            end = scanNumber(text, position);
+            if (end >= 0 && isDesignator(text, end, 'H')) {
+                hours = parseNumber(text, position, end);
+                position = end + 1;
+                end = scanNumber(text, position);
+            }
+            if (end >= 0 && isDesignator(text, end, 'M')) {
+                minutes = parseNumber(text, position, end);
+                position = end + 1;
+                end = scanNumber(text, position);
+            }
+            if (end >= 0) {
+
+                // fraction of up to 9 digits after a point or comma
+                int fractionStart = end + 1;
+                int fractionEnd = end;
+                if (end < text.length() && (text.charAt(end) == '.' || text.charAt(end) == ',')) {
+                    fractionEnd = fractionStart;
+                    while (fractionEnd - fractionStart < 9 && isDigit(text, fractionEnd)) {
+                        fractionEnd++;
+                    }
+                }
+
+                if (isDesignator(text, fractionEnd, 'S')) {
+                    seconds = parseNumber(text, position, end);
+                    for (int fraction = fractionStart; fraction < fractionStart + 9; fraction++) {
+                        nanos = nanos * 10 + (fraction < fractionEnd ? text.charAt(fraction) - '0' : 0);
+                    }
+                    // the fraction has the sign of the seconds
+                    nanos = text.charAt(position) == '-' ? -nanos : nanos;
+                    position = fractionEnd + 1;
+                }
+
+            }
+
+            // the time requires at least one of its parts
+            if (position == timePosition) {
+                return fail(contextParsePosition, position);
+            }
+
+        } else if (!hasDays) {
+            return fail(contextParsePosition, position);
+        }
+
+        // total seconds like Math.addExact/multiplyExact, but without exceptions
+        if (numberOverflow
+            || days > Long.MAX_VALUE / 86_400 || days < Long.MIN_VALUE / 86_400
+            || hours > Long.MAX_VALUE / 3_600 || hours < Long.MIN_VALUE / 3_600
+            || minutes > Long.MAX_VALUE / 60 || minutes < Long.MIN_VALUE / 60
+            || overflowsAddition(minutes * 60, seconds)
+            || overflowsAddition(hours * 3_600, minutes * 60 + seconds)
+            || overflowsAddition(days * 86_400, hours * 3_600 + minutes * 60 + seconds)) {
+            return fail(contextParsePosition, contextParsePosition.getIndex());
+        }
+        long totalSeconds = days * 86_400 + hours * 3_600 + minutes * 60 + seconds;
+
+        // nanos adjusting below the minimum and negating the minimum overflow
+        if (totalSeconds == Long.MIN_VALUE && (nanos < 0 || (negate && nanos == 0))) {
+            return fail(contextParsePosition, contextParsePosition.getIndex());
+        }
+
+        Duration duration = Duration.ofSeconds(totalSeconds, nanos);
+        contextParsePosition.setIndex(position);
+        return (T) (negate ? duration.negated() : duration);
+
+    }
+
+    /**
+     * Parses a period like {@link Period#parse(CharSequence)}
+     * @param text text to parse
+     * @param contextParsePosition position to start at, set to the end of the period or its error index
+     * @return the period or null on an error
+     */
+    @SuppressWarnings("unchecked")
+    private T parsePeriod(final String text, final ParsePosition contextParsePosition) {
+
+        int position = contextParsePosition.getIndex();
+        numberOverflow = false;
+
+        int negate = 1;
+        if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            negate = text.charAt(position) == '-' ? -1 : 1;
+            position++;
+        }
+        if (!isDesignator(text, position, 'P')) {
+            return fail(contextParsePosition, position);
+        }
+        int partsPosition = ++position;
+
+        // years, months, weeks and days in this order, each optional
+        long[] values = periodValues;
+        Arrays.fill(values, 0L);
+        int end = scanNumber(text, position);
+        for (int part = 0; part < PERIOD_DESIGNATORS.length && end >= 0; part++) {
+            if (isDesignator(text, end, PERIOD_DESIGNATORS[part])) {
+                values[part] = parseNumber(text, position, end) * negate;
+                position = end + 1;
+                end = scanNumber(text, position);
+            }
+        }
+
+        if (position == partsPosition) {
+            return fail(contextParsePosition, position);
+        }
+
+        // like Math.multiplyExact/addExact on int, but without exceptions
+        long weekDays = values[2] * 7;
+        long days = values[3] + weekDays;
+        if (numberOverflow || !isInt(values[0]) || !isInt(values[1]) || !isInt(values[2]) || !isInt(values[3])
+            || !isInt(weekDays) || !isInt(days)) {
+            return fail(contextParsePosition, contextParsePosition.getIndex());
+        }
+
+        contextParsePosition.setIndex(position);
+        return (T) Period.of((int) values[0], (int) values[1], (int) days);
+
+    }
+
+    @Override
+    protected T parseText(String text, ParsePosition contextParsePosition) {
+        return classT == Duration.class
+            ? parseDuration(text, contextParsePosition) : parsePeriod(text, contextParsePosition);
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /* ****************************** format logic ****************************** */
+
+    // appends the duration like Duration.toString()
+    private static void appendDuration(final Duration duration, final StringBuilder stringBuilder) {
+
+        if (duration.isZero()) {
+            stringBuilder.append("PT0S");
+            return;
+        }
+
+        long seconds = duration.getSeconds();
+        int nanos = duration.getNano();
+        long effectiveSeconds = seconds < 0 && nanos > 0 ? seconds + 1 : seconds;
+        long hours = effectiveSeconds / 3_600;
+        int minutes = (int) (effectiveSeconds % 3_600 / 60);
+        int secs = (int) (effectiveSeconds % 60);
+
+        int start = stringBuilder.length();
+        stringBuilder.append("PT");
+        if (hours != 0) {
+            stringBuilder.append(hours).append('H');
+        }
+        if (minutes != 0) {
+            stringBuilder.append(minutes).append('M');
+        }
+        if (secs == 0 && nanos == 0 && stringBuilder.length() > start + 2) {
+            return;
+        }
+
+        if (seconds < 0 && nanos > 0 && secs == 0) {
+            stringBuilder.append("-0");
+        } else {
+            stringBuilder.append(secs);
+        }
+
+        if (nanos > 0) {
+            // the leading digit of the shifted nanos is replaced by the point, trailing zeros are cut
+            int pointPosition = stringBuilder.length();
+            stringBuilder.append(seconds < 0 ? 2L * NANOS_PER_SECOND - nanos : (long) nanos + NANOS_PER_SECOND);
+            while (stringBuilder.charAt(stringBuilder.length() - 1) == '0') {
+                stringBuilder.setLength(stringBuilder.length() - 1);
+            }
+            stringBuilder.setCharAt(pointPosition, '.');
+        }
+        stringBuilder.append('S');
+
+    }
+
+    // appends the period like Period.toString()
+    private static void appendPeriod(final Period period, final StringBuilder stringBuilder) {
+
+        if (period.isZero()) {
+            stringBuilder.append("P0D");
+            return;
+        }
+
+        stringBuilder.append('P');
+        if (period.getYears() != 0) {
+            stringBuilder.append(period.getYears()).append('Y');
+        }
+        if (period.getMonths() != 0) {
+            stringBuilder.append(period.getMonths()).append('M');
+        }
+        if (period.getDays() != 0) {
+            stringBuilder.append(period.getDays()).append('D');
+        }
+
+    }
+
+    @Override protected String formatObject(final T object) {
+        formatBuffer.setLength(0);
+        formatObjectTo(object, formatBuffer);
+        return formatBuffer.toString();
+    }
+
+    @Override protected boolean formatObjectTo(final T object, final StringBuilder stringBuilder) {
+        if (object instanceof Duration) {
+            appendDuration((Duration) object, stringBuilder);
+        } else {
+            appendPeriod((Period) object, stringBuilder);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,896 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.chrono.ChronoLocalDate;
+import java.time.chrono.IsoChronology;
+import java.time.chrono.IsoEra;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DecimalStyle;
+import java.time.format.ResolverStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed layout of a DateTimeFormatter consisting of fixed-width numeric fields, literals and the texts of months,
+ * days of week, AM/PM and eras only, e.g. yyyy-MM-dd, yyyy-MM-dd HH:mm:ss, HH:mm:ss.SSS, dd.MM.yyyy, yyyyMMdd,
+ * dd-MMM-yyyy or EEE, dd MMM yyyy hh:mm a. Such a layout is parsed by reading the digits at fixed offsets and
+ * matching the texts of the locale in tries, and resolved directly to LocalDate, LocalTime or LocalDateTime without
+ * the map-based intermediate of the DateTimeFormatter. It is formatted by writing the digits and texts of the field
+ * values directly.
+ * The layout is compiled from the description returned by {@link DateTimeFormatter#toString()}. Every formatter,
+ * whose description is not understood completely or which formats differently than the layout, and every text,
+ * which the layout does not parse and resolve to the very same result as the DateTimeFormatter, is left to the
+ * DateTimeFormatter (signaled by -1 respectively null).
+ * Instances are immutable and can be shared.
+ */
+final class TemporalLayout {
+
+    // indexes of the field values
+    static final int YEAR = 0;
+    static final int MONTH = 1;
+    static final int DAY = 2;
+    static final int HOUR = 3;
+    static final int MINUTE = 4;
+    static final int SECOND = 5;
+    static final int NANO = 6;
+    static final int DAY_OF_WEEK = 7;
+    static final int AMPM = 8;
+    static final int ERA = 9;
+    static final int CLOCK_HOUR_OF_AMPM = 10;
+    static final int HOUR_OF_AMPM = 11;
+    static final int VALUE_COUNT = 12;
+
+    // element kinds
+    private static final int LITERAL = 0;
+    private static final int NUMBER = 1;
+    private static final int FRACTION = 2;
+    private static final int TEXT = 3;
+
+    // range of epoch days of the years 0000 to 9999
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final long MIN_EPOCH_DAY = -DAYS_0000_TO_1970;
+    private static final long MAX_EPOCH_DAY = 2_932_896L;
+
+    private static final int[] POWERS_OF_TEN = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000 };
+
+    // element of a layout being compiled
+    private static final class Element {
+
+        final private int kind;
+        final private int slot;
+        final private int width;
+        final private String literal;
+        // true on a numeric field of variable width
+        final private boolean variable;
+        final private String[] texts;
+        final private LiteralMatcher textMatcher;
+
+        private Element(final int kind, final int slot, final int width, final String literal,
+            final boolean variable, final String[] texts, final LiteralMatcher textMatcher) {
+            this.kind = kind;
+            this.slot = slot;
+            this.width = width;
+            this.literal = literal;
+            this.variable = variable;
+            this.texts = texts;
+            this.textMatcher = textMatcher;
+        }
+
+        private static Element literal(final String literal) {
+            return new Element(LITERAL, -1, literal.length(), literal, false, null, null);
+        }
+
+        private static Element number(final int slot, final int width, final boolean variable) {
+            return new Element(NUMBER, slot, width, null, variable, null, null);
+        }
+
+        private static Element fraction(final int width) {
+            return new Element(FRACTION, NANO, width, null, false, null, null);
+        }
+
+        private static Element text(final int slot, final String[] texts, final LiteralMatcher textMatcher) {
+            return new Element(TEXT, slot, 0, null, false, texts, textMatcher);
+        }
+
+    }
+
+    final private int[] kinds;
+    final private int[] slots;
+    final private int[] widths;
+    final private String[] literals;
+
+    // texts of the text elements indexed by the field value minus the value of the first text, and their matchers
+    final private String[][] texts;
+    final private int[] textBases;
+    final private LiteralMatcher[] textMatchers;
+
+    // true on the last numeric element of a digit run starting with a variable-width field
+    final private boolean[] digitsMustEnd;
+
+    final private boolean yearOfEra;
+    final private boolean strict;
+    final private boolean caseInsensitive;
+    final private boolean hasDate;
+    final private boolean hasTime;
+    final private boolean hasTexts;
+    final private int presentSlots;
+    final private int prefixEnd;
+
+    private TemporalLayout(final List<Element> elements, final boolean yearOfEra, final boolean strict,
+        final boolean caseInsensitive, final int presentSlots) {
+
+        int count = elements.size();
+        this.kinds = new int[count];
+        this.slots = new int[count];
+        this.widths = new int[count];
+        this.literals = new String[count];
+        this.texts = new String[count][];
+        this.textBases = new int[count];
+        this.textMatchers = new LiteralMatcher[count];
+        this.digitsMustEnd = new boolean[count];
+
+        boolean inVariableRun = false;
+        int textCount = 0;
+        for (int index = 0; index < count; index++) {
+            Element element = elements.get(index);
+            kinds[index] = element.kind;
+            slots[index] = element.slot;
+            widths[index] = element.width;
+            literals[index] = element.literal;
+            if (kinds[index] == TEXT) {
+                texts[index] = element.texts;
+                textBases[index] = firstTextValue(slots[index]);
+                textMatchers[index] = element.textMatcher;
+                textCount++;
+            } else if (kinds[index] != LITERAL) {
+                inVariableRun |= element.variable;
+                int nextKind = index + 1 == count ? LITERAL : elements.get(index + 1).kind;
+                boolean runEnds = nextKind != NUMBER && nextKind != FRACTION;
+                digitsMustEnd[index] = inVariableRun && runEnds;
+                inVariableRun &= !runEnds;
+            }
+        }
+
+        this.yearOfEra = yearOfEra;
+        this.strict = strict;
+        this.caseInsensitive = caseInsensitive;
+        this.presentSlots = presentSlots;
+        this.hasDate = (presentSlots & 0b111) == 0b111;
+        this.hasTime = (presentSlots & 0b11000) == 0b11000;
+        this.hasTexts = textCount > 0;
+
+        int fractionIndex = 0;
+        while (fractionIndex < count && kinds[fractionIndex] != FRACTION) {
+            fractionIndex++;
+        }
+        this.prefixEnd = fractionIndex;
+
+    }
+
+    private boolean isPresent(final int slot) {
+        return (presentSlots & (1 << slot)) != 0;
+    }
+
+    // field value of the first text of a text field
+    private static int firstTextValue(final int slot) {
+        return slot == MONTH || slot == DAY_OF_WEEK ? 1 : 0;
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* compiling ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Builds the matcher of the texts of a text field. Like the DateTimeFormatter, which tries the texts in order of
+     * descending length, the longest text matching at a position wins.
+     * @param texts texts indexed by the field value minus the value of the first text
+     * @param firstValue field value of the first text
+     * @param caseInsensitive true, if texts are matched case-insensitive
+     * @return the matcher or null, if a text is empty, starts with a digit or is not unique
+     */
+    private static LiteralMatcher buildTextMatcher(final String[] texts, final int firstValue,
+        final boolean caseInsensitive) {
+
+        LiteralMatcher textMatcher = new LiteralMatcher(caseInsensitive);
+
+        for (int index = 0; index < texts.length; index++) {
+            String text = texts[index];
+            if (text.isEmpty() || (text.charAt(0) >= '0' && text.charAt(0) <= '9')
+                || !textMatcher.add(text, firstValue + index)) {
+                return null;
+            }
+        }
+
+        return textMatcher;
+
+    }
+
+    /**
+     * Returns the texts of a text field in the locale of the passed DateTimeFormatter
+     * @param slot slot of the text field
+     * @param textStyle style of the texts
+     * @param dateTimeFormatter formatter providing the locale
+     * @return texts indexed by the field value minus the value of the first text
+     */
+    private static String[] getTexts(final int slot, final TextStyle textStyle,
+        final DateTimeFormatter dateTimeFormatter) {
+
+        ChronoField field = slot == MONTH ? ChronoField.MONTH_OF_YEAR : slot == DAY_OF_WEEK
+            ? ChronoField.DAY_OF_WEEK : slot == AMPM ? ChronoField.AMPM_OF_DAY : ChronoField.ERA;
+        DateTimeFormatter textFormatter = new DateTimeFormatterBuilder().appendText(field, textStyle)
+            .toFormatter(dateTimeFormatter.getLocale());
+
+        String[] texts = new String[slot == MONTH ? 12 : slot == DAY_OF_WEEK ? 7 : 2];
+        for (int index = 0; index < texts.length; index++) {
+            TemporalAccessor temporal = slot == MONTH ? Month.of(index + 1) : slot == DAY_OF_WEEK
+                ? DayOfWeek.of(index + 1) : slot == AMPM ? LocalTime.of(index * 12, 0) : IsoEra.of(index);
+            texts[index] = textFormatter.format(temporal);
+        }
+
+        return texts;
+
+    }
+
+    /**
+     * Compiles the layout of the passed DateTimeFormatter for parsing to the passed temporal class
+     * @param dateTimeFormatter formatter to compile the layout of
+     * @param temporalClass class of the parse result
+     * @param caseInsensitive true, if texts and literals are parsed case-insensitive
+     * @return the layout or null, if the formatter or the class is not supported
+     */
+    static TemporalLayout compile(final DateTimeFormatter dateTimeFormatter, final Class<?> temporalClass,
+        final boolean caseInsensitive) {
+
+        if (!(temporalClass.equals(LocalDate.class) || temporalClass.equals(LocalTime.class)
+            || temporalClass.equals(LocalDateTime.class))) {
+            return null;
+        }
+
+        if (dateTimeFormatter.getZone() != null
+            || !(dateTimeFormatter.getChronology() == null
+                || dateTimeFormatter.getChronology().equals(IsoChronology.INSTANCE))
+            || !dateTimeFormatter.getDecimalStyle().equals(DecimalStyle.STANDARD)
+            || dateTimeFormatter.getResolverFields() != null
+            || dateTimeFormatter.getResolverStyle() == ResolverStyle.LENIENT) {
+            return null;
+        }
+
+        boolean strict = dateTimeFormatter.getResolverStyle() == ResolverStyle.STRICT;
+        String description = dateTimeFormatter.toString();
+        List<Element> elements = new ArrayList<>();
+        boolean yearOfEra = false;
+        int presentSlots = 0;
+        int position = 0;
+
+        while (position < description.length()) {
+
+            Element element;
+
+            if (description.charAt(position) == '\'') {
+
+                // literal, an apostrophe inside is ambiguous with adjacent literals in the description
+                int end = description.indexOf('\'', position + 1);
+                if (end <= position + 1 || (end + 1 < description.length() && description.charAt(end + 1) == '\'')) {
+                    return null;
+                }
+                element = Element.literal(description.substring(position + 1, end));
+                position = end + 1;
+
+            } else {
+
+                int open = description.indexOf('(', position);
+                int close = description.indexOf(')', position);
+                if (open < 0 || close < open) {
+                    return null;
+                }
+                String name = description.substring(position, open);
+                String[] args = description.substring(open + 1, close).split(",");
+                position = close + 1;
+
+                if (name.equals("Value")) {
+
+                    int slot;
+                    switch (args[0]) {
+                        case "YearOfEra":    yearOfEra = true; slot = YEAR; break;
+                        case "Year":         slot = YEAR; break;
+                        case "MonthOfYear":  slot = MONTH; break;
+                        case "DayOfMonth":   slot = DAY; break;
+                        case "HourOfDay":    slot = HOUR; break;
+                        case "ClockHourOfAmPm": slot = CLOCK_HOUR_OF_AMPM; break;
+                        case "HourOfAmPm":   slot = HOUR_OF_AMPM; break;
+                        case "MinuteOfHour": slot = MINUTE; break;
+                        case "SecondOfMinute": slot = SECOND; break;
+                        default: return null;
+                    }
+
+                    int width;
+                    boolean variable;
+                    if (args.length == 2) {
+                        // Value(field,width) is fixed width
+                        width = Integer.parseInt(args[1]);
+                        variable = false;
+                    } else if (args.length == 4 && slot == YEAR && args[1].equals("4")
+                        && args[3].equals("EXCEEDS_PAD")) {
+                        // yyyy, uuuu: more than 4 digits are possible, but only signed
+                        width = 4;
+                        variable = true;
+                    } else {
+                        return null;
+                    }
+                    element = Element.number(slot, width, variable);
+
+                } else if (name.equals("Fraction") && args.length == 3 && args[0].equals("NanoOfSecond")
+                    && args[1].equals(args[2]) && !args[1].equals("0")) {
+
+                    element = Element.fraction(Integer.parseInt(args[1]));
+
+                } else if (name.equals("Text") && args.length <= 2) {
+
+                    int slot;
+                    switch (args[0]) {
+                        case "MonthOfYear": slot = MONTH; break;
+                        case "DayOfWeek":   slot = DAY_OF_WEEK; break;
+                        case "AmPmOfDay":   slot = AMPM; break;
+                        case "Era":         slot = ERA; break;
+                        default: return null;
+                    }
+
+                    // narrow and stand-alone texts are ambiguous or parsed with the texts of other styles
+                    TextStyle textStyle = args.length == 1 ? TextStyle.FULL
+                        : args[1].equals("SHORT") ? TextStyle.SHORT : null;
+                    if (textStyle == null) {
+                        return null;
+                    }
+
+                    String[] fieldTexts;
+                    try {
+                        fieldTexts = getTexts(slot, textStyle, dateTimeFormatter);
+                    } catch (DateTimeException dateTimeException) {
+                        return null;
+                    }
+                    LiteralMatcher textMatcher = buildTextMatcher(fieldTexts, firstTextValue(slot), caseInsensitive);
+                    if (textMatcher == null) {
+                        return null;
+                    }
+                    element = Element.text(slot, fieldTexts, textMatcher);
+
+                } else {
+                    return null;
+                }
+
+                int slotBit = 1 << element.slot;
+                if ((presentSlots & slotBit) != 0) {
+                    return null;
+                }
+                presentSlots |= slotBit;
+
+            }
+
+            elements.add(element);
+
+        }
+
+        // an era only with a year-of-era, which resolves strictly only with an era
+        if (isPresent(presentSlots, ERA) ? !yearOfEra : yearOfEra && strict) {
+            return null;
+        }
+
+        // AM/PM with exactly one hour, the hours of AM/PM only with AM/PM
+        int hourSlots = presentSlots & ((1 << HOUR) | (1 << CLOCK_HOUR_OF_AMPM) | (1 << HOUR_OF_AMPM));
+        if (isPresent(presentSlots, AMPM) ? Integer.bitCount(hourSlots) != 1 : (hourSlots & ~(1 << HOUR)) != 0) {
+            return null;
+        }
+        if (hourSlots != 0) {
+            presentSlots |= 1 << HOUR;
+        }
+
+        // only complete dates and times with at least hour and minute, a fraction only with seconds, a day of week
+        // only with a date
+        int dateSlots = presentSlots & 0b111;
+        int timeSlots = presentSlots & 0b1111000;
+        if ((dateSlots != 0 && dateSlots != 0b111)
+            || (timeSlots != 0 && timeSlots != 0b11000 && timeSlots != 0b111000 && timeSlots != 0b1111000)
+            || (isPresent(presentSlots, DAY_OF_WEEK) && dateSlots == 0)
+            || presentSlots == 0) {
+            return null;
+        }
+
+        TemporalLayout temporalLayout = new TemporalLayout(elements, yearOfEra, strict, caseInsensitive,
+            presentSlots);
+        return temporalLayout.formatsLike(dateTimeFormatter) ? temporalLayout : null;
+
+    }
+
+    private static boolean isPresent(final int presentSlots, final int slot) {
+        return (presentSlots & (1 << slot)) != 0;
+    }
+
+    /**
+     * Checks, if the layout formats samples of all texts like the DateTimeFormatter, which rules out formatters with
+     * customized texts sharing the description of the layout
+     * @param dateTimeFormatter formatter the layout was compiled from
+     * @return true, if all samples are formatted equally
+     */
+    private boolean formatsLike(final DateTimeFormatter dateTimeFormatter) {
+
+        int[] values = new int[VALUE_COUNT];
+        StringBuilder stringBuilder = new StringBuilder();
+
+        // 14 dates 29 days apart cover all months and days of week, AM and PM alternate, negated years cover eras
+        for (int index = 0; index < 28; index++) {
+
+            LocalDateTime sample = LocalDateTime.of(2024, 1, 1, index % 2 == 0 ? 9 : 21, 30)
+                .plusDays(29L * (index % 14));
+            if (index >= 14) {
+                sample = sample.withYear(-sample.getYear());
+            }
+
+            if (extract(sample, values)) {
+                stringBuilder.setLength(0);
+                format(values, 0, kinds.length, stringBuilder);
+                try {
+                    if (!stringBuilder.toString().equals(dateTimeFormatter.format(sample))) {
+                        return false;
+                    }
+                } catch (DateTimeException dateTimeException) {
+                    return false;
+                }
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* parsing ******************************** */
+    /* ************************************************************************** */
+
+    /**
+     * Parses the text at the passed position into the field values
+     * @param text text to parse
+     * @param position position to start at
+     * @param values array of {@link #VALUE_COUNT} field values to receive the parsed values
+     * @return the position after the layout or -1, if the text does not match the layout
+     */
+    int parse(final CharSequence text, int position, final int[] values) {
+
+        int length = text.length();
+
+        for (int index = 0; index < kinds.length; index++) {
+
+            if (kinds[index] == TEXT) {
+                long match = textMatchers[index].match(text, position);
+                if (match < 0) {
+                    return -1;
+                }
+                values[slots[index]] = LiteralMatcher.valueOf(match);
+                position = LiteralMatcher.endOf(match);
+                continue;
+            }
+
+            int width = widths[index];
+            if (position + width > length) {
+                return -1;
+            }
+
+            if (kinds[index] == LITERAL) {
+
+                String literal = literals[index];
+                for (int offset = 0; offset < width; offset++) {
+                    char c = text.charAt(position + offset);
+                    if (c != literal.charAt(offset) && !(caseInsensitive
+                        && LiteralMatcher.fold(c) == LiteralMatcher.fold(literal.charAt(offset)))) {
+                        return -1;
+                    }
+                }
+
+            } else {
+
+                int value = 0;
+                for (int offset = 0; offset < width; offset++) {
+                    int digit = text.charAt(position + offset) - '0';
+                    if (digit < 0 || digit > 9) {
+                        return -1;
+                    }
+                    value = value * 10 + digit;
+                }
+                values[slots[index]] = kinds[index] == FRACTION ? value * POWERS_OF_TEN[9 - width] : value;
+
+                if (digitsMustEnd[index] && position + width < length) {
+                    char next = text.charAt(position + width);
+                    if (next >= '0' && next <= '9') {
+                        return -1;
+                    }
+                }
+
+            }
+
+            position += width;
+
+        }
+
+        return position;
+
+    }
+
+    private static boolean isLeapYear(final int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Calculates the epoch day of the passed date like {@link LocalDate#toEpochDay()}
+     * @param year year
+     * @param month month of year
+     * @param day day of month
+     * @return epoch day
+     */
+    static long epochDay(final int year, final int month, final int day) {
+
+        long epochDay = 365L * year + (367 * month - 362) / 12 + day - 1;
+        if (year >= 0) {
+            epochDay += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            epochDay -= year / -4 - year / -100 + year / -400;
+        }
+        if (month > 2) {
+            epochDay -= isLeapYear(year) ? 1 : 2;
+        }
+
+        return epochDay - DAYS_0000_TO_1970;
+
+    }
+
+    // ISO day of week from 1 (Monday) to 7 (Sunday) of the passed epoch day
+    private static int dayOfWeek(final long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    /**
+     * Validates the parsed field values like the resolver of the DateTimeFormatter and resolves the year of an era
+     * and the hour of AM/PM to year and hour of day
+     * @param values parsed field values
+     * @return true, if the values are valid
+     */
+    private boolean validate(final int[] values) {
+
+        if (hasDate) {
+
+            if ((yearOfEra && values[YEAR] < 1) || values[MONTH] < 1 || values[MONTH] > 12
+                || values[DAY] < 1 || values[DAY] > 31) {
+                return false;
+            }
+            if (isPresent(ERA) && values[ERA] == 0) {
+                values[YEAR] = 1 - values[YEAR];
+            }
+            int lengthOfMonth = lengthOfMonth(values[YEAR], values[MONTH]);
+            if (values[DAY] > lengthOfMonth) {
+                if (strict) {
+                    return false;
+                }
+                // smart resolving uses the last valid day of the month
+                values[DAY] = lengthOfMonth;
+            }
+
+            // the day of week is cross-checked against the resolved date
+            if (isPresent(DAY_OF_WEEK)
+                && dayOfWeek(epochDay(values[YEAR], values[MONTH], values[DAY])) != values[DAY_OF_WEEK]) {
+                return false;
+            }
+
+        }
+
+        if (hasTime) {
+
+            if (isPresent(CLOCK_HOUR_OF_AMPM)) {
+                // smart resolving accepts 0 as clock hour, which is left to the DateTimeFormatter
+                if (values[CLOCK_HOUR_OF_AMPM] < 1 || values[CLOCK_HOUR_OF_AMPM] > 12) {
+                    return false;
+                }
+                values[HOUR] = values[CLOCK_HOUR_OF_AMPM] % 12 + values[AMPM] * 12;
+            } else if (isPresent(HOUR_OF_AMPM)) {
+                if (values[HOUR_OF_AMPM] > 11) {
+                    return false;
+                }
+                values[HOUR] = values[HOUR_OF_AMPM] + values[AMPM] * 12;
+            } else if (isPresent(AMPM) && values[HOUR] / 12 != values[AMPM]) {
+                // AM/PM is cross-checked against the hour of day
+                return false;
+            }
+
+            if (!isPresent(SECOND)) {
+                values[SECOND] = 0;
+            }
+            if (!isPresent(NANO)) {
+                values[NANO] = 0;
+            }
+            return values[HOUR] <= 23 && values[MINUTE] <= 59 && values[SECOND] <= 59;
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Resolves the parsed field values to an instance of the passed temporal class
+     * @param values parsed field values
+     * @param temporalClass LocalDate, LocalTime or LocalDateTime
+     * @return the resolved temporal or null, if the values cannot be resolved to the temporal class
+     */
+    TemporalAccessor resolve(final int[] values, final Class<?> temporalClass) {
+
+        if (!isResolvable(values, temporalClass)) {
+            return null;
+        } else if (temporalClass == LocalDate.class) {
+            return LocalDate.of(values[YEAR], values[MONTH], values[DAY]);
+        } else if (temporalClass == LocalTime.class) {
+            return LocalTime.of(values[HOUR], values[MINUTE], values[SECOND], values[NANO]);
+        } else {
+            return LocalDateTime.of(values[YEAR], values[MONTH], values[DAY],
+                values[HOUR], values[MINUTE], values[SECOND], values[NANO]);
+        }
+
+    }
+
+    /**
+     * Validates the parsed field values and checks, if they can be resolved to the passed temporal class
+     * @param values parsed field values
+     * @param temporalClass LocalDate, LocalTime or LocalDateTime
+     * @return true, if {@link #resolve(int[], Class)} returns a temporal
+     */
+    boolean isResolvable(final int[] values, final Class<?> temporalClass) {
+
+        if (!validate(values)) {
+            return false;
+        } else if (temporalClass == LocalDate.class) {
+            return hasDate;
+        } else if (temporalClass == LocalTime.class) {
+            return hasTime;
+        } else if (temporalClass == LocalDateTime.class) {
+            return hasDate && hasTime;
+        } else {
+            return false;
+        }
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************* formatting ******************************* */
+    /* ************************************************************************** */
+
+    /**
+     * Returns the number of elements before the fraction of seconds, which is the number of all elements, if the
+     * layout has no fraction
+     * @return end of the prefix not depending on the nano of second
+     */
+    int getPrefixEnd() { return prefixEnd; }
+
+    /**
+     * Returns the number of elements of the layout
+     * @return number of elements
+     */
+    int getElementCount() { return kinds.length; }
+
+    // the DateTimeFormatter writes signs and more digits for years not fitting into 4 digits
+    private boolean fitsYear(final int year) {
+        return year <= 9999 && year >= (isPresent(ERA) ? -9998 : yearOfEra ? 1 : 0);
+    }
+
+    /**
+     * Extracts the field values of the layout from the passed temporal
+     * @param temporal LocalDate, LocalTime, LocalDateTime or a date of another chronology to extract the values from
+     * @param values array of {@link #VALUE_COUNT} field values to receive the values
+     * @return true, if the temporal has all fields of the layout and the year fits into it
+     */
+    boolean extract(final TemporalAccessor temporal, final int[] values) {
+
+        if (hasDate) {
+            LocalDate date;
+            if (temporal instanceof LocalDateTime) {
+                date = ((LocalDateTime) temporal).toLocalDate();
+            } else if (temporal instanceof LocalDate) {
+                date = (LocalDate) temporal;
+            } else if (temporal instanceof ChronoLocalDate && !hasTexts && !hasTime) {
+                return extractChronoDate((ChronoLocalDate) temporal, values);
+            } else {
+                return false;
+            }
+            values[YEAR] = date.getYear();
+            values[MONTH] = date.getMonthValue();
+            values[DAY] = date.getDayOfMonth();
+            if (!fitsYear(values[YEAR])) {
+                return false;
+            }
+        }
+
+        if (hasTime) {
+            LocalTime time;
+            if (temporal instanceof LocalDateTime) {
+                time = ((LocalDateTime) temporal).toLocalTime();
+            } else if (temporal instanceof LocalTime) {
+                time = (LocalTime) temporal;
+            } else {
+                return false;
+            }
+            values[HOUR] = time.getHour();
+            values[MINUTE] = time.getMinute();
+            values[SECOND] = time.getSecond();
+            values[NANO] = time.getNano();
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Extracts the field values of a numeric date layout from the passed date of a non-ISO chronology. Like the
+     * DateTimeFormatter the fields of the date's chronology are formatted, while parsing resolves ISO fields.
+     * @param date date to extract the values from
+     * @param values array of {@link #VALUE_COUNT} field values to receive the values
+     * @return true, if the year fits into the layout
+     */
+    private boolean extractChronoDate(final ChronoLocalDate date, final int[] values) {
+        values[YEAR] = date.get(yearOfEra ? ChronoField.YEAR_OF_ERA : ChronoField.YEAR);
+        values[MONTH] = date.get(ChronoField.MONTH_OF_YEAR);
+        values[DAY] = date.get(ChronoField.DAY_OF_MONTH);
+        return fitsYear(values[YEAR]);
+    }
+
+    /**
+     * Extracts the field values of the layout from the passed epoch day and time of a temporal of the passed class
+     * @param epochDay epoch day of the date
+     * @param secondOfDay second of the day of the time
+     * @param nano nano of the second of the time
+     * @param temporalClass LocalDate or LocalDateTime
+     * @param values array of {@link #VALUE_COUNT} field values to receive the values
+     * @return true, if the temporal class has all fields of the layout and the year fits into it
+     */
+    boolean extract(final long epochDay, final int secondOfDay, final int nano, final Class<?> temporalClass,
+        final int[] values) {
+
+        if (!(temporalClass == LocalDateTime.class || (temporalClass == LocalDate.class && !hasTime))) {
+            return false;
+        }
+
+        if (hasDate) {
+
+            if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+                return false;
+            }
+
+            // like LocalDate.ofEpochDay() based on years starting in March, which are never negative here
+            long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+            long year = (400 * zeroDay + 591) / 146_097;
+            long dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+            if (dayOfYear < 0) {
+                year--;
+                dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+            }
+            int marchMonth = ((int) dayOfYear * 5 + 2) / 153;
+
+            values[YEAR] = (int) year + marchMonth / 10;
+            values[MONTH] = (marchMonth + 2) % 12 + 1;
+            values[DAY] = (int) dayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+            if (!fitsYear(values[YEAR])) {
+                return false;
+            }
+
+        }
+
+        if (hasTime) {
+            values[HOUR] = secondOfDay / 3_600;
+            values[MINUTE] = secondOfDay / 60 % 60;
+            values[SECOND] = secondOfDay % 60;
+            values[NANO] = nano;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Returns a key of the field values formatted by the prefix, which is equal for temporals differing only in the
+     * nano of second. Texts are covered, because they are derived from the other field values.
+     * @param values field values
+     * @return non-negative key of the prefix
+     */
+    long prefixKey(final int[] values) {
+        // years of eras before the common era are negative
+        long key = isPresent(YEAR) ? values[YEAR] + 10_000 : 0;
+        for (int slot = MONTH; slot < NANO; slot++) {
+            key = key * 100 + (isPresent(slot) ? values[slot] : 0);
+        }
+        return key;
+    }
+
+    // displayed value of a field, which is derived from the field values for all fields but the numeric ones
+    private int displayValue(final int slot, final int[] values) {
+        switch (slot) {
+            case YEAR:
+                return yearOfEra && values[YEAR] < 1 ? 1 - values[YEAR] : values[YEAR];
+            case DAY_OF_WEEK:
+                return dayOfWeek(epochDay(values[YEAR], values[MONTH], values[DAY]));
+            case AMPM:
+                return values[HOUR] / 12;
+            case ERA:
+                return values[YEAR] < 1 ? 0 : 1;
+            case CLOCK_HOUR_OF_AMPM:
+                return values[HOUR] % 12 == 0 ? 12 : values[HOUR] % 12;
+            case HOUR_OF_AMPM:
+                return values[HOUR] % 12;
+            default:
+                return values[slot];
+        }
+    }
+
+    /**
+     * Formats the passed range of elements of the layout
+     * @param values field values
+     * @param from index of the first element
+     * @param to index after the last element
+     * @param stringBuilder string builder to append the elements to
+     */
+    void format(final int[] values, final int from, final int to, final StringBuilder stringBuilder) {
+
+        for (int index = from; index < to; index++) {
+
+            if (kinds[index] == LITERAL) {
+                stringBuilder.append(literals[index]);
+            } else if (kinds[index] == TEXT) {
+                stringBuilder.append(texts[index][displayValue(slots[index], values) - textBases[index]]);
+            } else {
+                int width = widths[index];
+                int value = kinds[index] == FRACTION
+                    ? values[slots[index]] / POWERS_OF_TEN[9 - width] : displayValue(slots[index], values);
+                for (int digit = width - 1; digit >= 0; digit--) {
+                    stringBuilder.append((char) ('0' + value / POWERS_OF_TEN[digit] % 10));
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache returning canonical instances of equal values, e.g. of prices, dates or IDs repeated across the
+ * rows of long-lived datasets, so the dataset retains one instance per value instead of one per row. A formatter
+ * with an interner replaces each parsed value by its canonical instance. Values must be immutable.
+ * <p>
+ * The interner is two-way set associative: a set keeps its two most recently used values, so memory is capped by
+ * the capacity. It is safe to share between threads and formatters of the same type: values are replaced without
+ * locking, racing updates only lose canonical instances. The memory saved is estimated by the shallow and nested
+ * sizes of the discarded duplicates on a 64 bit JVM with compressed references.
+ * @param <T> type of the values
+ */
+public final class ValueInterner<T> {
+
+    final private Object[] values;
+    final private int setMask;
+    final private ToLongFunction<? super T> sizeEstimator;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Constructs a new interner estimating the sizes of numbers, strings and dates by {@link #estimateSize(Object)}
+     * @param capacity maximum number of values kept, rounded up to a power of two (at least 2)
+     */
+    public ValueInterner(final int capacity) {
+        this(capacity, ValueInterner::estimateSize);
+    }
+
+    /**
+     * Constructs a new interner
+     * @param capacity maximum number of values kept, rounded up to a power of two (at least 2)
+     * @param sizeEstimator estimator of the bytes retained by a value
+     */
+    public ValueInterner(final int capacity, final ToLongFunction<? super T> sizeEstimator) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity " + capacity + " not supported");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.values = new Object[size];
+        this.setMask = (size >>> 1) - 1;
+        this.sizeEstimator = Objects.requireNonNull(sizeEstimator, "sizeEstimator");
+    }
+
+    public int getCapacity() { return values.length; }
+
+    public long getHitCount() { return hitCount.sum(); }
+
+    public long getMissCount() { return missCount.sum(); }
+
+    /**
+     * Returns the estimated bytes of the duplicates replaced by canonical instances, which are not retained
+     * @return the saved bytes
+     */
+    public long getSavedBytes() { return savedBytes.sum(); }
+
+    /**
+     * Removes all values and resets the statistics
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        hitCount.reset();
+        missCount.reset();
+        savedBytes.reset();
+    }
+
+    /* ************************************************************************** */
+    /* ********************************* sizes ********************************** */
+    /* ************************************************************************** */
+
+    // size of an array with the passed bytes of elements, aligned to 8 bytes
+    private static long arraySize(final long elementBytes) {
+        return (16 + elementBytes + 7) & ~7L;
+    }
+
+    /**
+     * Estimates the bytes retained by a value of a common type, including the instances it references
+     * @param value value
+     * @return the estimated bytes or 16 for other types, e.g. Integer or Year
+     */
+    public static long estimateSize(final Object value) {
+
+        if (value instanceof BigDecimal) {
+            // the unscaled value is kept as long up to 18 digits, else as BigInteger
+            BigDecimal bigDecimal = (BigDecimal) value;
+            return 40 + (bigDecimal.precision() > 18 ? estimateSize(bigDecimal.unscaledValue()) : 0);
+        } else if (value instanceof BigInteger) {
+            return 40 + arraySize(((((BigInteger) value).bitLength() + 31) >>> 5) << 2);
+        } else if (value instanceof String) {
+            String string = (String) value;
+            // compact strings store Latin-1 texts with one byte per char
+            boolean latin1 = true;
+            for (int index = 0; index < string.length() && latin1; index++) {
+                latin1 = string.charAt(index) <= 0xFF;
+            }
+            return 24 + arraySize(latin1 ? string.length() : (long) string.length() << 1);
+        } else if (value instanceof LocalDateTime) {
+            return 24 + 24 + 24;
+        } else if (value instanceof LocalDate || value instanceof LocalTime || value instanceof Instant
+            || value instanceof YearMonth || value instanceof Long || value instanceof Double) {
+            return 24;
+        }
+        return 16;
+
+    }
+
+    /* ************************************************************************** */
+    /* ******************************** interning ******************************* */
+    /* ************************************************************************** */
+
+    /**
+     * Returns the canonical instance of a value, which is added on a miss
+     * @param value value (non-null)
+     * @return the canonical value equal to the passed one
+     */
+    @SuppressWarnings("unchecked")
+    public T intern(final T value) {
+
+        int hash = value.hashCode() * 0x9E3779B9;
+        int first = ((hash ^ (hash >>> 16)) & setMask) << 1;
+
+        Object canonical = values[first];
+        if (value.equals(canonical)) {
+            count(value, canonical);
+            return (T) canonical;
+        }
+
+        Object second = values[first + 1];
+        if (value.equals(second)) {
+            // most recently used first
+            values[first + 1] = canonical;
+            values[first] = second;
+            count(value, second);
+            return (T) second;
+        }
+
+        // the least recently used value is evicted
+        missCount.increment();
+        values[first + 1] = canonical;
+        values[first] = value;
+        return value;
+
+    }
+
+    private void count(final T value, final Object canonical) {
+        hitCount.increment();
+        if (value != canonical) {
+            savedBytes.add(sizeEstimator.applyAsLong(value));
+        }
+    }
+
+}
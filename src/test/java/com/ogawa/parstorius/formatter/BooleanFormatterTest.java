@@ -24,6 +24,8 @@ import com.ogawa.parstorius.PARSE_SKIP_MODE;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
 import java.util.List;
 
 public class BooleanFormatterTest extends FormatterTest<Boolean, BooleanFormatter> {
@@ -180,6 +182,40 @@ public class BooleanFormatterTest extends FormatterTest<Boolean, BooleanFormatte
     Assertions.assertEquals(false, f.parse("cause error"));
   }
 
+  @Test
+  @DisplayName("parse the longest representative")
+  void parseLongest() {
+    BooleanFormatter f = new BooleanFormatter(List.of("y", "yes", "1"), List.of("n", "no", "0", "none"), false,
+        PARSE_SKIP_MODE.WHITESPACES, false);
+
+    Assertions.assertEquals(Boolean.TRUE, f.parse("yes"));
+    Assertions.assertEquals(3, f.getLastParsePosition().getIndex());
+    Assertions.assertEquals(Boolean.TRUE, f.parse("y"));
+    Assertions.assertEquals(1, f.getLastParsePosition().getIndex());
+    Assertions.assertEquals(Boolean.FALSE, f.parse("nonex"));
+    Assertions.assertEquals(4, f.getLastParsePosition().getIndex());
+    Assertions.assertEquals(Boolean.FALSE, f.parse("non"));
+    Assertions.assertEquals(2, f.getLastParsePosition().getIndex());
+
+    ParsePosition parsePosition = new ParsePosition(3);
+    Assertions.assertEquals(Boolean.TRUE, f.parse("ok: 1;", parsePosition));
+    Assertions.assertEquals(5, parsePosition.getIndex());
+
+    Assertions.assertNull(f.parse("x"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+
+    // the representatives are matched again after reconfiguration
+    Assertions.assertNull(f.parse("YES"));
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(Boolean.TRUE, f.parse("YES"));
+    f.setTrueList(List.of("ja"));
+    Assertions.assertEquals(Boolean.TRUE, f.parse("JA"));
+    Assertions.assertEquals(Boolean.FALSE, f.parse("Nein"));
+    Assertions.assertEquals(1, f.getLastParsePosition().getIndex());
+    Assertions.assertNull(f.parse("yes"));
+  }
+
   @Override public BooleanFormatter createDefaultFormatter() {
     return new BooleanFormatter(List.of("true", "yes", "-1", "1"), List.of("false", "no", "0"), true,
         PARSE_SKIP_MODE.NO_SKIP, true);
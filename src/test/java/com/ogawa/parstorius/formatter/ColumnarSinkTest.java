@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.ColumnarSink;
+import com.ogawa.parstorius.NumberFormatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.TemporalAccessorFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+public class ColumnarSinkTest {
+
+  private static <T extends Number> NumberFormatter<T> createNumberFormatter(final Class<T> numberClass) {
+    return new NumberFormatter<>(numberClass, new DecimalFormat("0.#", DecimalFormatSymbols.getInstance(Locale.US)),
+        false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  private static <T extends TemporalAccessor> TemporalAccessorFormatter<T> createDateFormatter(
+      final Class<T> temporalClass, final DateTimeFormatter dateTimeFormatter) {
+    return new TemporalAccessorFormatter<>(temporalClass, dateTimeFormatter, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Test
+  @DisplayName("append rows")
+  void appendRows() {
+    ColumnarSink sink = new ColumnarSink();
+    ColumnarSink.LongColumn longs = sink.addLongColumn(createNumberFormatter(Long.class));
+    ColumnarSink.DoubleColumn doubles = sink.addDoubleColumn(createNumberFormatter(Double.class));
+    ColumnarSink.EpochDayColumn days = sink.addEpochDayColumn(
+        createDateFormatter(LocalDate.class, DateTimeFormatter.ISO_LOCAL_DATE));
+
+    for (int row = 0; row < 3000; row++) {
+      sink.appendRow(String.valueOf(row), row + ".5", LocalDate.ofEpochDay(row).toString());
+    }
+    sink.appendRow("", "x");
+
+    Assertions.assertEquals(3001, sink.getRowCount());
+    Assertions.assertEquals(2999, longs.getLong(2999));
+    Assertions.assertEquals(2999.5, doubles.getDouble(2999));
+    Assertions.assertEquals(2999, days.getEpochDay(2999));
+    Assertions.assertFalse(days.isNull(2999));
+
+    Assertions.assertTrue(longs.isNull(3000));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.MISSING_VALUE, longs.getParseResultCause(3000));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, doubles.getParseResultCause(3000));
+    Assertions.assertTrue(days.isNull(3000));
+    Assertions.assertThrows(IllegalStateException.class, () -> sink.addLongColumn(createNumberFormatter(Long.class)));
+  }
+
+  @Test
+  @DisplayName("record values failing conversion as errors")
+  void appendInconvertible() {
+    ColumnarSink sink = new ColumnarSink();
+    ColumnarSink.LongColumn longs = sink.addLongColumn(createNumberFormatter(BigInteger.class));
+    ColumnarSink.EpochDayColumn days = sink.addEpochDayColumn(
+        createDateFormatter(LocalDate.class, DateTimeFormatter.ISO_LOCAL_DATE));
+
+    sink.appendRow("1", "1970-01-02");
+    sink.appendRow("18446744073709551616", "+10000000-01-01");
+    sink.appendRow("3", "1970-01-04");
+
+    Assertions.assertEquals(3, longs.size());
+    Assertions.assertEquals(3, days.size());
+
+    Assertions.assertTrue(longs.isNull(1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, longs.getParseResultCause(1));
+    Assertions.assertEquals(0, longs.getLong(1));
+    Assertions.assertTrue(days.isNull(1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, days.getParseResultCause(1));
+    Assertions.assertEquals(0, days.getEpochDay(1));
+
+    // the following rows stay aligned
+    Assertions.assertEquals(3, longs.getLong(2));
+    Assertions.assertEquals(3, days.getEpochDay(2));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, days.getParseResultCause(2));
+  }
+
+  @Test
+  @DisplayName("reject formatters of other value classes")
+  void rejectValueClasses() {
+    ColumnarSink sink = new ColumnarSink();
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> sink.addLongColumn(createNumberFormatter(Double.class)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> sink.addEpochDayColumn(createDateFormatter(LocalTime.class, DateTimeFormatter.ISO_LOCAL_TIME)));
+    Assertions.assertEquals(0, sink.getColumnCount());
+
+    sink.addDoubleColumn(createNumberFormatter(Integer.class));
+    Assertions.assertEquals(1, sink.getColumnCount());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.DelimitedRowWriter;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.QUOTE_MODE;
+import com.ogawa.parstorius.RadixNumberFormatter;
+import com.ogawa.parstorius.StringFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class DelimitedRowWriterTest {
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private DelimitedRowWriter createWriter(final QUOTE_MODE quoteMode, final Charset charset) {
+    return new DelimitedRowWriter(List.of(new StringFormatter(false, 0, true).setFormatNullText("NULL"),
+        new RadixNumberFormatter<>(Integer.class, 10, false, PARSE_SKIP_MODE.NO_SKIP, true)), ',', '"', quoteMode,
+        Channels.newChannel(output), charset);
+  }
+
+  private String written(final Charset charset) {
+    return output.toString(charset);
+  }
+
+  @Test
+  @DisplayName("quote values as needed")
+  void quoteAsNeeded() throws IOException {
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.AS_NEEDED, null)) {
+      writer.writeRow("plain", 1).writeRow("a,b", -2).writeRow("say \"hi\"", 3).writeRow("two\nlines", 4)
+          .writeRow(null, null).writeRow("only");
+    }
+    Assertions.assertEquals("plain,1\n\"a,b\",-2\n\"say \"\"hi\"\"\",3\n\"two\nlines\",4\nNULL,null\nonly,null\n",
+        written(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("quote all values except the null text")
+  void quoteAlways() throws IOException {
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.ALWAYS, null).setLineSeparator("\r\n")) {
+      writer.writeRow("a", 1).writeRow(null, 2).writeRow("NULL", 3).writeRow("", 4);
+    }
+    Assertions.assertEquals("\"a\",\"1\"\r\nNULL,\"2\"\r\n\"NULL\",\"3\"\r\n\"\",\"4\"\r\n",
+        written(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("escape values, which are not quoted")
+  void quoteNever() throws IOException {
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.NEVER, null).setEscapeChar('\\')) {
+      Assertions.assertEquals('\\', writer.getEscapeChar());
+      writer.writeRow("a,b\\c\nd\"e", 1);
+    }
+    Assertions.assertEquals("a\\,b\\\\c\\\nd\"e,1\n", written(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("escape quotes by another escape char")
+  void escapeQuoted() throws IOException {
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.AS_NEEDED, null).setEscapeChar('\\')) {
+      writer.writeRow("say \"hi\"", 1).writeRow("back\\slash", 2).writeRow("a\\,b", 3);
+    }
+    // escape chars are escaped inside quotes
+    Assertions.assertEquals("\"say \\\"hi\\\"\",1\n\"back\\\\slash\",2\n\"a\\\\,b\",3\n",
+        written(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("flush encoded rows beyond the buffer sizes")
+  void flush() throws IOException {
+    String value = "äöü€ß".repeat(10_000);
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.AS_NEEDED, StandardCharsets.UTF_16LE)
+        .setFlushThreshold(1_000)) {
+      writer.writeRow("first", 1);
+      Assertions.assertEquals(0, output.size());
+      writer.writeRow(value, 2);
+      Assertions.assertEquals("first,1\n" + value + ",2\n", written(StandardCharsets.UTF_16LE));
+      writer.writeRow("last", 3);
+      writer.flush();
+      writer.flush();
+    }
+    Assertions.assertEquals("first,1\n" + value + ",2\nlast,3\n", written(StandardCharsets.UTF_16LE));
+  }
+
+  @Test
+  @DisplayName("replace unmappable chars")
+  void encodeUnmappable() throws IOException {
+    try (DelimitedRowWriter writer = createWriter(QUOTE_MODE.AS_NEEDED, StandardCharsets.ISO_8859_1)) {
+      Assertions.assertEquals(StandardCharsets.ISO_8859_1, writer.getCharset());
+      writer.writeRow("ä€", 1);
+    }
+    Assertions.assertEquals("ä?,1\n", written(StandardCharsets.ISO_8859_1));
+  }
+}
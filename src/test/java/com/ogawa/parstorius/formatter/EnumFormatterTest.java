@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.EnumFormatter;
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.util.Map;
+
+public class EnumFormatterTest extends FormatterTest<EnumFormatterTest.Level, EnumFormatter<EnumFormatterTest.Level>> {
+
+  enum Level { LOW, MEDIUM, HIGH, PARSE_OF_NULL, MISSING_VALUE, NULL_AS_TEXT, ERROR, TEXT_VALUE }
+
+  EnumFormatterTest() {
+  }
+
+  @Test
+  @DisplayName("format and parse names and labels")
+  void roundTrip() {
+    EnumFormatter<Level> f = createDefaultFormatter();
+
+    for (Level level : Level.values()) {
+      Assertions.assertEquals(level.name(), f.format(level));
+      Assertions.assertEquals(level, f.parse(level.name()));
+    }
+
+    f.setLabels(Map.of(Level.LOW, "lo", Level.HIGH, "hi"));
+    Assertions.assertEquals("lo", f.format(Level.LOW));
+    Assertions.assertEquals("MEDIUM", f.format(Level.MEDIUM));
+    Assertions.assertEquals("hi", f.formatTo(Level.HIGH, new StringBuilder()).toString());
+    Assertions.assertEquals(Level.LOW, f.parse("lo"));
+    Assertions.assertEquals(Level.LOW, f.parse("LOW"));
+    Assertions.assertEquals("lo", f.getLabels().get(Level.LOW));
+    Assertions.assertEquals("MEDIUM", f.getLabels().get(Level.MEDIUM));
+  }
+
+  @Test
+  @DisplayName("parse aliases and the longest match")
+  void parseAliases() {
+    EnumFormatter<Level> f = createDefaultFormatter().setParseUntilEnd(false)
+        .setAliases(Map.of("MED", Level.MEDIUM, "M", Level.MEDIUM));
+
+    Assertions.assertEquals(Level.MEDIUM, f.parse("MED"));
+    ParsePosition parsePosition = new ParsePosition(0);
+    Assertions.assertEquals(Level.MEDIUM, f.parse("MEDIUM;", parsePosition));
+    Assertions.assertEquals(6, parsePosition.getIndex());
+    parsePosition = new ParsePosition(0);
+    Assertions.assertEquals(Level.MEDIUM, f.parse("MEDI", parsePosition));
+    Assertions.assertEquals(3, parsePosition.getIndex());
+
+    Assertions.assertNull(f.parse("X"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+    Assertions.assertNotNull(f.getExceptionOnParsing());
+
+    // not parsed until the end, the constant is kept
+    f.setParseUntilEnd(true);
+    Assertions.assertEquals(Level.LOW, f.parse("LOWER"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(3, f.getLastParsePosition().getErrorIndex());
+  }
+
+  @Test
+  @DisplayName("reject texts matching other constants")
+  void rejectAmbiguous() {
+    EnumFormatter<Level> f = createDefaultFormatter().setLabels(Map.of(Level.LOW, "lo"));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> f.setLabels(Map.of(Level.HIGH, "LOW")));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> f.setLabels(Map.of(Level.HIGH, "")));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> f.setAliases(Map.of("lo", Level.HIGH)));
+
+    // the formatter is unchanged
+    Assertions.assertEquals("lo", f.format(Level.LOW));
+    Assertions.assertEquals("HIGH", f.format(Level.HIGH));
+    Assertions.assertEquals(Level.LOW, f.parse("lo"));
+    Assertions.assertEquals(Map.of(), f.getAliases());
+
+    // texts differing in case only match another constant, if parsing is case-insensitive
+    f.setLabels(Map.of(Level.HIGH, "Low"));
+    Assertions.assertEquals(Level.HIGH, f.parse("Low"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> f.setParseCaseInsensitive(true));
+    Assertions.assertFalse(f.getParseCaseInsensitive());
+    Assertions.assertEquals(Level.LOW, f.parse("LOW"));
+    Assertions.assertEquals(Level.HIGH, f.parse("Low"));
+  }
+
+  @Test
+  @DisplayName("parse case-insensitive after setting")
+  void parseCaseInsensitive() {
+    EnumFormatter<Level> f = createDefaultFormatter();
+
+    Assertions.assertNull(f.parse("high"));
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(Level.HIGH, f.parse("high"));
+    Assertions.assertEquals(Level.HIGH, f.clone().parse("High"));
+  }
+
+  @Override public EnumFormatter<Level> createDefaultFormatter() {
+    return new EnumFormatter<>(Level.class, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Override public Level getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return Level.valueOf(formatDefault.name());
+  }
+
+  @Override public Formatter<Level, EnumFormatter<Level>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<Level, EnumFormatter<Level>> getComplementaryCloneTestFormatter() {
+    return new EnumFormatter<>(Level.class, true, PARSE_SKIP_MODE.NO_SKIP, false)
+        .setLabels(Map.of(Level.LOW, "lo")).setAliases(Map.of("m", Level.MEDIUM));
+  }
+
+  @Override public void compareExtendedProps(final Formatter<Level, EnumFormatter<Level>> f,
+      final Formatter<Level, EnumFormatter<Level>> fc) {
+    EnumFormatter<Level> ef = (EnumFormatter<Level>) f;
+    EnumFormatter<Level> efc = (EnumFormatter<Level>) fc;
+    Assertions.assertEquals(ef.getEnumClass(), efc.getEnumClass());
+    Assertions.assertEquals(ef.getLabels(), efc.getLabels());
+    Assertions.assertEquals(ef.getAliases(), efc.getAliases());
+    for (String text : new String[] {"LOW", "lo", "m", "X"}) {
+      Assertions.assertEquals(f.parse(text), fc.parse(text));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.FixedWidthColumn;
+import com.ogawa.parstorius.FixedWidthRecordReader;
+import com.ogawa.parstorius.FixedWidthRecordWriter;
+import com.ogawa.parstorius.NumberFormatter;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.StringFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.List;
+import java.util.Locale;
+
+public class FixedWidthRecordWriterTest {
+
+  private static List<FixedWidthColumn> createColumns() {
+    return List.of(
+        new FixedWidthColumn(0, 4, new StringFormatter(false, 0, true).setFormatNullText("")),
+        new FixedWidthColumn(5, -6, new NumberFormatter<>(Integer.class,
+            new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.US)), false,
+            PARSE_SKIP_MODE.WHITESPACES, true)));
+  }
+
+  @Test
+  @DisplayName("format aligned and overflowing values")
+  void format() {
+    FixedWidthRecordWriter writer = new FixedWidthRecordWriter(createColumns(), null);
+
+    Assertions.assertEquals("ab    1,234", new String(writer.format(new Object[] {"ab", 1234})));
+    Assertions.assertEquals(0, writer.getLastOverflowCount());
+
+    // the line buffer is reused, values beyond the width are filled with the overflow char
+    Assertions.assertEquals("abcd ******", new String(writer.format(new Object[] {"abcd", 1234567})));
+    Assertions.assertEquals(1, writer.getLastOverflowCount());
+
+    // missing values are formatted as null
+    Assertions.assertEquals("       null", new String(writer.format(new Object[] {null})));
+  }
+
+  @Test
+  @DisplayName("write and read records")
+  void writeAndRead() throws IOException {
+    FixedWidthRecordWriter writer = new FixedWidthRecordWriter(createColumns(), StandardCharsets.UTF_8);
+    FixedWidthRecordReader reader = new FixedWidthRecordReader(createColumns(), StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writer.write(new Object[] {"äö", -12}, output);
+    String record = output.toString(StandardCharsets.UTF_8);
+    Assertions.assertEquals("äö      -12", record);
+
+    Object[] values = reader.read(record, new Object[2]);
+    Assertions.assertEquals("äö", values[0]);
+    Assertions.assertEquals(-12, values[1]);
+  }
+}
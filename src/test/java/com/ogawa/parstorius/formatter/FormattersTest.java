@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.Formatters;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.RadixNumberFormatter;
+import com.ogawa.parstorius.StringFormatter;
+import com.ogawa.parstorius.TemporalAccessorFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.chrono.ChronoLocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+
+public class FormattersTest {
+
+  private final RadixNumberFormatter<Integer> integers = new RadixNumberFormatter<>(Integer.class, 16, false,
+      PARSE_SKIP_MODE.NO_SKIP, true);
+
+  // formatters put for supertypes of their values, the resolution is tested by identity
+  private final Formatter<Object, ?> objects = ofAny(new StringFormatter(false, 0, true));
+  private final Formatter<Object, ?> temporals = ofAny(new TemporalAccessorFormatter<>(LocalDate.class,
+      DateTimeFormatter.ISO_LOCAL_DATE, false, PARSE_SKIP_MODE.NO_SKIP, true));
+
+  @SuppressWarnings("unchecked")
+  private static Formatter<Object, ?> ofAny(final Formatter<?, ?> formatter) {
+    return (Formatter<Object, ?>) formatter;
+  }
+
+  @Test
+  @DisplayName("resolve classes, superclasses and interfaces")
+  void getForClass() {
+    Formatters formatters = new Formatters().put(Integer.class, integers);
+
+    Assertions.assertSame(integers, formatters.getForClass(Integer.class));
+    Assertions.assertNull(formatters.getForClass(Long.class));
+    Assertions.assertNull(formatters.getForClass((Class<?>) null));
+
+    // interfaces breadth-first, the ones of the class before the ones of its interfaces
+    formatters.put(TemporalAccessor.class, temporals);
+    Assertions.assertSame(temporals, formatters.getForClass(LocalDate.class));
+    Assertions.assertSame(temporals, formatters.getForClass(ChronoLocalDate.class));
+
+    // putting discards the resolved formatters
+    Formatter<Object, ?> temporalsToo = ofAny(temporals.clone());
+    formatters.put(Temporal.class, temporalsToo);
+    Assertions.assertSame(temporalsToo, formatters.getForClass(LocalDate.class));
+    Assertions.assertSame(temporals, formatters.getForClass(TemporalAccessor.class));
+
+    // Object as fallback for classes and interfaces
+    Assertions.assertNull(formatters.getForClass(StringBuilder.class));
+    formatters.put(Object.class, objects);
+    Assertions.assertSame(objects, formatters.getForClass(StringBuilder.class));
+    Assertions.assertSame(objects, formatters.getForClass(CharSequence.class));
+    Assertions.assertSame(integers, formatters.getForClass(Integer.class));
+
+    // the nearest superclass beats interfaces
+    formatters.put(Number.class, objects);
+    Assertions.assertSame(objects, formatters.getForClass(Long.class));
+  }
+
+  @Test
+  @DisplayName("resolve class names and objects")
+  void getForNameAndObject() {
+    Formatters formatters = new Formatters().put(Integer.class, integers).put(TemporalAccessor.class, temporals);
+
+    Assertions.assertSame(integers, formatters.getForClass("java.lang.Integer"));
+    Assertions.assertSame(temporals, formatters.getForClass("java.time.LocalDate"));
+    Assertions.assertNull(formatters.getForClass("java.lang.Long"));
+    Assertions.assertNull(formatters.getForClass("no.such.Class"));
+    Assertions.assertNull(formatters.getForClass("no.such.Class"));
+    for (int index = 0; index < 1_000; index++) {
+      Assertions.assertNull(formatters.getForClass("no.such.Class" + index));
+    }
+    Assertions.assertNull(formatters.getForClass("no.such.Class"));
+    Assertions.assertSame(integers, formatters.getForClass("java.lang.Integer"));
+    Assertions.assertNull(formatters.getForClass(""));
+    Assertions.assertNull(formatters.getForClass((String) null));
+
+    Assertions.assertEquals("ff", formatters.getForObject(255).format(255));
+    Assertions.assertEquals("2021-02-01", formatters.getForObject(LocalDate.of(2021, 2, 1))
+        .format(LocalDate.of(2021, 2, 1)));
+    Assertions.assertNull(formatters.getForObject(1L));
+    Assertions.assertNull(formatters.getForObject(null));
+  }
+
+  @Test
+  @DisplayName("copy registries")
+  void copy() {
+    Formatters formatters = new Formatters().put(Integer.class, integers);
+    Formatters copy = new Formatters(formatters).put(Object.class, objects);
+
+    Assertions.assertSame(integers, copy.getForClass(Integer.class));
+    Assertions.assertSame(objects, copy.getForClass(Long.class));
+    Assertions.assertNull(formatters.getForClass(Long.class));
+    Assertions.assertThrows(NullPointerException.class, () -> formatters.put(Long.class, null));
+  }
+}
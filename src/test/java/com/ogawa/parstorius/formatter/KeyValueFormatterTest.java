@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.KeyValueFormatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class KeyValueFormatterTest extends FormatterTest<Integer, KeyValueFormatter<Integer>> {
+
+  KeyValueFormatterTest() {
+  }
+
+  static Map<String, Integer> createKeyValueMap() {
+    Map<String, Integer> keyValueMap = new LinkedHashMap<>();
+    keyValueMap.put("DE", 49);
+    keyValueMap.put("DEU", 49);
+    keyValueMap.put("FR", 33);
+    keyValueMap.put("fr", 330);
+    keyValueMap.put("Ö", 43);
+    return keyValueMap;
+  }
+
+  @Test
+  @DisplayName("reject empty keys and null values")
+  void construct() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new KeyValueFormatter<>(false, Map.of("", 1), true));
+    Assertions.assertThrows(NullPointerException.class,
+        () -> new KeyValueFormatter<>(false, Collections.singletonMap("A", null), true));
+  }
+
+  @Test
+  @DisplayName("parse the longest key")
+  void parse() {
+    KeyValueFormatter<Integer> f = createDefaultFormatter().setParseUntilEnd(false);
+
+    Assertions.assertEquals(49, f.parse("DE"));
+    Assertions.assertEquals(43, f.parse(" Ö "));
+    ParsePosition parsePosition = new ParsePosition(1);
+    Assertions.assertEquals(49, f.parse(";DEUX", parsePosition));
+    Assertions.assertEquals(4, parsePosition.getIndex());
+
+    Assertions.assertNull(f.parse("IT"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+    Assertions.assertNotNull(f.getExceptionOnParsing());
+
+    // not parsed until the end, the value is kept
+    f.setParseUntilEnd(true);
+    Assertions.assertEquals(49, f.parse("DEUX"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(3, f.getLastParsePosition().getErrorIndex());
+  }
+
+  @Test
+  @DisplayName("parse case-insensitive after setting")
+  void parseCaseInsensitive() {
+    KeyValueFormatter<Integer> f = createDefaultFormatter();
+
+    Assertions.assertNull(f.parse("deu"));
+    Assertions.assertEquals(330, f.parse("fr"));
+
+    // keys equal case-insensitive map to the value of the first one
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(49, f.parse("deu"));
+    Assertions.assertEquals(33, f.parse("fr"));
+    Assertions.assertEquals(43, f.parse("ö"));
+  }
+
+  @Test
+  @DisplayName("format the first key of a value")
+  void format() {
+    KeyValueFormatter<Integer> f = createDefaultFormatter();
+
+    Assertions.assertEquals("DE", f.format(49));
+    Assertions.assertEquals("fr", f.formatTo(330, new StringBuilder()).toString());
+    Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+
+    // values without a key are errors formatted by the error default
+    Assertions.assertEquals("null", f.format(1));
+    Assertions.assertEquals("FR", f.setFormatErrorDefault(33).format(1));
+  }
+
+  @Override public KeyValueFormatter<Integer> createDefaultFormatter() {
+    return new KeyValueFormatter<>(false, createKeyValueMap(), true);
+  }
+
+  @Override public Integer getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return -formatDefault.ordinal() - 1;
+  }
+
+  @Override public Formatter<Integer, KeyValueFormatter<Integer>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<Integer, KeyValueFormatter<Integer>> getComplementaryCloneTestFormatter() {
+    return new KeyValueFormatter<>(true, createKeyValueMap(), PARSE_SKIP_MODE.NO_SKIP, false)
+        .setParseNullTexts(List.of("-"));
+  }
+
+  @Override public void compareExtendedProps(final Formatter<Integer, KeyValueFormatter<Integer>> f,
+      final Formatter<Integer, KeyValueFormatter<Integer>> fc) {
+    Assertions.assertEquals(((KeyValueFormatter<Integer>) f).getKeyValueMap(),
+        ((KeyValueFormatter<Integer>) fc).getKeyValueMap());
+    for (String text : new String[] {"DE", "fr", "deu", "-", "X"}) {
+      Assertions.assertEquals(f.parse(text), fc.parse(text));
+    }
+    Assertions.assertEquals(f.format(330), fc.format(330));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.MappedKeyValueFormatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParsePosition;
+
+public class MappedKeyValueFormatterTest extends FormatterTest<Long, MappedKeyValueFormatter> {
+
+  private static final int KEY_COUNT = 10_000;
+  private static final Path DICTIONARY_PATH = writeDictionary();
+
+  MappedKeyValueFormatterTest() {
+  }
+
+  private static Path writeDictionary() {
+    try {
+      Path path = Files.createTempFile("parstorius", ".dict");
+      path.toFile().deleteOnExit();
+      MappedKeyValueFormatter.Builder builder = new MappedKeyValueFormatter.Builder()
+          .put("DE", 49).put("Deutschland", 49).put("FR", 33).put("Österreich", 43).put("日本", 81);
+      for (int i = 0; i < KEY_COUNT; i++) {
+        builder.put("P" + i, 1_000_000L + i);
+      }
+      // the first key put wins
+      builder.put("FR", -1);
+      return builder.write(path);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  @Test
+  @DisplayName("parse keys")
+  void parse() {
+    MappedKeyValueFormatter f = createDefaultFormatter();
+
+    Assertions.assertEquals(KEY_COUNT + 5, f.getEntryCount());
+    Assertions.assertEquals(49L, f.parse("DE"));
+    Assertions.assertEquals(33L, f.parse(" FR "));
+    Assertions.assertEquals(43L, f.parse("Österreich"));
+    Assertions.assertEquals(81L, f.parse("日本"));
+    for (int i = 0; i < KEY_COUNT; i += 97) {
+      Assertions.assertEquals(1_000_000L + i, f.parse("P" + i));
+    }
+
+    Assertions.assertNull(f.parse("de"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+    Assertions.assertNotNull(f.getExceptionOnParsing());
+
+    // the key is the rest of the text
+    ParsePosition parsePosition = new ParsePosition(3);
+    Assertions.assertEquals(33L, f.parse("id=FR", parsePosition));
+    Assertions.assertEquals(5, parsePosition.getIndex());
+    Assertions.assertNull(f.parse("DEU"));
+  }
+
+  @Test
+  @DisplayName("parse case-insensitive after setting")
+  void parseCaseInsensitive() {
+    MappedKeyValueFormatter f = createDefaultFormatter();
+
+    Assertions.assertNull(f.parse("österreich"));
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(43L, f.parse("österreich"));
+    Assertions.assertEquals(49L, f.parse("de"));
+  }
+
+  @Test
+  @DisplayName("parse values without boxing")
+  void parseValue() {
+    MappedKeyValueFormatter f = createDefaultFormatter();
+
+    Assertions.assertEquals(49L, f.parseValue("DE", new ParsePosition(0), -1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+
+    ParsePosition parsePosition = new ParsePosition(0);
+    Assertions.assertEquals(-1, f.parseValue("IT", parsePosition, -1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, parsePosition.getErrorIndex());
+
+    Assertions.assertEquals(-2, f.parseValue("", new ParsePosition(0), -2));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.MISSING_VALUE, f.getLastParseResultCause());
+  }
+
+  @Test
+  @DisplayName("format the first key of a value")
+  void format() {
+    MappedKeyValueFormatter f = createDefaultFormatter();
+
+    Assertions.assertEquals("DE", f.format(49L));
+    Assertions.assertEquals("日本", f.format(81L));
+    Assertions.assertEquals("x=Österreich", f.formatTo(43L, new StringBuilder("x=")).toString());
+    Assertions.assertEquals("P9999", f.format(1_000_000L + 9_999));
+    Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+
+    // values without a key are errors formatted by the error default
+    Assertions.assertEquals("null", f.format(-1L));
+    Assertions.assertEquals("FR", f.setFormatErrorDefault(33L).format(-1L));
+  }
+
+  @Override public MappedKeyValueFormatter createDefaultFormatter() {
+    return new MappedKeyValueFormatter(DICTIONARY_PATH, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Override public Long getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return (long) -formatDefault.ordinal() - 1;
+  }
+
+  @Override public Formatter<Long, MappedKeyValueFormatter> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<Long, MappedKeyValueFormatter> getComplementaryCloneTestFormatter() {
+    return new MappedKeyValueFormatter(DICTIONARY_PATH, true, PARSE_SKIP_MODE.NO_SKIP, false)
+        .setParseErrorDefault(0L);
+  }
+
+  @Override public void compareExtendedProps(final Formatter<Long, MappedKeyValueFormatter> f,
+      final Formatter<Long, MappedKeyValueFormatter> fc) {
+    Assertions.assertEquals(((MappedKeyValueFormatter) f).getDictionaryPath(),
+        ((MappedKeyValueFormatter) fc).getDictionaryPath());
+    for (String text : new String[] {"DE", "de", "P42", "X"}) {
+      Assertions.assertEquals(f.parse(text), fc.parse(text));
+    }
+    Assertions.assertEquals(f.format(43L), fc.format(43L));
+  }
+}
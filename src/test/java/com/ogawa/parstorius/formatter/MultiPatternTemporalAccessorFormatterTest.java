@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.MultiPatternTemporalAccessorFormatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+public class MultiPatternTemporalAccessorFormatterTest
+    extends FormatterTest<LocalDate, MultiPatternTemporalAccessorFormatter<LocalDate>> {
+
+  private static final List<DateTimeFormatter> DATE_TIME_FORMATTERS = List.of(
+      DateTimeFormatter.ofPattern("uuuu-MM-dd"), DateTimeFormatter.ofPattern("dd.MM.uuuu"),
+      DateTimeFormatter.ofPattern("d/M/uuuu"), DateTimeFormatter.ofPattern("uuuuMMdd"));
+
+  MultiPatternTemporalAccessorFormatterTest() {
+  }
+
+  private static MultiPatternTemporalAccessorFormatter<LocalDate> createFormatter(
+      final List<DateTimeFormatter> dateTimeFormatters) {
+    return new MultiPatternTemporalAccessorFormatter<>(LocalDate.class, dateTimeFormatters, false,
+        PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Test
+  @DisplayName("reject missing formatters")
+  void construct() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> createFormatter(List.of()));
+    Assertions.assertThrows(NullPointerException.class, () -> createFormatter(null));
+  }
+
+  @Test
+  @DisplayName("parse each layout")
+  void parse() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createDefaultFormatter();
+    LocalDate date = LocalDate.of(2021, 2, 1);
+    Assertions.assertEquals(-1, f.getLastMatchedIndex());
+    Assertions.assertNull(f.getLastMatchedDateTimeFormatter());
+
+    String[] texts = {"2021-02-01", "01.02.2021", "1/2/2021", "20210201"};
+    for (int index = 0; index < texts.length; index++) {
+      Assertions.assertEquals(date, f.parse(texts[index]));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+      Assertions.assertEquals(index, f.getLastMatchedIndex());
+      Assertions.assertSame(DATE_TIME_FORMATTERS.get(index), f.getLastMatchedDateTimeFormatter());
+    }
+
+    // leading whitespaces are skipped
+    Assertions.assertEquals(date, f.parse("  01.02.2021"));
+    Assertions.assertEquals(1, f.getLastMatchedIndex());
+
+    // variable-width fields beyond the lengths of the samples
+    Assertions.assertEquals(LocalDate.of(2021, 12, 31), f.parse("31/12/2021"));
+    Assertions.assertEquals(2, f.getLastMatchedIndex());
+
+    ParsePosition parsePosition = new ParsePosition(3);
+    Assertions.assertEquals(date, f.setParseUntilEnd(false).parse("at 2021-02-01, noon", parsePosition));
+    Assertions.assertEquals(13, parsePosition.getIndex());
+    Assertions.assertEquals(0, f.getLastMatchedIndex());
+  }
+
+  @Test
+  @DisplayName("format by the first layout")
+  void format() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createDefaultFormatter();
+    LocalDate date = LocalDate.of(2021, 2, 1);
+
+    Assertions.assertEquals("2021-02-01", f.format(date));
+    Assertions.assertEquals("x2021-02-01", f.formatTo(date, new StringBuilder("x")).toString());
+    Assertions.assertEquals("2021-02-01", f.format(f.parse("01.02.2021")));
+  }
+
+  @Test
+  @DisplayName("try the layouts matching most often first")
+  void adaptOrder() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createDefaultFormatter();
+
+    for (int day = 1; day <= 5; day++) {
+      Assertions.assertEquals(LocalDate.of(2021, 3, day), f.parse(String.format("%02d.03.2021", day)));
+    }
+    Assertions.assertEquals(LocalDate.of(2021, 3, 6), f.parse("2021-03-06"));
+    Assertions.assertArrayEquals(new int[] {1, 5, 0, 0}, f.getHitCounts());
+
+    // the hit counts are copies
+    f.getHitCounts()[0] = 100;
+    Assertions.assertEquals(1, f.getHitCounts()[0]);
+  }
+
+  @Test
+  @DisplayName("signal errors by the cause and error index")
+  void parseErrors() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createDefaultFormatter().setParseUntilEnd(false);
+
+    // not matching any layout
+    Assertions.assertNull(f.parse("2021/02/01"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(-1, f.getLastMatchedIndex());
+    Assertions.assertTrue(f.getLastParsePosition().getErrorIndex() >= 0);
+
+    // matching, but not resolvable
+    Assertions.assertNull(f.parse("2021-13-01"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertNotNull(f.getExceptionOnParsing());
+    Assertions.assertEquals(-1, f.getLastMatchedIndex());
+
+    // a layout matching a prefix only is skipped, if parsing until the end
+    f.setParseUntilEnd(true);
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), f.parse("20210201"));
+    Assertions.assertEquals(3, f.getLastMatchedIndex());
+    Assertions.assertNull(f.parse("01.02.2021x"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+  }
+
+  @Test
+  @DisplayName("parse case-insensitive text fields")
+  void parseCaseInsensitive() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createFormatter(List.of(
+        DateTimeFormatter.ofPattern("dd.MM.uuuu"), DateTimeFormatter.ofPattern("dd MMM uuuu", Locale.US)));
+
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), f.parse("01 Feb 2021"));
+    Assertions.assertNull(f.parse("01 FEB 2021"));
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), f.parse("01 FEB 2021"));
+    Assertions.assertEquals(1, f.getLastMatchedIndex());
+  }
+
+  @Test
+  @DisplayName("clone with the learned order")
+  void cloneOrder() {
+    MultiPatternTemporalAccessorFormatter<LocalDate> f = createDefaultFormatter();
+    f.parse("01.02.2021");
+    f.parse("1/2/2021");
+    f.parse("1/2/2021");
+
+    MultiPatternTemporalAccessorFormatter<LocalDate> clone = f.clone();
+    Assertions.assertArrayEquals(f.getHitCounts(), clone.getHitCounts());
+    Assertions.assertEquals(2, clone.getLastMatchedIndex());
+
+    // the orders are independent afterwards
+    clone.parse("20210201");
+    Assertions.assertArrayEquals(new int[] {0, 1, 2, 0}, f.getHitCounts());
+    Assertions.assertArrayEquals(new int[] {0, 1, 2, 1}, clone.getHitCounts());
+  }
+
+  @Override public MultiPatternTemporalAccessorFormatter<LocalDate> createDefaultFormatter() {
+    return createFormatter(DATE_TIME_FORMATTERS);
+  }
+
+  @Override public LocalDate getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return LocalDate.of(2000, 1, 1).plusDays(formatDefault.ordinal());
+  }
+
+  @Override public Formatter<LocalDate, MultiPatternTemporalAccessorFormatter<LocalDate>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<LocalDate, MultiPatternTemporalAccessorFormatter<LocalDate>>
+      getComplementaryCloneTestFormatter() {
+    return new MultiPatternTemporalAccessorFormatter<>(LocalDate.class,
+        List.of(DateTimeFormatter.ofPattern("d.M.uuuu"), DateTimeFormatter.ISO_LOCAL_DATE), true,
+        PARSE_SKIP_MODE.NO_SKIP, false).setFormatNullText("-");
+  }
+
+  @Override public void compareExtendedProps(
+      final Formatter<LocalDate, MultiPatternTemporalAccessorFormatter<LocalDate>> f,
+      final Formatter<LocalDate, MultiPatternTemporalAccessorFormatter<LocalDate>> fc) {
+    MultiPatternTemporalAccessorFormatter<LocalDate> mf = (MultiPatternTemporalAccessorFormatter<LocalDate>) f;
+    MultiPatternTemporalAccessorFormatter<LocalDate> mfc = (MultiPatternTemporalAccessorFormatter<LocalDate>) fc;
+    Assertions.assertEquals(mf.getDateTimeFormatters(), mfc.getDateTimeFormatters());
+    Assertions.assertArrayEquals(mf.getHitCounts(), mfc.getHitCounts());
+    Assertions.assertEquals(f.format(LocalDate.of(2021, 2, 1)), fc.format(LocalDate.of(2021, 2, 1)));
+    Assertions.assertEquals(f.parse("2021-02-01"), fc.parse("2021-02-01"));
+  }
+}
@@ -27,6 +27,7 @@ import org.junit.jupiter.api.Test;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 
 public abstract class NumberFormatterTest <T extends Number> extends FormatterTest<T, NumberFormatter<T>> {
@@ -57,6 +58,38 @@ public abstract class NumberFormatterTest <T extends Number> extends FormatterTe
   }
 
 
+  @Test
+  @DisplayName("format small integers like the DecimalFormat")
+  void formatTable() {
+    DecimalFormat decimalFormat = new DecimalFormat("#,##0;(#)", DecimalFormatSymbols.getInstance(Locale.GERMANY));
+    NumberFormatter<T> f = new NumberFormatter<>(numberClassT, decimalFormat, false, PARSE_SKIP_MODE.NO_SKIP, true);
+    Assertions.assertEquals(NumberFormatter.DEFAULT_FORMAT_TABLE_MIN, f.getFormatTableMin());
+    Assertions.assertEquals(NumberFormatter.DEFAULT_FORMAT_TABLE_MAX, f.getFormatTableMax());
+
+    // formatted once and looked up afterwards
+    for (int pass = 0; pass < 2; pass++) {
+      for (int value = -200; value <= 1_200; value++) {
+        Assertions.assertEquals(decimalFormat.format(cast(value)), f.format(cast(value)));
+      }
+    }
+
+    // formatters of other patterns do not share the table
+    NumberFormatter<T> padded = new NumberFormatter<>(numberClassT, new DecimalFormat("000"), false,
+        PARSE_SKIP_MODE.NO_SKIP, true);
+    Assertions.assertEquals("007", padded.format(cast(7)));
+    Assertions.assertEquals("7", f.format(cast(7)));
+
+    f.setFormatTableRange(1_000, 2_000);
+    Assertions.assertEquals(decimalFormat.format(cast(1_500)), f.format(cast(1_500)));
+    Assertions.assertEquals(decimalFormat.format(cast(-7)), f.format(cast(-7)));
+    Assertions.assertEquals(2_000, f.clone().getFormatTableMax());
+
+    // an empty range looks up no values
+    f.setFormatTableRange(1, 0);
+    Assertions.assertEquals(decimalFormat.format(cast(5)), f.format(cast(5)));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> f.setFormatTableRange(0, 1 << 16));
+  }
+
   @Test
   @DisplayName("parse valid value")
   void testParseValidValues() {
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.NumberFormatter;
+import com.ogawa.parstorius.OffHeapColumnarSink;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.StringFormatter;
+import com.ogawa.parstorius.TemporalAccessorFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+public class OffHeapColumnarSinkTest {
+
+  private static <T extends Number> NumberFormatter<T> createNumberFormatter(final Class<T> numberClass) {
+    return new NumberFormatter<>(numberClass, new DecimalFormat("0.#", DecimalFormatSymbols.getInstance(Locale.US)),
+        false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  private static <T extends TemporalAccessor> TemporalAccessorFormatter<T> createTemporalFormatter(
+      final Class<T> temporalClass, final DateTimeFormatter dateTimeFormatter) {
+    return new TemporalAccessorFormatter<>(temporalClass, dateTimeFormatter, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Test
+  @DisplayName("append rows to a spill file")
+  void appendRows() throws IOException {
+    Path spillFile = Files.createTempFile("parstorius", ".spill");
+    try (OffHeapColumnarSink sink = new OffHeapColumnarSink(spillFile)) {
+      OffHeapColumnarSink.LongColumn longs = sink.addLongColumn(createNumberFormatter(Integer.class));
+      OffHeapColumnarSink.StringColumn strings = sink.addStringColumn(new StringFormatter(false, 0, true));
+      OffHeapColumnarSink.EpochNanoColumn nanos = sink.addEpochNanoColumn(
+          createTemporalFormatter(LocalDateTime.class, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+
+      sink.appendRow("1", "äb€", "1970-01-01T00:00:01.5");
+      sink.appendRow("x", "", null);
+
+      Assertions.assertEquals(2, sink.getRowCount());
+      Assertions.assertEquals(1, longs.getLong(0));
+      Assertions.assertEquals("äb€", strings.getString(0));
+      Assertions.assertEquals(1_500_000_000L, nanos.getEpochNano(0));
+
+      Assertions.assertTrue(longs.isNull(1));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, longs.getParseResultCause(1));
+      Assertions.assertNull(strings.getString(1));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.PARSE_OF_NULL, nanos.getParseResultCause(1));
+    } finally {
+      Files.deleteIfExists(spillFile);
+    }
+  }
+
+  @Test
+  @DisplayName("record values failing conversion as errors")
+  void appendInconvertible() throws IOException {
+    try (OffHeapColumnarSink sink = new OffHeapColumnarSink()) {
+      OffHeapColumnarSink.LongColumn longs = sink.addLongColumn(createNumberFormatter(BigInteger.class));
+      OffHeapColumnarSink.EpochDayColumn days = sink.addEpochDayColumn(
+          createTemporalFormatter(LocalDate.class, DateTimeFormatter.ISO_LOCAL_DATE));
+      OffHeapColumnarSink.EpochNanoColumn nanos = sink.addEpochNanoColumn(
+          createTemporalFormatter(LocalDateTime.class, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+
+      sink.appendRow("1", "1970-01-02", "1970-01-01T00:00:01");
+      sink.appendRow("18446744073709551616", "+10000000-01-01", "2300-01-01T00:00:00");
+      sink.appendRow("3", "1970-01-04", "1970-01-01T00:00:03");
+
+      Assertions.assertEquals(3, longs.size());
+      Assertions.assertEquals(3, days.size());
+      Assertions.assertEquals(3, nanos.size());
+
+      Assertions.assertTrue(longs.isNull(1));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, longs.getParseResultCause(1));
+      Assertions.assertTrue(days.isNull(1));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, days.getParseResultCause(1));
+      Assertions.assertEquals(0, days.getEpochDay(1));
+      Assertions.assertTrue(nanos.isNull(1));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, nanos.getParseResultCause(1));
+      Assertions.assertEquals(0, nanos.getEpochNano(1));
+
+      // the following rows stay aligned
+      Assertions.assertEquals(3, longs.getLong(2));
+      Assertions.assertEquals(3, days.getEpochDay(2));
+      Assertions.assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0, 3).toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L,
+          nanos.getEpochNano(2));
+    }
+  }
+
+  @Test
+  @DisplayName("reject formatters of other value classes")
+  void rejectValueClasses() throws IOException {
+    try (OffHeapColumnarSink sink = new OffHeapColumnarSink()) {
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> sink.addLongColumn(createNumberFormatter(Double.class)));
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> sink.addEpochNanoColumn(createTemporalFormatter(LocalDate.class, DateTimeFormatter.ISO_LOCAL_DATE)));
+      Assertions.assertEquals(0, sink.getColumnCount());
+    }
+  }
+}
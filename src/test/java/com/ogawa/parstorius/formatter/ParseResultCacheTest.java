@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.BooleanFormatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.ParseResultCache;
+import com.ogawa.parstorius.RadixNumberFormatter;
+import com.ogawa.parstorius.StringFormatter;
+import com.ogawa.parstorius.ValueInterner;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.util.List;
+
+public class ParseResultCacheTest {
+
+  private static BooleanFormatter createBooleanFormatter() {
+    return new BooleanFormatter(List.of("true"), List.of("false"), false, PARSE_SKIP_MODE.NO_SKIP, true)
+        .setParseCache(new ParseResultCache(64));
+  }
+
+  @Test
+  @DisplayName("replay results, positions and errors")
+  void replay() {
+    BooleanFormatter f = createBooleanFormatter();
+
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(Boolean.TRUE, f.parse("true"));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+
+      Assertions.assertNull(f.parse("TRUE"));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+      Assertions.assertNotNull(f.getExceptionOnParsing());
+      Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+
+      // the rest of the text from the position is looked up
+      ParsePosition parsePosition = new ParsePosition(0);
+      Assertions.assertEquals(Boolean.FALSE, f.parse("false", parsePosition));
+      Assertions.assertEquals(5, parsePosition.getIndex());
+    }
+    Assertions.assertTrue(f.getParseCache().getHitCount() > 0);
+  }
+
+  @Test
+  @DisplayName("miss results of a previous configuration")
+  void reconfigure() {
+    BooleanFormatter f = createBooleanFormatter();
+
+    Assertions.assertNull(f.parse("TRUE"));
+    Assertions.assertNull(f.parse("TRUE"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(Boolean.TRUE, f.parse("TRUE"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+
+    Assertions.assertNull(f.parse("yes"));
+    f.setTrueList(List.of("true", "yes"));
+    Assertions.assertEquals(Boolean.TRUE, f.parse("yes"));
+
+    f.setFalseList(List.of("no"));
+    Assertions.assertEquals(Boolean.FALSE, f.parse("no"));
+    Assertions.assertNull(f.parse("false"));
+  }
+
+  @Test
+  @DisplayName("miss results of a previous skip mode")
+  void reconfigureSkipMode() {
+    StringFormatter f = new StringFormatter(false, 0, true).setParseSkipMode(PARSE_SKIP_MODE.NO_SKIP)
+        .setParseCache(new ParseResultCache(64));
+
+    Assertions.assertEquals("ab  ", f.parse("ab  "));
+    Assertions.assertEquals("ab  ", f.parse("ab  "));
+    f.setParseSkipMode(PARSE_SKIP_MODE.TRAILING_WHITESPACES);
+    Assertions.assertEquals("ab", f.parse("ab  "));
+  }
+
+  @Test
+  @DisplayName("miss results of a previous prefix")
+  void reconfigurePrefix() {
+    RadixNumberFormatter<Integer> f = new RadixNumberFormatter<>(Integer.class, 16, false,
+        PARSE_SKIP_MODE.NO_SKIP, true).setParseCache(new ParseResultCache(64));
+
+    Assertions.assertEquals(0, f.parse("0xff"));
+    Assertions.assertEquals(0, f.parse("0xff"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    f.setPrefix("0x");
+    Assertions.assertEquals(255, f.parse("0xff"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+  }
+
+  @Test
+  @DisplayName("share results with clones")
+  void shareWithClones() {
+    BooleanFormatter f = createBooleanFormatter();
+    Assertions.assertEquals(Boolean.TRUE, f.parse("true"));
+
+    BooleanFormatter clone = f.clone();
+    Assertions.assertSame(f.getParseCache(), clone.getParseCache());
+    long hits = f.getParseCache().getHitCount();
+    Assertions.assertEquals(Boolean.TRUE, clone.parse("true"));
+    Assertions.assertEquals(hits + 1, f.getParseCache().getHitCount());
+
+    // a reconfigured clone does not replay the results of the original
+    clone.setParseCaseInsensitive(true);
+    Assertions.assertNull(f.parse("TRUE"));
+    Assertions.assertEquals(Boolean.TRUE, clone.parse("TRUE"));
+    Assertions.assertNull(f.parse("TRUE"));
+  }
+
+  @Test
+  @DisplayName("share cache and interner with string clones")
+  void shareWithStringClones() {
+    StringFormatter f = new StringFormatter(false, 0, true).setParseCache(new ParseResultCache(64))
+        .setParseInterner(new ValueInterner<>(16));
+    Assertions.assertEquals("ab", f.parse("ab"));
+
+    StringFormatter clone = f.clone();
+    Assertions.assertSame(f.getParseCache(), clone.getParseCache());
+    Assertions.assertSame(f.getParseInterner(), clone.getParseInterner());
+    long hits = f.getParseCache().getHitCount();
+    Assertions.assertEquals("ab", clone.parse("ab"));
+    Assertions.assertEquals(hits + 1, f.getParseCache().getHitCount());
+  }
+
+  @Test
+  @DisplayName("capacity and clear")
+  void capacityAndClear() {
+    Assertions.assertEquals(2, new ParseResultCache(1).getCapacity());
+    Assertions.assertEquals(128, new ParseResultCache(100).getCapacity());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new ParseResultCache(0));
+
+    BooleanFormatter f = createBooleanFormatter();
+    f.parse("true");
+    f.parse("true");
+    f.getParseCache().clear();
+    Assertions.assertEquals(0, f.getParseCache().getHitCount());
+    Assertions.assertEquals(0, f.getParseCache().getMissCount());
+    Assertions.assertEquals(Boolean.TRUE, f.parse("true"));
+    Assertions.assertEquals(1, f.getParseCache().getMissCount());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.RadixNumberFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.text.ParsePosition;
+
+public class RadixNumberFormatterTest extends FormatterTest<Integer, RadixNumberFormatter<Integer>> {
+
+  private static final int[] INTEGERS = {0, 1, -1, 35, 36, -255, 65_535, Integer.MAX_VALUE, Integer.MIN_VALUE};
+  private static final long[] LONGS = {0, 1, -1, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE, -123_456_789_012L};
+
+  RadixNumberFormatterTest() {
+  }
+
+  private static <T extends Number> RadixNumberFormatter<T> createFormatter(final Class<T> numberClass,
+      final int radix) {
+    return new RadixNumberFormatter<>(numberClass, radix, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Test
+  @DisplayName("reject unsupported classes and radixes")
+  void construct() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> createFormatter(Double.class, 16));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> createFormatter(Integer.class, 1));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> createFormatter(Integer.class, 37));
+  }
+
+  @Test
+  @DisplayName("format and parse like Integer and Long")
+  void roundTrip() {
+    for (int radix : new int[] {2, 7, 10, 16, 36}) {
+      RadixNumberFormatter<Integer> integers = createFormatter(Integer.class, radix);
+      RadixNumberFormatter<Long> longs = createFormatter(Long.class, radix);
+
+      for (int number : INTEGERS) {
+        String text = Integer.toString(number, radix);
+        Assertions.assertEquals(text, integers.format(number));
+        Assertions.assertEquals(number, integers.parse(text));
+        Assertions.assertEquals(text, integers.formatTo(number, new StringBuilder()).toString());
+      }
+      for (long number : LONGS) {
+        String text = Long.toString(number, radix);
+        Assertions.assertEquals(text, longs.format(number));
+        Assertions.assertEquals(number, longs.parse(text));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("format and parse unsigned like Integer and Long")
+  void roundTripUnsigned() {
+    for (int radix : new int[] {2, 7, 10, 16, 36}) {
+      RadixNumberFormatter<Integer> integers = createFormatter(Integer.class, radix).setUnsigned(true);
+      RadixNumberFormatter<Long> longs = createFormatter(Long.class, radix).setUnsigned(true);
+
+      for (int number : INTEGERS) {
+        String text = Integer.toUnsignedString(number, radix);
+        Assertions.assertEquals(text, integers.format(number));
+        Assertions.assertEquals(number, integers.parse(text));
+      }
+      for (long number : LONGS) {
+        String text = Long.toUnsignedString(number, radix);
+        Assertions.assertEquals(text, longs.format(number));
+        Assertions.assertEquals(number, longs.parse(text));
+      }
+    }
+
+    // minus signs are errors
+    RadixNumberFormatter<Integer> f = createFormatter(Integer.class, 16).setUnsigned(true);
+    Assertions.assertNull(f.parse("-1"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+  }
+
+  @Test
+  @DisplayName("format and parse BigIntegers")
+  void roundTripBigInteger() {
+    RadixNumberFormatter<BigInteger> f = createFormatter(BigInteger.class, 16).setUnsigned(true);
+
+    for (BigInteger number : new BigInteger[] {BigInteger.ZERO, BigInteger.valueOf(Long.MIN_VALUE),
+        BigInteger.ONE.shiftLeft(64), BigInteger.ONE.shiftLeft(100).negate()}) {
+      String text = number.toString(16);
+      Assertions.assertEquals(text, f.format(number));
+      Assertions.assertEquals(number, f.parse(text));
+    }
+  }
+
+  @Test
+  @DisplayName("signal errors by the error index")
+  void parseErrors() {
+    RadixNumberFormatter<Integer> f = createFormatter(Integer.class, 16).setParseUntilEnd(false);
+
+    // overflow at the start of the digits
+    Assertions.assertNull(f.parse("+80000000"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(1, f.getLastParsePosition().getErrorIndex());
+    Assertions.assertNotNull(f.getExceptionOnParsing());
+    Assertions.assertEquals(Integer.MIN_VALUE, f.parse("-80000000"));
+
+    // no digits
+    Assertions.assertNull(f.parse("-x"));
+    Assertions.assertEquals(1, f.getLastParsePosition().getErrorIndex());
+
+    ParsePosition parsePosition = new ParsePosition(3);
+    Assertions.assertEquals(0xff, f.parse("id=ff;", parsePosition));
+    Assertions.assertEquals(5, parsePosition.getIndex());
+
+    // not parsed until the end, the number is kept
+    f.setParseUntilEnd(true);
+    Assertions.assertEquals(0x12, f.parse("12g4"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(2, f.getLastParsePosition().getErrorIndex());
+    Assertions.assertEquals(0x12, f.parse("12"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+  }
+
+  @Test
+  @DisplayName("format and parse prefix, width and case")
+  void prefixWidthAndCase() {
+    RadixNumberFormatter<Integer> f = createFormatter(Integer.class, 16).setPrefix("0x").setFormatWidth(4)
+        .setParseUntilEnd(false);
+
+    Assertions.assertEquals("0x00ff", f.format(255));
+    Assertions.assertEquals("-0x12345", f.format(-0x12345));
+    Assertions.assertEquals(255, f.parse("0x00ff"));
+    Assertions.assertEquals(-255, f.parse("-0xff"));
+    Assertions.assertNull(f.parse("0Xff"));
+    Assertions.assertEquals(0, f.getLastParsePosition().getErrorIndex());
+
+    // letters are parsed in the format case only, if parsing is case-sensitive
+    f.setFormatUpperCase(true);
+    Assertions.assertEquals("0x00FF", f.format(255));
+    Assertions.assertEquals(255, f.parse("0xFF"));
+    Assertions.assertNull(f.parse("0xfe"));
+    Assertions.assertEquals(2, f.getLastParsePosition().getErrorIndex());
+
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(254, f.parse("0Xfe"));
+    Assertions.assertEquals(254, f.parse("0XFE"));
+  }
+
+  @Override public RadixNumberFormatter<Integer> createDefaultFormatter() {
+    return createFormatter(Integer.class, 16);
+  }
+
+  @Override public Integer getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return -formatDefault.ordinal() - 1;
+  }
+
+  @Override public Formatter<Integer, RadixNumberFormatter<Integer>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<Integer, RadixNumberFormatter<Integer>> getComplementaryCloneTestFormatter() {
+    return new RadixNumberFormatter<>(Integer.class, 36, true, PARSE_SKIP_MODE.NO_SKIP, false)
+        .setPrefix("#").setUnsigned(true).setFormatWidth(8).setFormatUpperCase(true);
+  }
+
+  @Override public void compareExtendedProps(final Formatter<Integer, RadixNumberFormatter<Integer>> f,
+      final Formatter<Integer, RadixNumberFormatter<Integer>> fc) {
+    RadixNumberFormatter<Integer> rf = (RadixNumberFormatter<Integer>) f;
+    RadixNumberFormatter<Integer> rfc = (RadixNumberFormatter<Integer>) fc;
+    Assertions.assertEquals(rf.getRadix(), rfc.getRadix());
+    Assertions.assertEquals(rf.getPrefix(), rfc.getPrefix());
+    Assertions.assertEquals(rf.getUnsigned(), rfc.getUnsigned());
+    Assertions.assertEquals(rf.getFormatWidth(), rfc.getFormatWidth());
+    Assertions.assertEquals(rf.getFormatUpperCase(), rfc.getFormatUpperCase());
+    Assertions.assertEquals(f.format(-42), fc.format(-42));
+    Assertions.assertEquals(f.parse(f.format(-42)), fc.parse(f.format(-42)));
+  }
+}
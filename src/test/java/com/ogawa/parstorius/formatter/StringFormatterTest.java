@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.DelimitedRowWriter;
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.QUOTE_MODE;
+import com.ogawa.parstorius.StringDeduplicator;
+import com.ogawa.parstorius.StringFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.util.List;
+
+public class StringFormatterTest extends FormatterTest<String, StringFormatter> {
+
+  StringFormatterTest() {
+  }
+
+  @Test
+  @DisplayName("format without padding")
+  void formatUnpadded() {
+    StringFormatter f = createDefaultFormatter();
+
+    Assertions.assertEquals("abc", f.format("abc"));
+    Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+    Assertions.assertEquals("", f.format(""));
+
+    // unpadded strings are returned as they are
+    String s = "abc";
+    Assertions.assertSame(s, f.format(s));
+  }
+
+  @Test
+  @DisplayName("formatTo without padding")
+  void formatToUnpadded() {
+    StringFormatter f = createDefaultFormatter();
+
+    StringBuilder stringBuilder = new StringBuilder("x=");
+    f.formatTo("abc", stringBuilder);
+    Assertions.assertEquals("x=abc", stringBuilder.toString());
+    Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+
+    f.formatTo("", stringBuilder);
+    Assertions.assertEquals("x=abc", stringBuilder.toString());
+    Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+  }
+
+  @Test
+  @DisplayName("format and formatTo with padding")
+  void formatPadded() {
+    StringFormatter left = new StringFormatter(false, 5, true);
+    StringFormatter right = new StringFormatter(false, -5, true);
+
+    Assertions.assertEquals("ab   ", left.format("ab"));
+    Assertions.assertEquals("   ab", right.format("ab"));
+    Assertions.assertEquals("ab   ", left.formatTo("ab", new StringBuilder()).toString());
+    Assertions.assertEquals("   ab", right.formatTo("ab", new StringBuilder()).toString());
+
+    // padding beyond the shared run of blanks
+    Assertions.assertEquals(" ".repeat(99) + "a", new StringFormatter(false, -100, true).format("a"));
+
+    // too long, the error default is formatted as well
+    left.setFormatErrorDefault("#");
+    Assertions.assertEquals("#    ", left.format("abcdef"));
+    Assertions.assertEquals("#    ", left.formatTo("abcdef", new StringBuilder()).toString());
+  }
+
+  @Test
+  @DisplayName("write rows of unpadded columns")
+  void writeUnpaddedRow() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (DelimitedRowWriter writer = new DelimitedRowWriter(
+        List.of(createDefaultFormatter(), createDefaultFormatter()), ',', '"', QUOTE_MODE.AS_NEEDED,
+        Channels.newChannel(output), StandardCharsets.UTF_8)) {
+      writer.writeRow("a", "b");
+    }
+    Assertions.assertEquals("a,b\n", output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("parse")
+  void parse() {
+    StringFormatter f = createDefaultFormatter();
+
+    Assertions.assertEquals("abc", f.parse("abc"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause());
+
+    // trailing whitespaces are skipped
+    Assertions.assertEquals("abc", f.parse("abc  "));
+    Assertions.assertEquals(5, f.getLastParsePosition().getIndex());
+
+    f.setParseSkipMode(PARSE_SKIP_MODE.WHITESPACES);
+    ParsePosition parsePosition = new ParsePosition(2);
+    Assertions.assertEquals("cd", f.parse("ab  cd ", parsePosition));
+    Assertions.assertEquals(7, parsePosition.getIndex());
+  }
+
+  @Test
+  @DisplayName("parse null texts")
+  void parseNullTexts() {
+    StringFormatter f = createDefaultFormatter()
+        .setParseNullTexts(List.of("null", "-", "", "<none>", "x".repeat(65)));
+
+    for (String text : new String[] {"null", "-", "<none>", "x".repeat(65)}) {
+      Assertions.assertNull(f.parse(text), text);
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.NULL_AS_TEXT, f.getLastParseResultCause(), text);
+    }
+
+    // equal lengths or first chars only
+    for (String text : new String[] {"nul", "NULL", "--", "+", "x", "x".repeat(64), "y".repeat(65)}) {
+      Assertions.assertEquals(text, f.parse(text));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause(), text);
+    }
+
+    Assertions.assertNull(f.parse(""));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.MISSING_VALUE, f.getLastParseResultCause());
+
+    f.setParseCaseInsensitive(true);
+    Assertions.assertNull(f.parse("NULL"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.NULL_AS_TEXT, f.getLastParseResultCause());
+    Assertions.assertNull(f.parse("<None>"));
+    Assertions.assertEquals("Nul", f.parse("Nul"));
+  }
+
+  @Test
+  @DisplayName("parse view")
+  void parseView() {
+    StringFormatter f = createDefaultFormatter().setParseSkipMode(PARSE_SKIP_MODE.WHITESPACES);
+
+    CharSequence view = f.parseView("ab cd  ", new ParsePosition(2), null);
+    Assertions.assertEquals("cd", view.toString());
+    Assertions.assertEquals(2, view.length());
+    Assertions.assertEquals('d', view.charAt(1));
+    Assertions.assertEquals("-", f.parseView("", new ParsePosition(0), "-"));
+  }
+
+  @Test
+  @DisplayName("parse with deduplicator")
+  void parseDeduplicated() {
+    StringFormatter f = createDefaultFormatter().setParseDeduplicator(new StringDeduplicator(16));
+
+    String first = f.parse("DE ");
+    Assertions.assertEquals("DE", first);
+    Assertions.assertSame(first, f.parse("DE"));
+    Assertions.assertEquals(1, f.getParseDeduplicator().getHitCount());
+
+    // clones get their own deduplicator of the same capacity
+    StringFormatter clone = f.clone();
+    Assertions.assertNotSame(f.getParseDeduplicator(), clone.getParseDeduplicator());
+    Assertions.assertEquals(16, clone.getParseDeduplicator().getCapacity());
+  }
+
+  @Override public StringFormatter createDefaultFormatter() {
+    return new StringFormatter(false, 0, true);
+  }
+
+  @Override public String getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return formatDefault.name();
+  }
+
+  @Override public Formatter<String, StringFormatter> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<String, StringFormatter> getComplementaryCloneTestFormatter() {
+    return new StringFormatter(true, -8, false).setBlankValueDefault("-");
+  }
+
+  @Override public void compareExtendedProps(final Formatter<String, StringFormatter> f,
+      final Formatter<String, StringFormatter> fc) {
+    Assertions.assertEquals(((StringFormatter) f).getBlankValueDefault(),
+        ((StringFormatter) fc).getBlankValueDefault());
+    Assertions.assertEquals(f.format("ab"), fc.format("ab"));
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.TemporalAccessorFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.chrono.JapaneseDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQuery;
+import java.util.Locale;
+import java.util.Map;
+
+public class TemporalAccessorFormatterTest extends FormatterTest<LocalDate, TemporalAccessorFormatter<LocalDate>> {
+
+  TemporalAccessorFormatterTest() {
+  }
+
+  private static TemporalAccessorFormatter<LocalDate> createFormatter(final String pattern) {
+    return new TemporalAccessorFormatter<>(LocalDate.class, DateTimeFormatter.ofPattern(pattern), false,
+        PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  // parses the texts by the formatter and the DateTimeFormatter, the results must be equal or both errors
+  private static <T extends TemporalAccessor> void assertParsedLike(final Class<T> temporalClass,
+      final TemporalQuery<T> query, final DateTimeFormatter dateTimeFormatter, final String... texts) {
+    TemporalAccessorFormatter<T> f = new TemporalAccessorFormatter<>(temporalClass, dateTimeFormatter, false,
+        PARSE_SKIP_MODE.NO_SKIP, true);
+
+    for (String text : texts) {
+      T expected;
+      try {
+        expected = dateTimeFormatter.parse(text, query);
+      } catch (DateTimeException exception) {
+        expected = null;
+      }
+      T result = f.parse(text);
+      if (expected != null) {
+        Assertions.assertEquals(expected, result, text);
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause(), text);
+      } else {
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause(), text);
+      }
+    }
+  }
+
+  // formats the temporals by the formatter and the DateTimeFormatter, the texts must be equal
+  @SafeVarargs
+  private static <T extends TemporalAccessor> void assertFormattedLike(final Class<T> temporalClass,
+      final DateTimeFormatter dateTimeFormatter, final T... temporals) {
+    TemporalAccessorFormatter<T> f = new TemporalAccessorFormatter<>(temporalClass, dateTimeFormatter, false,
+        PARSE_SKIP_MODE.NO_SKIP, true);
+
+    StringBuilder stringBuilder = new StringBuilder();
+    for (T temporal : temporals) {
+      String expected = dateTimeFormatter.format(temporal);
+      Assertions.assertEquals(expected, f.format(temporal), String.valueOf(temporal));
+      Assertions.assertEquals("OBJECT", String.valueOf(f.getLastFormatResultCause()));
+      stringBuilder.setLength(0);
+      Assertions.assertEquals(expected, f.formatTo(temporal, stringBuilder).toString(), String.valueOf(temporal));
+    }
+  }
+
+  @Test
+  @DisplayName("format recent temporals")
+  void formatRecent() {
+    TemporalAccessorFormatter<LocalDate> f = createFormatter("dd.MM.uuuu");
+    LocalDate date = LocalDate.of(2021, 2, 1);
+
+    String text = f.format(date);
+    Assertions.assertEquals("01.02.2021", text);
+    Assertions.assertSame(text, f.format(LocalDate.of(2021, 2, 1)));
+    Assertions.assertEquals("02.02.2021", f.format(date.plusDays(1)));
+
+    // formatTo appends without the cache
+    StringBuilder stringBuilder = new StringBuilder("x");
+    f.formatTo(date, stringBuilder).append(' ');
+    f.formatTo(date, stringBuilder);
+    Assertions.assertEquals("x01.02.2021 01.02.2021", stringBuilder.toString());
+    Assertions.assertSame(text, f.format(date));
+
+    // the cache is cleared on reconfiguration
+    Assertions.assertEquals(text, f.setParseLenient(true).format(date));
+  }
+
+  @Test
+  @DisplayName("parse dates out of the range of a chronology like the DateTimeFormatter")
+  void parseOutOfChronology() {
+    TemporalAccessorFormatter<JapaneseDate> f = new TemporalAccessorFormatter<>(JapaneseDate.class,
+        DateTimeFormatter.ofPattern("uuuu-MM-dd"), false, PARSE_SKIP_MODE.WHITESPACES, true);
+
+    Assertions.assertEquals(JapaneseDate.from(LocalDate.of(1900, 1, 1)), f.parse("1900-01-01"));
+
+    // before Meiji, the error is reported after parsing the text, not at its start
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertNull(f.parse("1850-01-01"));
+      Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+      Assertions.assertNotNull(f.getExceptionOnParsing());
+      Assertions.assertEquals(10, f.getLastParsePosition().getErrorIndex());
+    }
+  }
+
+  @Test
+  @DisplayName("parse fixed layouts like the DateTimeFormatter")
+  void parseLayout() {
+    String[] dates = {"01.02.2021", "29.02.2020", "29.02.2021", "31.04.2021", "00.01.2021", "01.13.2021",
+        "1.2.2021", "01.02.21", "01.02.2021x", "01-02-2021", "01.02.+2021", "01.02."};
+    assertParsedLike(LocalDate.class, LocalDate::from, DateTimeFormatter.ofPattern("dd.MM.uuuu"), dates);
+    assertParsedLike(LocalDate.class, LocalDate::from,
+        DateTimeFormatter.ofPattern("dd.MM.uuuu").withResolverStyle(ResolverStyle.STRICT), dates);
+    assertParsedLike(LocalDate.class, LocalDate::from, DateTimeFormatter.ofPattern("d.M.uuuu"), dates);
+    assertParsedLike(LocalDate.class, LocalDate::from,
+        DateTimeFormatter.ofPattern("dd.MM.yyyy").withResolverStyle(ResolverStyle.STRICT), dates);
+    assertParsedLike(LocalDate.class, LocalDate::from, DateTimeFormatter.ofPattern("uuuuMMdd"),
+        "20210201", "20200229", "20210229", "2021021", "202102011", "2021-02-01");
+
+    String[] dateTimes = {"2021-02-01 13:45:30", "2021-02-01 24:00:00", "2021-02-01 23:59:60", "2021-02-01 1:45:30",
+        "2021-02-01 13:45", "2021-02-01T13:45:30", "0000-01-01 00:00:00", "9999-12-31 23:59:59"};
+    assertParsedLike(LocalDateTime.class, LocalDateTime::from,
+        DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss"), dateTimes);
+    assertParsedLike(LocalDateTime.class, LocalDateTime::from,
+        DateTimeFormatter.ofPattern("uuuu-MM-dd H:mm:ss"), dateTimes);
+    assertParsedLike(LocalDateTime.class, LocalDateTime::from, DateTimeFormatter.ofPattern("uuuuMMddHHmmss"),
+        "20210201134530", "20210201246030", "2021020113453");
+
+    assertParsedLike(LocalTime.class, LocalTime::from, DateTimeFormatter.ofPattern("HH:mm:ss.SSS"),
+        "13:45:30.123", "00:00:00.000", "13:45:30.12", "13:45:30.1234", "13:45:30", "25:00:00.000");
+    assertParsedLike(YearMonth.class, YearMonth::from, DateTimeFormatter.ofPattern("MM/uuuu"),
+        "02/2021", "13/2021", "2/2021");
+  }
+
+  @Test
+  @DisplayName("parse ISO date-times like the DateTimeFormatter")
+  void parseIso() {
+    String[] localDateTimes = {"2024-05-01T12:34:56", "2024-05-01T12:34", "2024-05-01T12:34:56.7",
+        "2024-05-01T12:34:56.123456789", "2024-05-01T12:34:56.1234567891", "2024-02-30T12:34:56",
+        "2024-05-01T24:00:00", "2024-05-01 12:34:56", "+12024-05-01T12:34:56", "2024-05-01T12:34:56Z"};
+    String[] offsetDateTimes = {"2024-05-01T12:34:56Z", "2024-05-01T12:34:56+02:00", "2024-05-01T12:34:56.5-05:30",
+        "2024-05-01T12:34+05:45:30", "2024-05-01T12:34:56+18:00", "2024-05-01T12:34:56+18:01",
+        "2024-05-01T12:34:56+0200", "2024-05-01T12:34:56", "2024-05-01T12:34:56z"};
+    String[] zonedDateTimes = {"2024-05-01T12:34:56+02:00[Europe/Berlin]", "2024-03-31T02:30:00+01:00[Europe/Berlin]",
+        "2024-05-01T12:34:56+01:00[Europe/Berlin]", "2024-05-01T12:34:56Z[UTC]", "2024-05-01T12:34:56+02:00",
+        "2024-05-01T12:34:56+02:00[Nowhere/City]", "2024-05-01T12:34:56+02:00[Europe/Berlin"};
+
+    assertParsedLike(LocalDateTime.class, LocalDateTime::from, DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+        localDateTimes);
+    for (String[] texts : new String[][] {offsetDateTimes, zonedDateTimes}) {
+      for (DateTimeFormatter dateTimeFormatter : new DateTimeFormatter[] {DateTimeFormatter.ISO_OFFSET_DATE_TIME,
+          DateTimeFormatter.ISO_ZONED_DATE_TIME, DateTimeFormatter.ISO_DATE_TIME}) {
+        assertParsedLike(OffsetDateTime.class, OffsetDateTime::from, dateTimeFormatter, texts);
+        assertParsedLike(ZonedDateTime.class, ZonedDateTime::from, dateTimeFormatter, texts);
+        assertParsedLike(Instant.class, Instant::from, dateTimeFormatter, texts);
+        assertParsedLike(LocalDateTime.class, LocalDateTime::from, dateTimeFormatter, texts);
+      }
+    }
+    assertParsedLike(Instant.class, Instant::from, DateTimeFormatter.ISO_INSTANT, "2024-05-01T12:34:56Z",
+        "2024-05-01T12:34:56.000000001Z", "1969-12-31T23:59:59.999Z", "2024-05-01T12:34:56+02:00",
+        "2024-05-01T12:34:56", "2024-05-01T23:59:60Z");
+  }
+
+  @Test
+  @DisplayName("format fixed layouts like the DateTimeFormatter")
+  void formatLayout() {
+    LocalDateTime dateTime = LocalDateTime.of(2021, 2, 1, 13, 45, 30, 123_456_789);
+    LocalDateTime[] dateTimes = {dateTime, dateTime.withNano(987_000_000), dateTime.withNano(0),
+        dateTime.plusSeconds(1), dateTime.plusDays(1), dateTime.withHour(0).withMinute(0),
+        LocalDateTime.of(0, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+        LocalDateTime.of(-1, 1, 1, 0, 0), LocalDateTime.of(10_000, 1, 1, 0, 0), dateTime};
+
+    for (String pattern : new String[] {"uuuu-MM-dd HH:mm:ss", "dd.MM.uuuu H:mm:ss.SSS",
+        "uuuuMMddHHmmssSSSSSS", "d.M.uuuu HH:mm:ss.SSSSSSSSS", "yyyy-MM-dd'T'HH:mm"}) {
+      assertFormattedLike(LocalDateTime.class, DateTimeFormatter.ofPattern(pattern), dateTimes);
+    }
+
+    assertFormattedLike(LocalDate.class, DateTimeFormatter.ofPattern("dd.MM.uuuu"), LocalDate.of(2021, 2, 1),
+        LocalDate.of(2021, 2, 2), LocalDate.of(2020, 2, 29), LocalDate.of(-5, 3, 4), LocalDate.of(12_345, 6, 7));
+    assertFormattedLike(LocalTime.class, DateTimeFormatter.ofPattern("HH:mm:ss.SS"), LocalTime.of(13, 45, 30, 10),
+        LocalTime.of(13, 45, 30, 990_000_000), LocalTime.MIDNIGHT, LocalTime.MAX);
+  }
+
+  @Test
+  @DisplayName("parse and format epoch values")
+  void epoch() {
+    TemporalAccessorFormatter<LocalDate> dates = createFormatter("dd.MM.uuuu");
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1).toEpochDay(), dates.parseEpochDay("01.02.2021", -1));
+    Assertions.assertEquals(-1, dates.parseEpochDay("31.02.x", -1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, dates.getLastParseResultCause());
+    Assertions.assertEquals(-1, dates.parseEpochDay("", -1));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.MISSING_VALUE, dates.getLastParseResultCause());
+    Assertions.assertEquals(-86_400_000L, dates.parseEpochMilli("31.12.1969", 0));
+    Assertions.assertEquals("01.02.2021", dates.formatEpochDay(LocalDate.of(2021, 2, 1).toEpochDay()));
+    Assertions.assertEquals("31.12.1969", dates.formatEpochMilli(-1));
+
+    ParsePosition parsePosition = new ParsePosition(3);
+    Assertions.assertEquals(18_659, dates.setParseUntilEnd(false).parseEpoch("at 01.02.2021;", parsePosition,
+        ChronoUnit.DAYS, -1));
+    Assertions.assertEquals(13, parsePosition.getIndex());
+
+    // local date-times are taken as UTC
+    TemporalAccessorFormatter<LocalDateTime> dateTimes = new TemporalAccessorFormatter<>(LocalDateTime.class,
+        DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSS"), false, PARSE_SKIP_MODE.NO_SKIP, true);
+    LocalDateTime dateTime = LocalDateTime.of(1969, 12, 31, 23, 59, 58, 123_456_000);
+    Instant instant = dateTime.toInstant(ZoneOffset.UTC);
+    String text = dateTimes.format(dateTime);
+    Assertions.assertEquals(instant.getEpochSecond(), dateTimes.parseEpoch(text, new ParsePosition(0),
+        ChronoUnit.SECONDS, 0));
+    Assertions.assertEquals(instant.toEpochMilli(), dateTimes.parseEpochMilli(text, 0));
+    Assertions.assertEquals(instant.getEpochSecond() * 1_000_000 + 123_456, dateTimes.parseEpochMicro(text, 0));
+    Assertions.assertEquals(instant.getEpochSecond() * 1_000_000_000 + 123_456_000,
+        dateTimes.parseEpochNano(text, 0));
+    Assertions.assertEquals(-1, dateTimes.parseEpochDay(text, 0));
+    Assertions.assertEquals(text, dateTimes.formatEpochMicro(instant.getEpochSecond() * 1_000_000 + 123_456));
+    Assertions.assertEquals(text, dateTimes.formatEpochNano(instant.getEpochSecond() * 1_000_000_000 + 123_456_789));
+    Assertions.assertEquals("1969-12-31 23:59:58.123000", dateTimes.formatEpochMilli(instant.toEpochMilli()));
+
+    // temporals with offsets by the DateTimeFormatter, the epoch day is the one of the local date
+    TemporalAccessorFormatter<OffsetDateTime> offsetDateTimes = new TemporalAccessorFormatter<>(
+        OffsetDateTime.class, DateTimeFormatter.ISO_OFFSET_DATE_TIME, false, PARSE_SKIP_MODE.NO_SKIP, true);
+    OffsetDateTime offsetDateTime = OffsetDateTime.of(2021, 2, 1, 1, 0, 0, 0, ZoneOffset.ofHours(2));
+    text = offsetDateTimes.format(offsetDateTime);
+    Assertions.assertEquals(offsetDateTime.toInstant().toEpochMilli(), offsetDateTimes.parseEpochMilli(text, 0));
+    Assertions.assertEquals(offsetDateTime.toLocalDate().toEpochDay(), offsetDateTimes.parseEpochDay(text, 0));
+    Assertions.assertEquals("2021-01-31T23:00:00Z",
+        offsetDateTimes.formatEpochMilli(offsetDateTime.toInstant().toEpochMilli()));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> dates.formatEpoch(0, ChronoUnit.HOURS));
+    Assertions.assertThrows(NullPointerException.class, () -> dates.parseEpoch("01.02.2021",
+        new ParsePosition(0), null, 0));
+  }
+
+  @Test
+  @DisplayName("parse leniently after setting and cloning")
+  void parseLenient() {
+    TemporalAccessorFormatter<LocalDate> f = createFormatter("dd.MM.uuuu");
+
+    Assertions.assertNull(f.parse("1.2.2021"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+
+    f.setParseLenient(true);
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), f.parse("1.2.2021"));
+
+    // the clone parses with the lenient setup of its source
+    TemporalAccessorFormatter<LocalDate> clone = f.clone();
+    Assertions.assertTrue(clone.getParseLenient());
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), clone.parse("1.2.2021"));
+
+    clone.setParseLenient(false);
+    Assertions.assertNull(clone.parse("1.2.2021"));
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), f.parse("1.2.2021"));
+  }
+
+  @Test
+  @DisplayName("parse case-insensitive with the settings of the DateTimeFormatter")
+  void parseCaseInsensitive() {
+    DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd MMM uuuu", Locale.GERMAN);
+    TemporalAccessorFormatter<LocalDate> f = new TemporalAccessorFormatter<>(LocalDate.class, dateTimeFormatter,
+        false, PARSE_SKIP_MODE.NO_SKIP, true);
+
+    Assertions.assertEquals(LocalDate.of(2021, 3, 1), f.parse("01 März 2021"));
+    Assertions.assertNull(f.parse("01 MÄRZ 2021"));
+    Assertions.assertNull(f.parse("01 Mar 2021"));
+
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(LocalDate.of(2021, 3, 1), f.parse("01 MÄRZ 2021"));
+    Assertions.assertSame(dateTimeFormatter, f.getDateTimeFormatter());
+
+    // the strict resolver style is kept
+    TemporalAccessorFormatter<LocalDate> strict = new TemporalAccessorFormatter<>(LocalDate.class,
+        dateTimeFormatter.withResolverStyle(ResolverStyle.STRICT), true, PARSE_SKIP_MODE.NO_SKIP, true);
+    Assertions.assertNull(strict.parse("31 APR. 2021"));
+    Assertions.assertEquals(LocalDate.of(2021, 4, 30), f.parse("31 APR. 2021"));
+  }
+
+  @Test
+  @DisplayName("parse customized texts of equally described DateTimeFormatters")
+  void parseCustomizedTexts() {
+    TemporalAccessorFormatter<LocalDate> first = new TemporalAccessorFormatter<>(LocalDate.class,
+        createMonthFormatter("Jan", "Feb"), false, PARSE_SKIP_MODE.NO_SKIP, true);
+    TemporalAccessorFormatter<LocalDate> second = new TemporalAccessorFormatter<>(LocalDate.class,
+        createMonthFormatter("Jän", "Feber"), false, PARSE_SKIP_MODE.NO_SKIP, true);
+    Assertions.assertEquals(first.getDateTimeFormatter().toString(), second.getDateTimeFormatter().toString());
+
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), first.parse("1 Feb 2021"));
+    Assertions.assertNull(first.parse("1 Feber 2021"));
+    Assertions.assertEquals(LocalDate.of(2021, 2, 1), second.parse("1 Feber 2021"));
+    Assertions.assertNull(second.parse("1 Feb 2021"));
+    Assertions.assertEquals("1 Jän 2021", second.format(LocalDate.of(2021, 1, 1)));
+  }
+
+  private static DateTimeFormatter createMonthFormatter(final String january, final String february) {
+    return new DateTimeFormatterBuilder().appendValue(ChronoField.DAY_OF_MONTH).appendLiteral(' ')
+        .appendText(ChronoField.MONTH_OF_YEAR, Map.of(1L, january, 2L, february)).appendLiteral(' ')
+        .appendValue(ChronoField.YEAR, 4).toFormatter();
+  }
+
+  @Test
+  @DisplayName("parse and format text fields like the DateTimeFormatter")
+  void textFields() {
+    DateTimeFormatter english = DateTimeFormatter.ofPattern("EEE, dd MMM uuuu hh:mm a", Locale.US);
+    assertParsedLike(LocalDateTime.class, LocalDateTime::from, english, "Mon, 01 Feb 2021 01:45 PM",
+        "Mon, 01 Feb 2021 12:00 AM", "Mon, 01 Feb 2021 12:00 PM", "Tue, 01 Feb 2021 01:45 PM",
+        "Mon, 01 FEB 2021 01:45 PM", "Mon, 01 Feb 2021 13:45 PM", "Mon, 01 Feb 2021 00:45 AM",
+        "Mon, 01 Feb 2021 01:45 XM", "Mo, 01 Feb 2021 01:45 PM");
+    assertParsedLike(LocalDate.class, LocalDate::from, DateTimeFormatter.ofPattern("EEEE d MMMM uuuu", Locale.US),
+        "Monday 1 February 2021", "Monday 1 Feb 2021", "Sunday 31 January 2021", "Mon 1 February 2021");
+    assertParsedLike(LocalDate.class, LocalDate::from, DateTimeFormatter.ofPattern("d. MMMM yyyy G", Locale.GERMAN),
+        "1. März 2021 n. Chr.", "1. März 2021 v. Chr.", "1. Mai 2021 n. Chr.", "1. Mai 2021");
+    assertParsedLike(LocalTime.class, LocalTime::from, DateTimeFormatter.ofPattern("K:mm a", Locale.US),
+        "0:30 AM", "11:30 PM", "12:30 PM");
+
+    LocalDateTime dateTime = LocalDateTime.of(2021, 2, 1, 13, 45);
+    assertFormattedLike(LocalDateTime.class, english, dateTime, dateTime.withHour(0), dateTime.withHour(12),
+        dateTime.plusDays(6), dateTime.plusMonths(10));
+    assertFormattedLike(LocalDate.class, DateTimeFormatter.ofPattern("EEEE d MMMM yyyy G", Locale.GERMAN),
+        LocalDate.of(2021, 3, 1), LocalDate.of(2021, 5, 2), LocalDate.of(-44, 3, 15));
+  }
+
+  @Override public TemporalAccessorFormatter<LocalDate> createDefaultFormatter() {
+    return createFormatter("uuuu-MM-dd");
+  }
+
+  @Override public LocalDate getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return LocalDate.of(2000, 1, 1).plusDays(formatDefault.ordinal());
+  }
+
+  @Override public Formatter<LocalDate, TemporalAccessorFormatter<LocalDate>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<LocalDate, TemporalAccessorFormatter<LocalDate>> getComplementaryCloneTestFormatter() {
+    return createFormatter("d.M.uuuu").setParseLenient(true).setFormatNullText("-");
+  }
+
+  @Override public void compareExtendedProps(final Formatter<LocalDate, TemporalAccessorFormatter<LocalDate>> f,
+      final Formatter<LocalDate, TemporalAccessorFormatter<LocalDate>> fc) {
+    TemporalAccessorFormatter<LocalDate> tf = (TemporalAccessorFormatter<LocalDate>) f;
+    TemporalAccessorFormatter<LocalDate> tfc = (TemporalAccessorFormatter<LocalDate>) fc;
+    Assertions.assertEquals(tf.getParseLenient(), tfc.getParseLenient());
+    Assertions.assertSame(tf.getDateTimeFormatter(), tfc.getDateTimeFormatter());
+    Assertions.assertEquals(f.parse("2021-2-1"), fc.parse("2021-2-1"));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.Formatter;
+import com.ogawa.parstorius.PARSE_RESULT_CAUSE;
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.TemporalAmountFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+import java.time.Duration;
+import java.time.Period;
+import java.time.chrono.ChronoPeriod;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+public class TemporalAmountFormatterTest extends FormatterTest<Duration, TemporalAmountFormatter<Duration>> {
+
+  private static final String[] DURATION_TEXTS = {
+      "PT0S", "PT1H30M", "PT-0.5S", "P2DT3H", "-PT6H3M", "-PT-6H+3M", "PT1.000000001S", "PT0.1S", "PT.5S",
+      "P-2D", "PT9223372036854775807S", "PT9223372036854775808S", "PT1,5S", "pt1h", "PT", "P", "PT1H1H", "P1Y",
+      "PT1", "PT1.S", "PT1.0000000001S", "PT5M1H", "", "T1H", "P1DT"};
+
+  private static final String[] PERIOD_TEXTS = {
+      "P0D", "P1Y2M3D", "P3W", "P-1Y+2M", "-P1Y2M", "P1Y2W3D", "P2147483647D", "P2147483648D", "P306783379W",
+      "P1D2Y", "P", "P1", "PT1H", "p1y", "P1.5D", "P-2147483648Y", "--P1D"};
+
+  TemporalAmountFormatterTest() {
+  }
+
+  private static Duration parseDuration(final String text) {
+    try {
+      return Duration.parse(text);
+    } catch (DateTimeParseException | ArithmeticException exception) {
+      return null;
+    }
+  }
+
+  private static Period parsePeriod(final String text) {
+    try {
+      return Period.parse(text);
+    } catch (DateTimeParseException | ArithmeticException exception) {
+      return null;
+    }
+  }
+
+  @Test
+  @DisplayName("reject unsupported classes")
+  void construct() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new TemporalAmountFormatter<>(ChronoPeriod.class, false, PARSE_SKIP_MODE.NO_SKIP, true));
+  }
+
+  @Test
+  @DisplayName("parse durations like Duration.parse")
+  void parseDurations() {
+    // like Duration.parse case-insensitive
+    TemporalAmountFormatter<Duration> f = new TemporalAmountFormatter<>(Duration.class, true,
+        PARSE_SKIP_MODE.NO_SKIP, true);
+
+    for (String text : DURATION_TEXTS) {
+      Duration expected = parseDuration(text);
+      Duration result = f.parse(text);
+      if (text.isEmpty()) {
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.MISSING_VALUE, f.getLastParseResultCause());
+      } else if (expected != null) {
+        Assertions.assertEquals(expected, result, text);
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause(), text);
+      } else {
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause(), text);
+        Assertions.assertNotNull(f.getExceptionOnParsing(), text);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("parse periods like Period.parse")
+  void parsePeriods() {
+    // like Period.parse case-insensitive
+    TemporalAmountFormatter<Period> f = new TemporalAmountFormatter<>(Period.class, true,
+        PARSE_SKIP_MODE.NO_SKIP, true);
+
+    for (String text : PERIOD_TEXTS) {
+      Period expected = parsePeriod(text);
+      Period result = f.parse(text);
+      if (expected != null) {
+        Assertions.assertEquals(expected, result, text);
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.TEXT_VALUE, f.getLastParseResultCause(), text);
+      } else {
+        Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause(), text);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("format like toString and parse again")
+  void roundTrip() {
+    TemporalAmountFormatter<Duration> durations = createDefaultFormatter();
+    TemporalAmountFormatter<Period> periods = new TemporalAmountFormatter<>(Period.class, false,
+        PARSE_SKIP_MODE.WHITESPACES, true);
+
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      Duration duration = Duration.ofSeconds(random.nextLong() >> random.nextInt(64),
+          random.nextBoolean() ? 0 : random.nextInt(1_000_000_000));
+      Assertions.assertEquals(duration.toString(), durations.format(duration));
+      Assertions.assertEquals(duration, durations.parse(duration.toString()));
+
+      Period period = Period.of(random.nextInt() >> random.nextInt(32), random.nextInt(25) - 12,
+          random.nextInt(63) - 31);
+      Assertions.assertEquals(period.toString(), periods.formatTo(period, new StringBuilder()).toString());
+      Assertions.assertEquals(period, periods.parse(period.toString()));
+    }
+  }
+
+  @Test
+  @DisplayName("parse designators case-insensitive after setting")
+  void parseCaseInsensitive() {
+    TemporalAmountFormatter<Duration> f = createDefaultFormatter();
+
+    Assertions.assertNull(f.parse("pt1h2m"));
+    f.setParseCaseInsensitive(true);
+    Assertions.assertEquals(Duration.ofMinutes(62), f.parse("pt1h2m"));
+    Assertions.assertEquals(Duration.ofMinutes(62), f.clone().parse("Pt1H2m"));
+  }
+
+  @Test
+  @DisplayName("parse at positions")
+  void parsePosition() {
+    TemporalAmountFormatter<Duration> f = createDefaultFormatter().setParseUntilEnd(false);
+
+    ParsePosition parsePosition = new ParsePosition(2);
+    Assertions.assertEquals(Duration.ofHours(1), f.parse("d=PT1H;", parsePosition));
+    Assertions.assertEquals(6, parsePosition.getIndex());
+
+    // not parsed until the end, the duration is kept
+    f.setParseUntilEnd(true);
+    Assertions.assertEquals(Duration.ofHours(1), f.parse("PT1Hx"));
+    Assertions.assertEquals(PARSE_RESULT_CAUSE.ERROR, f.getLastParseResultCause());
+    Assertions.assertEquals(4, f.getLastParsePosition().getErrorIndex());
+  }
+
+  @Override public TemporalAmountFormatter<Duration> createDefaultFormatter() {
+    return new TemporalAmountFormatter<>(Duration.class, false, PARSE_SKIP_MODE.WHITESPACES, true);
+  }
+
+  @Override public Duration getTestParseDefault(final PARSE_RESULT_CAUSE formatDefault) {
+    return Duration.ofSeconds(formatDefault.ordinal());
+  }
+
+  @Override public Formatter<Duration, TemporalAmountFormatter<Duration>> getCloneTestFormatter() {
+    return createDefaultFormatter();
+  }
+
+  @Override public Formatter<Duration, TemporalAmountFormatter<Duration>> getComplementaryCloneTestFormatter() {
+    return new TemporalAmountFormatter<>(Duration.class, true, PARSE_SKIP_MODE.NO_SKIP, false)
+        .setFormatNullText("-");
+  }
+
+  @Override public void compareExtendedProps(final Formatter<Duration, TemporalAmountFormatter<Duration>> f,
+      final Formatter<Duration, TemporalAmountFormatter<Duration>> fc) {
+    Assertions.assertEquals(f.parse("pt1m"), fc.parse("pt1m"));
+    Assertions.assertEquals(f.format(null), fc.format(null));
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020-2022 Kai Bächle
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.ogawa.parstorius.formatter;
+
+import com.ogawa.parstorius.PARSE_SKIP_MODE;
+import com.ogawa.parstorius.StringFormatter;
+import com.ogawa.parstorius.ValueInterner;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class ValueInternerTest {
+
+  @Test
+  @DisplayName("estimate sizes")
+  void estimateSize() {
+    Assertions.assertEquals(24 + 24, ValueInterner.estimateSize("abcdefgh"));
+    Assertions.assertEquals(24 + 24, ValueInterner.estimateSize("äöüßäöüß"));
+    Assertions.assertEquals(24 + 32, ValueInterner.estimateSize("abcdefg€"));
+    Assertions.assertEquals(24 + 16, ValueInterner.estimateSize(""));
+    Assertions.assertEquals(40, ValueInterner.estimateSize(new BigDecimal("1.5")));
+    Assertions.assertEquals(24, ValueInterner.estimateSize(LocalDate.EPOCH));
+    Assertions.assertEquals(16, ValueInterner.estimateSize(1));
+  }
+
+  @Test
+  @DisplayName("intern parsed values")
+  void intern() {
+    StringFormatter f = new StringFormatter(false, 0, true).setParseSkipMode(PARSE_SKIP_MODE.WHITESPACES)
+        .setParseInterner(new ValueInterner<>(16));
+
+    String first = f.parse("DE");
+    Assertions.assertSame(first, f.parse(" DE "));
+    Assertions.assertNotSame(first, f.parse("FR"));
+
+    ValueInterner<String> interner = f.getParseInterner();
+    Assertions.assertEquals(1, interner.getHitCount());
+    Assertions.assertEquals(2, interner.getMissCount());
+    Assertions.assertEquals(24 + 24, interner.getSavedBytes());
+
+    interner.clear();
+    Assertions.assertEquals(0, interner.getHitCount());
+    f.parse(" DE ");
+    Assertions.assertEquals(1, interner.getMissCount());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new ValueInterner<String>(0));
+  }
+}